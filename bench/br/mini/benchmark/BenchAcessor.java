@@ -0,0 +1,101 @@
+package br.mini.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.Locale;
+
+import br.mini.Acessor;
+import br.mini.EntityMetadata;
+import br.mini.EntityMetadata.ColunaDescritor;
+
+/**
+ * Microbenchmark dos acessores de campo da {@link EntidadeLarga} (32 colunas), comparando o acesso anterior por
+ * reflexão, com {@link Field#setAccessible(boolean)} e {@link Field#set(Object, Object)}/{@link Field#get(Object)} a
+ * cada acesso, com os {@link Acessor} por MethodHandle resolvidos uma única vez nos metadados.
+ * <br>
+ * Cada linha medida atribui e lê todas as colunas de uma nova instância, como a hidratação e a atribuição dos
+ * parâmetros do INSERT. Deve ser compilado sem o {@link br.mini.processador.MapeadorProcessor} (-proc:none), para que
+ * os acessores não sejam delegados a um mapeador gerado:
+ * <br>
+ * <code>java -cp classes:bench br.mini.benchmark.BenchAcessor [linhas] [rodadas]</code>
+ * <br>
+ * Medição informal, sem JMH, feita pela {@link Medicao}.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public final class BenchAcessor {
+
+    private static final int LINHAS = 100000;
+
+    private static final int RODADAS = 10;
+
+    private static final int AQUECIMENTO = 5;
+
+    private BenchAcessor() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int linhas = args.length > 0 ? Integer.parseInt(args[0]) : LINHAS;
+        final int rodadas = args.length > 1 ? Integer.parseInt(args[1]) : RODADAS;
+
+        final EntityMetadata meta = EntityMetadata.obter(EntidadeLarga.class);
+        if (meta.getMapeador() != null) {
+            throw new IllegalStateException("EntidadeLarga deve ser compilada sem o MapeadorProcessor");
+        }
+        final int colunas = meta.getColunas().size();
+        final Field[] campos = new Field[colunas];
+        final Acessor[] acessores = new Acessor[colunas];
+        final Object[] valores = new Object[colunas];
+        for (ColunaDescritor col : meta.getColunas()) {
+            campos[col.getPosicao()] = col.getCampo();
+            acessores[col.getPosicao()] = col.getAcessor();
+            valores[col.getPosicao()] = EntidadeLarga.exemplo(col.getTipo(), col.getPosicao());
+        }
+
+        final Medicao reflexao = new Medicao("reflexao") {
+
+            @Override
+            Object executar() throws IllegalAccessException {
+                final EntidadeLarga obj = new EntidadeLarga();
+                for (int i = 0; i < colunas; i++) {
+                    campos[i].setAccessible(true);
+                    campos[i].set(obj, valores[i]);
+                }
+                int preenchidos = 0;
+                for (int i = 0; i < colunas; i++) {
+                    campos[i].setAccessible(true);
+                    if (campos[i].get(obj) != null) {
+                        preenchidos++;
+                    }
+                }
+                return preenchidos == colunas ? obj : null;
+            }
+        };
+        final Medicao acessor = new Medicao("acessor") {
+
+            @Override
+            Object executar() throws Exception {
+                final EntidadeLarga obj = new EntidadeLarga();
+                for (int i = 0; i < colunas; i++) {
+                    acessores[i].atribuir(obj, valores[i]);
+                }
+                int preenchidos = 0;
+                for (int i = 0; i < colunas; i++) {
+                    if (acessores[i].obter(obj) != null) {
+                        preenchidos++;
+                    }
+                }
+                return preenchidos == colunas ? obj : null;
+            }
+        };
+
+        System.out.println(String.format(Locale.ROOT, "%d colunas, %d linhas por rodada, %d rodadas", colunas, linhas,
+                rodadas));
+        for (int rodada = 0; rodada < AQUECIMENTO; rodada++) {
+            reflexao.rodar(linhas);
+            acessor.rodar(linhas);
+        }
+        reflexao.medir(linhas, rodadas, "linhas");
+        acessor.medir(linhas, rodadas, "linhas");
+    }
+}
@@ -0,0 +1,99 @@
+package br.mini.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import br.mini.EntityMetadata;
+import br.mini.EntityMetadata.ColunaDescritor;
+import br.mini.Mapeador;
+import br.mini.annotations.Coluna;
+import br.mini.exception.MiniException;
+import br.mini.processador.CompiladorMapeador;
+
+/**
+ * Benchmark da hidratação de entidades largas ({@link EntidadeLarga}, 32 colunas), comparando as linhas por segundo
+ * da hidratação por reflexão ({@link br.mini.Acessor} por MethodHandle, utilizado com
+ * {@link br.mini.enums.HidratacaoEnum#REFLEXAO}) com a do {@link Mapeador} compilado em tempo de execução pelo
+ * {@link CompiladorMapeador} ({@link br.mini.enums.HidratacaoEnum#GERADO}), que popula os campos em sequência através
+ * de {@link Mapeador#popular(Object, Object[])}.
+ * <br>
+ * Os valores das colunas já são entregues convertidos, isolando o custo da instanciação e da atribuição dos campos
+ * do custo do driver JDBC. Deve ser compilado sem o {@link br.mini.processador.MapeadorProcessor} (-proc:none) e
+ * executado em um JDK, para que a entidade não possua mapeador gerado em tempo de compilação:
+ * <br>
+ * <code>java -cp classes:bench br.mini.benchmark.BenchHidratacao [linhas] [rodadas]</code>
+ * <br>
+ * Medição informal, sem JMH, feita pela {@link Medicao}.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public final class BenchHidratacao {
+
+    private static final int LINHAS = 100000;
+
+    private static final int RODADAS = 10;
+
+    private static final int AQUECIMENTO = 5;
+
+    private BenchHidratacao() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final int linhas = args.length > 0 ? Integer.parseInt(args[0]) : LINHAS;
+        final int rodadas = args.length > 1 ? Integer.parseInt(args[1]) : RODADAS;
+
+        final EntityMetadata meta = EntityMetadata.obter(EntidadeLarga.class);
+        if (meta.getMapeador() != null) {
+            throw new IllegalStateException("EntidadeLarga deve ser compilada sem o MapeadorProcessor");
+        }
+        final Object[] valoresMeta = new Object[meta.getColunas().size()];
+        for (ColunaDescritor col : meta.getColunas()) {
+            valoresMeta[col.getPosicao()] = EntidadeLarga.exemplo(col.getTipo(), col.getPosicao());
+        }
+        final Medicao reflexao = new Medicao("reflexao") {
+
+            @Override
+            Object executar() throws MiniException {
+                return meta.hidratar(valoresMeta);
+            }
+        };
+
+        final List<Field> mapeados = new ArrayList<>();
+        for (Field campo : EntidadeLarga.class.getDeclaredFields()) {
+            if (campo.isAnnotationPresent(Coluna.class)) {
+                mapeados.add(campo);
+            }
+        }
+        @SuppressWarnings("unchecked")
+        final Mapeador<Object> mapeador = (Mapeador<Object>) CompiladorMapeador.compilar(EntidadeLarga.class, mapeados);
+        if (mapeador == null) {
+            throw new IllegalStateException("Mapeador não gerado, verifique se a execução é em um JDK");
+        }
+        final Object[] valoresMapeador = new Object[mapeador.getCampos().length];
+        for (int campo = 0; campo < valoresMapeador.length; campo++) {
+            final Class<?> tipo = EntidadeLarga.class.getDeclaredField(mapeador.getCampos()[campo]).getType();
+            valoresMapeador[campo] = EntidadeLarga.exemplo(tipo, campo);
+        }
+        final Medicao gerado = new Medicao("gerado") {
+
+            @Override
+            Object executar() {
+                final Object obj = mapeador.instanciar();
+                mapeador.popular(obj, valoresMapeador);
+                return obj;
+            }
+        };
+
+        System.out.println(String.format(Locale.ROOT, "%d colunas, %d linhas por rodada, %d rodadas",
+                valoresMeta.length, linhas, rodadas));
+        for (int rodada = 0; rodada < AQUECIMENTO; rodada++) {
+            reflexao.rodar(linhas);
+            gerado.rodar(linhas);
+        }
+        reflexao.medir(linhas, rodadas, "linhas");
+        gerado.medir(linhas, rodadas, "linhas");
+    }
+}
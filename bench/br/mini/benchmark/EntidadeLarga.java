@@ -0,0 +1,142 @@
+package br.mini.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Calendar;
+
+import br.mini.annotations.Coluna;
+import br.mini.annotations.Tabela;
+
+/**
+ * Entidade larga utilizada pelos benchmarks de hidratação e de acessores, com 32 colunas de tipos variados e campos
+ * públicos para que o {@link br.mini.processador.CompiladorMapeador} possa gerar o seu mapeador
+ *
+ * @author figueiredo-lucas
+ *
+ */
+@Tabela(nome = "TB_LARGA", prefixo = "L")
+public class EntidadeLarga {
+
+    @Coluna(nome = "C01", isPk = true)
+    public String texto1;
+
+    @Coluna(nome = "C02")
+    public Integer inteiro1;
+
+    @Coluna(nome = "C03")
+    public Long longo1;
+
+    @Coluna(nome = "C04")
+    public BigDecimal valor1;
+
+    @Coluna(nome = "C05")
+    public Calendar data1;
+
+    @Coluna(nome = "C06")
+    public int quantidade1;
+
+    @Coluna(nome = "C07")
+    public double taxa1;
+
+    @Coluna(nome = "C08")
+    public boolean ativo1;
+
+    @Coluna(nome = "C09")
+    public String texto2;
+
+    @Coluna(nome = "C10")
+    public Integer inteiro2;
+
+    @Coluna(nome = "C11")
+    public Long longo2;
+
+    @Coluna(nome = "C12")
+    public BigDecimal valor2;
+
+    @Coluna(nome = "C13")
+    public Calendar data2;
+
+    @Coluna(nome = "C14")
+    public int quantidade2;
+
+    @Coluna(nome = "C15")
+    public double taxa2;
+
+    @Coluna(nome = "C16")
+    public boolean ativo2;
+
+    @Coluna(nome = "C17")
+    public String texto3;
+
+    @Coluna(nome = "C18")
+    public Integer inteiro3;
+
+    @Coluna(nome = "C19")
+    public Long longo3;
+
+    @Coluna(nome = "C20")
+    public BigDecimal valor3;
+
+    @Coluna(nome = "C21")
+    public Calendar data3;
+
+    @Coluna(nome = "C22")
+    public int quantidade3;
+
+    @Coluna(nome = "C23")
+    public double taxa3;
+
+    @Coluna(nome = "C24")
+    public boolean ativo3;
+
+    @Coluna(nome = "C25")
+    public String texto4;
+
+    @Coluna(nome = "C26")
+    public Integer inteiro4;
+
+    @Coluna(nome = "C27")
+    public Long longo4;
+
+    @Coluna(nome = "C28")
+    public BigDecimal valor4;
+
+    @Coluna(nome = "C29")
+    public Calendar data4;
+
+    @Coluna(nome = "C30")
+    public int quantidade4;
+
+    @Coluna(nome = "C31")
+    public double taxa4;
+
+    @Coluna(nome = "C32")
+    public boolean ativo4;
+
+    /**
+     * @return valor de exemplo para o tipo do campo
+     */
+    static Object exemplo(final Class<?> tipo, final int posicao) {
+        if (String.class == tipo) {
+            return "VALOR " + posicao;
+        }
+        if (Integer.class == tipo || int.class == tipo) {
+            return Integer.valueOf(posicao);
+        }
+        if (Long.class == tipo) {
+            return Long.valueOf(posicao);
+        }
+        if (BigDecimal.class == tipo) {
+            return BigDecimal.valueOf(posicao, 2);
+        }
+        if (Calendar.class == tipo) {
+            return Calendar.getInstance();
+        }
+        if (double.class == tipo) {
+            return Double.valueOf(posicao);
+        }
+        if (boolean.class == tipo) {
+            return Boolean.TRUE;
+        }
+        throw new IllegalArgumentException(tipo.getName());
+    }
+}
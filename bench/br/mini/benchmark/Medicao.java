@@ -0,0 +1,74 @@
+package br.mini.benchmark;
+
+import java.util.Locale;
+
+/**
+ * Operação medida pelos benchmarks, executada repetidamente em rodadas. O melhor tempo e o tempo médio das rodadas
+ * são exibidos em operações por segundo
+ * <br>
+ * É um harness informal, baseado em laços com {@link System#nanoTime()}, e não substitui o JMH: não há fork de JVM
+ * por medição, o aquecimento é uma quantidade fixa de rodadas e a proteção contra eliminação de código morto se
+ * limita ao {@link #sumidouro}. Os números servem para comparar as alternativas na mesma execução, não como medida
+ * absoluta.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+abstract class Medicao {
+
+    /**
+     * Mantém o último resultado para que a JIT não elimine o trabalho medido
+     */
+    static volatile Object sumidouro;
+
+    private final String nome;
+
+    Medicao(final String nome) {
+        this.nome = nome;
+    }
+
+    /**
+     * Executa uma vez a operação medida
+     *
+     * @return resultado da operação
+     * @throws Exception
+     */
+    abstract Object executar() throws Exception;
+
+    /**
+     * Executa a operação repetidamente
+     *
+     * @param vezes Quantidade de execuções
+     * @return tempo total em nanossegundos
+     * @throws Exception
+     */
+    long rodar(final int vezes) throws Exception {
+        final long inicio = System.nanoTime();
+        Object resultado = null;
+        for (int vez = 0; vez < vezes; vez++) {
+            resultado = executar();
+        }
+        sumidouro = resultado;
+        return System.nanoTime() - inicio;
+    }
+
+    /**
+     * Executa as rodadas e exibe o melhor tempo e o tempo médio
+     *
+     * @param vezes Quantidade de execuções por rodada
+     * @param rodadas Quantidade de rodadas
+     * @param unidade Unidade exibida para cada execução
+     * @throws Exception
+     */
+    void medir(final int vezes, final int rodadas, final String unidade) throws Exception {
+        long melhor = Long.MAX_VALUE;
+        long total = 0;
+        for (int rodada = 0; rodada < rodadas; rodada++) {
+            final long tempo = rodar(vezes);
+            melhor = Math.min(melhor, tempo);
+            total += tempo;
+        }
+        System.out.println(String.format(Locale.ROOT, "%-10s melhor: %,12.0f %s/s   média: %,12.0f %s/s", nome,
+                vezes * 1e9 / melhor, unidade, vezes * 1e9 * rodadas / total, unidade));
+    }
+}
@@ -0,0 +1,168 @@
+package br.mini;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+import br.mini.exception.MiniException;
+import br.mini.exception.MiniRuntimeException;
+
+/**
+ * Acessor pré-compilado de um atributo das entidades, resolvido uma única vez na criação dos metadados da classe.
+ * <br>
+ * Quando a entidade possui um {@link Mapeador} gerado, o acesso é delegado ao mesmo. Caso contrário, os
+ * {@link MethodHandle} de leitura e escrita são adaptados para a assinatura (Object)Object e (Object,Object)void
+ * permitindo a chamada através de invokeExact.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public abstract class Acessor {
+
+    private final Field campo;
+
+    private Acessor(final Field campo) {
+        this.campo = campo;
+    }
+
+    /**
+     * Cria o acessor através de {@link MethodHandle}. O campo deve estar acessível através de
+     * {@link Field#setAccessible(boolean)}
+     *
+     * @param campo Campo a ser acessado
+     * @return acessor do campo
+     */
+    static Acessor criar(final Field campo) {
+        return new PorMethodHandle(campo);
+    }
+
+    /**
+     * Cria o acessor delegando ao {@link Mapeador} gerado da entidade
+     *
+     * @param campo Campo a ser acessado
+     * @param mapeador Mapeador da entidade
+     * @param indice Índice do campo no mapeador
+     * @return acessor do campo
+     */
+    static Acessor criar(final Field campo, final Mapeador<?> mapeador, final int indice) {
+        return new PorMapeador(campo, mapeador, indice);
+    }
+
+    public Field getCampo() {
+        return campo;
+    }
+
+    /**
+     * Obtém o valor do campo no objeto
+     *
+     * @param obj Objeto a ser lido
+     * @return valor do campo
+     * @throws MiniException
+     */
+    public abstract Object obter(Object obj) throws MiniException;
+
+    /**
+     * Atribui o valor ao campo no objeto
+     *
+     * @param obj Objeto a ser populado
+     * @param valor Valor a ser atribuído
+     * @throws MiniException
+     */
+    public abstract void atribuir(Object obj, Object valor) throws MiniException;
+
+    /**
+     * Acessor através de {@link MethodHandle}
+     */
+    private static final class PorMethodHandle extends Acessor {
+
+        private static final MethodType TIPO_GETTER = MethodType.methodType(Object.class, Object.class);
+        private static final MethodType TIPO_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        PorMethodHandle(final Field campo) {
+            super(campo);
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                this.getter = lookup.unreflectGetter(campo).asType(TIPO_GETTER);
+            } catch (IllegalAccessException ex) {
+                throw new MiniRuntimeException(Constantes.FALHA_OBTER_CAMPO, ex);
+            }
+            this.setter = criarSetter(lookup, campo);
+        }
+
+        /**
+         * @return setter do campo ou null para campos final, populados somente pelo construtor da entidade
+         */
+        private static MethodHandle criarSetter(final MethodHandles.Lookup lookup, final Field campo) {
+            try {
+                return lookup.unreflectSetter(campo).asType(TIPO_SETTER);
+            } catch (IllegalAccessException ex) {
+                if (Modifier.isFinal(campo.getModifiers())) {
+                    return null;
+                }
+                throw new MiniRuntimeException(Constantes.FALHA_OBTER_CAMPO, ex);
+            }
+        }
+
+        @Override
+        public Object obter(final Object obj) throws MiniException {
+            try {
+                return (Object) getter.invokeExact(obj);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new MiniException(Constantes.FALHA_OBTER_CAMPO, ex);
+            }
+        }
+
+        @Override
+        public void atribuir(final Object obj, final Object valor) throws MiniException {
+            if (setter == null) {
+                throw new MiniException(Constantes.FALHA_POPULAR_OBJETO);
+            }
+            try {
+                setter.invokeExact(obj, valor);
+            } catch (ClassCastException ex) {
+                throw new MiniException(Constantes.FALHA_POPULAR_OBJETO, ex);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new MiniException(Constantes.FALHA_POPULAR_OBJETO, ex);
+            }
+        }
+    }
+
+    /**
+     * Acessor através do {@link Mapeador} gerado em tempo de compilação
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final class PorMapeador extends Acessor {
+
+        private final Mapeador mapeador;
+        private final int indice;
+
+        PorMapeador(final Field campo, final Mapeador<?> mapeador, final int indice) {
+            super(campo);
+            this.mapeador = mapeador;
+            this.indice = indice;
+        }
+
+        @Override
+        public Object obter(final Object obj) throws MiniException {
+            return mapeador.obter(obj, indice);
+        }
+
+        @Override
+        public void atribuir(final Object obj, final Object valor) throws MiniException {
+            try {
+                mapeador.atribuir(obj, indice, valor);
+            } catch (ClassCastException ex) {
+                throw new MiniException(Constantes.FALHA_POPULAR_OBJETO, ex);
+            }
+        }
+    }
+}
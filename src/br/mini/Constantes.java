@@ -24,9 +24,29 @@ public final class Constantes {
     public static final String FALHA_OBTER_COUNT = "Falha ao obter count";
     public static final String FALHA_PERSISTIR_DADO = "Falha ao persistir o dado";
     public static final String FALHA_EXCLUIR_DADO = "Falha ao persistir o dado";
+    public static final String FALHA_TRANSFERIR_ARQUIVO = "Falha ao transferir o arquivo";
     public static final String FALHA_ANOTACAO_TABELA = "Anotação de tabela não encontrada";
     public static final String FALHA_POPULAR_OBJETO = "Falha ao popular o objeto com os dados obtidos";
     public static final String FALHA_OBTER_NOVA_PK = "Falha ao obter uma nova PK";
+    public static final String SESSAO_ENCERRADA = "Sessão encerrada.";
+    public static final String FALHA_VARREDURA = "Falha ao varrer as classes do pacote ";
+    public static final String FALHA_MAPEAMENTO = "Mapeamento inválido das entidades: ";
+    public static final String POOL_INVALIDO = "Configuração do pool de conexões inválida.";
+    public static final String POOL_FECHADO = "Pool de conexões fechado.";
+    public static final String POOL_ESGOTADO = "Nenhuma conexão disponível no pool após ";
+    public static final String FALHA_CONFIRMAR_TRANSACAO = "Falha ao confirmar a transação.";
+    public static final String TRANSACAO_DESFEITA = "Transação desfeita por falha em uma de suas operações.";
+    public static final String DESFAZER_AUTO_COMMIT = "Não é possível desfazer: a conexão foi colocada em auto commit.";
+    public static final String CONEXAO_DEVOLVIDA = "Conexão já devolvida ao pool.";
+    public static final String STATEMENT_FECHADO = "Statement fechado.";
+    public static final String COLUNA_INEXISTENTE = "Coluna não mapeada na classe: ";
+    public static final String ATUALIZACAO_SEM_VALORES = "Nenhum valor informado para a atualização.";
+    public static final String LOB_NAO_CLOB = "O campo Lob não é um CLOB.";
+    public static final String LOB_NAO_BLOB = "O campo Lob não é um BLOB.";
+    public static final String FILA_ESCRITA_INVALIDA = "Configuração da fila de escrita adiada inválida.";
+    public static final String FILA_ESCRITA_FECHADA = "Fila de escrita adiada encerrada.";
+    public static final String FILA_ESCRITA_CHEIA = "Fila de escrita adiada sem espaço após ";
+    public static final String FALHA_GRAVAR_FILA_ESCRITA = "Falha ao gravar a fila de escrita adiada. Descartados: ";
 
     /**
      * Inner Class de constantes do sistema utilizadas para SQL
@@ -0,0 +1,572 @@
+package br.mini;
+
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import br.mini.annotations.Coluna;
+import br.mini.annotations.PseudoColuna;
+import br.mini.annotations.PseudoTabela;
+import br.mini.annotations.Tabela;
+import br.mini.database.Connector;
+import br.mini.enums.ChaveEnum;
+import br.mini.enums.HidratacaoEnum;
+import br.mini.exception.MiniException;
+import br.mini.processador.CompiladorMapeador;
+
+/**
+ * Registro dos metadados das entidades mapeadas. As anotações {@link Tabela}, {@link Coluna}, {@link PseudoTabela} e
+ * {@link PseudoColuna} são lidas uma única vez por classe e mantidas em descritores imutáveis, evitando as chamadas de
+ * reflexão a cada operação.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public final class EntityMetadata {
+
+    /**
+     * Mapa com os metadados já processados. Como key, utiliza a própria classe
+     */
+    private static final ConcurrentMap<Class<?>, EntityMetadata> REGISTRO = new ConcurrentHashMap<>();
+
+    private final Class<?> classe;
+    private final Tabela tabela;
+    private final PseudoTabela pseudoTabela;
+    private final String nomeTabela;
+    private final String aliasTabela;
+    private final List<ColunaDescritor> colunas;
+    private final List<ColunaDescritor> pks;
+    private final List<ColunaDescritor> fks;
+    private final List<ColunaDescritor> clobs;
+    private final List<ColunaDescritor> blobs;
+    private final List<ColunaDescritor> lazies;
+    private final List<PseudoColunaDescritor> pseudoColunas;
+    private final Map<String, PseudoColunaDescritor> referencias;
+    private final boolean existeClob;
+    private final boolean existeBlob;
+    private final Mapeador<?> mapeador;
+    private final Instanciador instanciador;
+    private final Acessor[] acessores;
+
+    private EntityMetadata(final Class<?> classe) {
+        this.classe = classe;
+        this.tabela = classe.getAnnotation(Tabela.class);
+        this.pseudoTabela = classe.getAnnotation(PseudoTabela.class);
+        this.nomeTabela = tabela != null ? tabela.nome() : (pseudoTabela != null ? pseudoTabela.alias() : "");
+        this.aliasTabela = tabela != null ? Utils.Strings.descapitalizaTabela(tabela.nome()) : nomeTabela;
+
+        final List<Field> campos = new ArrayList<>();
+        if (pseudoTabela != null && classe.getSuperclass() != null && classe.getSuperclass() != Object.class) {
+            campos.addAll(Arrays.asList(classe.getSuperclass().getDeclaredFields()));
+        }
+        campos.addAll(Arrays.asList(classe.getDeclaredFields()));
+        final Class<? extends Annotation> anotacao = pseudoTabela != null ? PseudoColuna.class : Coluna.class;
+        final List<Field> mapeados = new ArrayList<>();
+        for (Field campo : campos) {
+            if (campo.isAnnotationPresent(anotacao)) {
+                campo.setAccessible(true);
+                mapeados.add(campo);
+            }
+        }
+        this.mapeador = carregarMapeador(classe, mapeados);
+        if (mapeador != null) {
+            ordenarPorMapeador(mapeados, mapeador);
+        }
+        this.instanciador = Instanciador.criar(classe, mapeados, mapeador);
+        this.acessores = new Acessor[mapeados.size()];
+
+        final List<ColunaDescritor> colunasList = new ArrayList<>();
+        final List<ColunaDescritor> pksList = new ArrayList<>();
+        final List<ColunaDescritor> fksList = new ArrayList<>();
+        final List<ColunaDescritor> clobsList = new ArrayList<>();
+        final List<ColunaDescritor> blobsList = new ArrayList<>();
+        final List<ColunaDescritor> laziesList = new ArrayList<>();
+        final List<PseudoColunaDescritor> pseudoList = new ArrayList<>();
+        final Map<String, PseudoColunaDescritor> referenciasMap = new HashMap<>();
+        for (Field campo : mapeados) {
+            final int posicao = pseudoTabela != null ? pseudoList.size() : colunasList.size();
+            final Acessor acessor = mapeador != null ? Acessor.criar(campo, mapeador, posicao) : Acessor.criar(campo);
+            acessores[posicao] = acessor;
+            if (pseudoTabela != null) {
+                final PseudoColunaDescritor col = new PseudoColunaDescritor(campo, acessor,
+                        campo.getAnnotation(PseudoColuna.class), posicao);
+                pseudoList.add(col);
+                final String chave = col.getCampoReferencia().toUpperCase(Locale.ROOT);
+                if (!referenciasMap.containsKey(chave)) {
+                    referenciasMap.put(chave, col);
+                }
+                continue;
+            }
+            final ColunaDescritor col = new ColunaDescritor(campo, acessor, campo.getAnnotation(Coluna.class), posicao);
+            colunasList.add(col);
+            if (col.isPk()) {
+                pksList.add(col);
+            }
+            if (col.isFk()) {
+                fksList.add(col);
+            }
+            if (col.isLazy()) {
+                laziesList.add(col);
+            } else if (col.isClob()) {
+                clobsList.add(col);
+            }
+            if (col.isBlob()) {
+                blobsList.add(col);
+            }
+        }
+
+        this.colunas = Collections.unmodifiableList(colunasList);
+        this.pks = Collections.unmodifiableList(pksList);
+        this.fks = Collections.unmodifiableList(fksList);
+        this.clobs = Collections.unmodifiableList(clobsList);
+        this.blobs = Collections.unmodifiableList(blobsList);
+        this.lazies = Collections.unmodifiableList(laziesList);
+        this.pseudoColunas = Collections.unmodifiableList(pseudoList);
+        this.referencias = Collections.unmodifiableMap(referenciasMap);
+        this.existeClob = !clobsList.isEmpty();
+        this.existeBlob = !blobsList.isEmpty();
+    }
+
+    /**
+     * Carrega o {@link Mapeador} gerado para a classe, caso exista e seja compatível com os campos mapeados. Na
+     * ausência do mapeador gerado em tempo de compilação e com a hidratação {@link HidratacaoEnum#GERADO}
+     * configurada, o mapeador é compilado em tempo de execução pelo {@link CompiladorMapeador}
+     *
+     * @param classe Classe da entidade
+     * @param mapeados Campos anotados da entidade
+     * @return mapeador gerado ou null para utilizar reflexão
+     */
+    private static Mapeador<?> carregarMapeador(final Class<?> classe, final List<Field> mapeados) {
+        Object gerado;
+        try {
+            gerado = Class.forName(classe.getName() + Mapeador.SUFIXO, true, classe.getClassLoader())
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            gerado = null;
+        }
+        if (gerado == null && Connector.getHidratacao() == HidratacaoEnum.GERADO) {
+            gerado = CompiladorMapeador.compilar(classe, mapeados);
+        }
+        if (!(gerado instanceof Mapeador)) {
+            return null;
+        }
+        final Mapeador<?> mapeador = (Mapeador<?>) gerado;
+        final List<String> nomes = new ArrayList<>();
+        for (Field campo : mapeados) {
+            nomes.add(campo.getName());
+        }
+        final List<String> gerados = Arrays.asList(mapeador.getCampos());
+        return gerados.size() == nomes.size() && gerados.containsAll(nomes) ? mapeador : null;
+    }
+
+    /**
+     * Ordena os campos conforme a ordem definida pelo {@link Mapeador}, a mesma utilizada nos SQLs gerados
+     *
+     * @param mapeados Campos anotados da entidade
+     * @param mapeador Mapeador gerado
+     */
+    private static void ordenarPorMapeador(final List<Field> mapeados, final Mapeador<?> mapeador) {
+        final Map<String, Field> porNome = new HashMap<>();
+        for (Field campo : mapeados) {
+            porNome.put(campo.getName(), campo);
+        }
+        mapeados.clear();
+        for (String nome : mapeador.getCampos()) {
+            mapeados.add(porNome.get(nome));
+        }
+    }
+
+    /**
+     * Obtém os metadados da classe passada por parâmetro, processando suas anotações apenas no primeiro acesso
+     *
+     * @param classe Classe a ser percorrida
+     * @return Metadados da classe
+     */
+    public static EntityMetadata obter(final Class<?> classe) {
+        EntityMetadata meta = REGISTRO.get(classe);
+        if (meta == null) {
+            meta = new EntityMetadata(classe);
+            final EntityMetadata existente = REGISTRO.putIfAbsent(classe, meta);
+            if (existente != null) {
+                meta = existente;
+            }
+        }
+        return meta;
+    }
+
+    public Class<?> getClasse() {
+        return classe;
+    }
+
+    public Tabela getTabela() {
+        return tabela;
+    }
+
+    public PseudoTabela getPseudoTabela() {
+        return pseudoTabela;
+    }
+
+    /**
+     * @return mapeador gerado em tempo de compilação ou null caso a entidade utilize reflexão
+     */
+    public Mapeador<?> getMapeador() {
+        return mapeador;
+    }
+
+    /**
+     * Cria uma nova instância vazia da entidade através do {@link Instanciador} resolvido para a classe
+     *
+     * @return nova instância
+     * @throws MiniException caso a entidade não possua construtor sem parâmetros
+     */
+    public Object novaInstancia() throws MiniException {
+        if (!isInstanciavel()) {
+            throw new MiniException(Constantes.FALHA_POPULAR_OBJETO);
+        }
+        return instanciador.instanciar();
+    }
+
+    /**
+     * @return true caso a entidade possua construtor sem parâmetros ou com todos os campos mapeados
+     */
+    public boolean isInstanciavel() {
+        return instanciador != null;
+    }
+
+    /**
+     * Cria uma nova instância da entidade populada com os valores das colunas. Entidades com construtor de todos os
+     * campos mapeados são criadas em uma única chamada, e as entidades com {@link Mapeador} são populadas em sequência
+     * pelo mesmo; as demais são instanciadas e populadas campo a campo. Valores nulos não são atribuídos a campos
+     * primitivos.
+     *
+     * @param valores Valores já convertidos, indexados pela posição das colunas nos metadados
+     * @return nova instância populada
+     * @throws MiniException
+     */
+    public Object hidratar(final Object[] valores) throws MiniException {
+        if (instanciador != null && instanciador.isPorArgumentos()) {
+            return instanciador.instanciar(valores);
+        }
+        if (mapeador != null) {
+            return popular(mapeador, valores);
+        }
+        final Object obj = novaInstancia();
+        for (int posicao = 0; posicao < acessores.length; posicao++) {
+            final Object valor = valores[posicao];
+            if (valor != null || !acessores[posicao].getCampo().getType().isPrimitive()) {
+                acessores[posicao].atribuir(obj, valor);
+            }
+        }
+        return obj;
+    }
+
+    private static <T> T popular(final Mapeador<T> mapeador, final Object[] valores) throws MiniException {
+        final T obj = mapeador.instanciar();
+        try {
+            mapeador.popular(obj, valores);
+        } catch (ClassCastException ex) {
+            throw new MiniException(Constantes.FALHA_POPULAR_OBJETO, ex);
+        }
+        return obj;
+    }
+
+    public boolean isTabela() {
+        return tabela != null;
+    }
+
+    public boolean isPseudoTabela() {
+        return pseudoTabela != null;
+    }
+
+    /**
+     * @return true caso a PK seja uma coluna de identidade, gerada pelo banco na inserção
+     */
+    public boolean isIdentidade() {
+        return tabela != null && tabela.chave() == ChaveEnum.IDENTIDADE;
+    }
+
+    /**
+     * @return nome da {@link Tabela} ou alias da {@link PseudoTabela}
+     */
+    public String getNomeTabela() {
+        return nomeTabela;
+    }
+
+    /**
+     * @return nome da tabela descapitalizado e sem owner, utilizado como base dos alias nas consultas
+     */
+    public String getAliasTabela() {
+        return aliasTabela;
+    }
+
+    /**
+     * @return colunas anotadas com {@link Coluna}, na ordem de declaração da classe
+     */
+    public List<ColunaDescritor> getColunas() {
+        return colunas;
+    }
+
+    /**
+     * @return colunas marcadas como PK
+     */
+    public List<ColunaDescritor> getPks() {
+        return pks;
+    }
+
+    /**
+     * @return primeira coluna marcada como PK ou null caso não exista
+     */
+    public ColunaDescritor getPk() {
+        return pks.isEmpty() ? null : pks.get(0);
+    }
+
+    /**
+     * @return colunas marcadas como FK
+     */
+    public List<ColunaDescritor> getFks() {
+        return fks;
+    }
+
+    /**
+     * @return colunas marcadas como CLOB, exceto as de carregamento tardio
+     */
+    public List<ColunaDescritor> getClobs() {
+        return clobs;
+    }
+
+    /**
+     * @return colunas de arquivo ({@link InputStream}), tratadas como BLOB
+     */
+    public List<ColunaDescritor> getBlobs() {
+        return blobs;
+    }
+
+    /**
+     * @return colunas CLOB e BLOB de carregamento tardio, que não fazem parte dos selects da classe
+     */
+    public List<ColunaDescritor> getLazies() {
+        return lazies;
+    }
+
+    public boolean existeClob() {
+        return existeClob;
+    }
+
+    public boolean existeBlob() {
+        return existeBlob;
+    }
+
+    /**
+     * @return colunas anotadas com {@link PseudoColuna}, incluindo as da superclasse
+     */
+    public List<PseudoColunaDescritor> getPseudoColunas() {
+        return pseudoColunas;
+    }
+
+    /**
+     * Obtém a {@link PseudoColuna} através do seu campo de referência, sem diferenciar maiúsculas e minúsculas
+     *
+     * @param campoReferencia Nome do campo de referência
+     * @return Descritor da coluna ou null caso não exista
+     */
+    public PseudoColunaDescritor obterPorCampoReferencia(final String campoReferencia) {
+        return referencias.get(campoReferencia.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Descritor imutável de um atributo anotado com {@link Coluna}
+     *
+     * @author figueiredo-lucas
+     *
+     */
+    public static final class ColunaDescritor {
+
+        private final Field campo;
+        private final Acessor acessor;
+        private final Coluna coluna;
+        private final int posicao;
+        private final boolean blob;
+        private final Leitor leitor;
+
+        private ColunaDescritor(final Field campo, final Acessor acessor, final Coluna coluna, final int posicao) {
+            this.campo = campo;
+            this.acessor = acessor;
+            this.coluna = coluna;
+            this.posicao = posicao;
+            this.blob = InputStream.class.isAssignableFrom(campo.getType());
+            this.leitor = Leitor.criar(campo.getType(), coluna.isClob(), coluna.isFk(), coluna.isTrim());
+        }
+
+        public Field getCampo() {
+            return campo;
+        }
+
+        /**
+         * @return acessor pré-compilado de leitura e escrita do campo
+         */
+        public Acessor getAcessor() {
+            return acessor;
+        }
+
+        /**
+         * @return leitor da coluna no ResultSet, específico para o tipo do campo
+         */
+        public Leitor getLeitor() {
+            return leitor;
+        }
+
+        public Coluna getColuna() {
+            return coluna;
+        }
+
+        public Class<?> getTipo() {
+            return campo.getType();
+        }
+
+        public String getNome() {
+            return coluna.nome();
+        }
+
+        /**
+         * @return posição da coluna dentre as colunas mapeadas da classe
+         */
+        public int getPosicao() {
+            return posicao;
+        }
+
+        public boolean isPk() {
+            return coluna.isPk();
+        }
+
+        public boolean isFk() {
+            return coluna.isFk();
+        }
+
+        public boolean isClob() {
+            return coluna.isClob();
+        }
+
+        /**
+         * @return true caso a coluna seja um LOB de carregamento tardio
+         */
+        public boolean isLazy() {
+            return coluna.isLazy();
+        }
+
+        /**
+         * @return true caso os espaços das extremidades do valor lido sejam removidos
+         */
+        public boolean isTrim() {
+            return coluna.isTrim();
+        }
+
+        /**
+         * @return true caso o atributo seja um {@link InputStream}, tratado como BLOB
+         */
+        public boolean isBlob() {
+            return blob;
+        }
+
+        public int getTamanho() {
+            return coluna.tamanho();
+        }
+    }
+
+    /**
+     * Descritor imutável de um atributo anotado com {@link PseudoColuna}
+     *
+     * @author figueiredo-lucas
+     *
+     */
+    public static final class PseudoColunaDescritor {
+
+        private final Field campo;
+        private final Acessor acessor;
+        private final PseudoColuna pseudoColuna;
+        private final String[] colunas;
+        private final int posicao;
+        private final Leitor leitor;
+
+        private PseudoColunaDescritor(final Field campo, final Acessor acessor, final PseudoColuna pseudoColuna,
+                final int posicao) {
+            this.campo = campo;
+            this.acessor = acessor;
+            this.pseudoColuna = pseudoColuna;
+            this.colunas = pseudoColuna.colunas();
+            this.posicao = posicao;
+            this.leitor = Leitor.criar(campo.getType(), false, false, true);
+        }
+
+        /**
+         * @return posição da coluna dentre as colunas mapeadas da classe
+         */
+        public int getPosicao() {
+            return posicao;
+        }
+
+        public Field getCampo() {
+            return campo;
+        }
+
+        /**
+         * @return acessor pré-compilado de leitura e escrita do campo
+         */
+        public Acessor getAcessor() {
+            return acessor;
+        }
+
+        /**
+         * @return leitor da coluna no ResultSet, específico para o tipo do campo
+         */
+        public Leitor getLeitor() {
+            return leitor;
+        }
+
+        /**
+         * @param indice Índice da tabela na {@link PseudoTabela}
+         * @return nome da coluna para a tabela do índice
+         */
+        public String getColuna(final int indice) {
+            return colunas[indice];
+        }
+
+        public String getAlias() {
+            return pseudoColuna.alias();
+        }
+
+        public Class<?> getReferencia() {
+            return pseudoColuna.referencia();
+        }
+
+        /**
+         * @return true caso a coluna faça referência a outra classe anotada com {@link Tabela}
+         */
+        public boolean isReferenciada() {
+            return pseudoColuna.referencia() != Object.class;
+        }
+
+        public String getCampoVinculo() {
+            return pseudoColuna.campoVinculo();
+        }
+
+        public String getCampoReferencia() {
+            return pseudoColuna.campoReferencia();
+        }
+
+        /**
+         * @return nome da coluna no resultado da consulta: o alias ou, caso referenciada, o campo de referência
+         */
+        public String getNomeResultado() {
+            return isReferenciada() ? pseudoColuna.campoReferencia() : pseudoColuna.alias();
+        }
+    }
+}
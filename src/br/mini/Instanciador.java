@@ -0,0 +1,191 @@
+package br.mini;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+
+import br.mini.exception.MiniException;
+
+/**
+ * Instanciador das entidades, resolvido uma única vez na criação dos metadados da classe, substituindo o
+ * {@link Class#newInstance()} e suas verificações de acesso a cada linha lida.
+ * <br>
+ * A ordem de resolução é: o {@link Mapeador} gerado, o construtor sem parâmetros e, para entidades imutáveis, o
+ * construtor cujos parâmetros correspondem, na ordem de declaração, aos tipos dos campos mapeados. Neste último
+ * caso a entidade é criada já populada, em uma única chamada, através de {@link #instanciar(Object[])}.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public abstract class Instanciador {
+
+    private Instanciador() {
+    }
+
+    /**
+     * Resolve o instanciador da entidade
+     *
+     * @param classe Classe da entidade
+     * @param mapeados Campos mapeados, na ordem das posições dos metadados
+     * @param mapeador Mapeador gerado ou null
+     * @return instanciador ou null caso a entidade não possua construtor compatível
+     */
+    static Instanciador criar(final Class<?> classe, final List<Field> mapeados, final Mapeador<?> mapeador) {
+        if (mapeador != null) {
+            return new PorMapeador(mapeador);
+        }
+        final Class<?>[] tipos = new Class<?>[mapeados.size()];
+        for (int indice = 0; indice < tipos.length; indice++) {
+            tipos[indice] = mapeados.get(indice).getType();
+        }
+        Constructor<?> semParametros = null;
+        Constructor<?> comArgumentos = null;
+        for (Constructor<?> construtor : classe.getDeclaredConstructors()) {
+            if (construtor.getParameterTypes().length == 0) {
+                semParametros = construtor;
+            } else if (Arrays.equals(construtor.getParameterTypes(), tipos)) {
+                comArgumentos = construtor;
+            }
+        }
+        try {
+            if (semParametros != null) {
+                semParametros.setAccessible(true);
+                return new PorConstrutor(MethodHandles.lookup().unreflectConstructor(semParametros));
+            }
+            if (comArgumentos != null) {
+                comArgumentos.setAccessible(true);
+                return new PorArgumentos(MethodHandles.lookup().unreflectConstructor(comArgumentos), tipos);
+            }
+        } catch (IllegalAccessException | SecurityException ex) {
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * @return true caso a entidade seja criada já populada através de {@link #instanciar(Object[])}
+     */
+    public boolean isPorArgumentos() {
+        return false;
+    }
+
+    /**
+     * Cria uma nova instância vazia da entidade
+     *
+     * @return nova instância
+     * @throws MiniException caso a entidade somente possa ser criada com os valores dos campos
+     */
+    public abstract Object instanciar() throws MiniException;
+
+    /**
+     * Cria uma nova instância da entidade populada com os valores informados
+     *
+     * @param valores Valores dos campos, indexados pela posição nos metadados
+     * @return nova instância
+     * @throws MiniException
+     */
+    public Object instanciar(final Object[] valores) throws MiniException {
+        throw new MiniException(Constantes.FALHA_POPULAR_OBJETO);
+    }
+
+    /**
+     * Instanciação através do {@link Mapeador} gerado
+     */
+    private static final class PorMapeador extends Instanciador {
+
+        private final Mapeador<?> mapeador;
+
+        PorMapeador(final Mapeador<?> mapeador) {
+            this.mapeador = mapeador;
+        }
+
+        @Override
+        public Object instanciar() {
+            return mapeador.instanciar();
+        }
+    }
+
+    /**
+     * Instanciação através do construtor sem parâmetros
+     */
+    private static final class PorConstrutor extends Instanciador {
+
+        private static final MethodType TIPO = MethodType.methodType(Object.class);
+
+        private final MethodHandle construtor;
+
+        PorConstrutor(final MethodHandle construtor) {
+            this.construtor = construtor.asType(TIPO);
+        }
+
+        @Override
+        public Object instanciar() throws MiniException {
+            try {
+                return (Object) construtor.invokeExact();
+            } catch (ClassCastException ex) {
+                throw new MiniException(Constantes.FALHA_POPULAR_OBJETO, ex);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new MiniException(Constantes.FALHA_POPULAR_OBJETO, ex);
+            }
+        }
+    }
+
+    /**
+     * Instanciação através do construtor com todos os campos mapeados
+     */
+    private static final class PorArgumentos extends Instanciador {
+
+        private static final MethodType TIPO = MethodType.methodType(Object.class, Object[].class);
+
+        private final MethodHandle construtor;
+        /**
+         * Valores padrões dos parâmetros primitivos, utilizados quando a coluna é nula
+         */
+        private final Object[] padroes;
+
+        PorArgumentos(final MethodHandle construtor, final Class<?>[] tipos) {
+            this.construtor = construtor.asSpreader(Object[].class, tipos.length).asType(TIPO);
+            this.padroes = new Object[tipos.length];
+            for (int indice = 0; indice < tipos.length; indice++) {
+                if (tipos[indice].isPrimitive()) {
+                    padroes[indice] = Array.get(Array.newInstance(tipos[indice], 1), 0);
+                }
+            }
+        }
+
+        @Override
+        public boolean isPorArgumentos() {
+            return true;
+        }
+
+        @Override
+        public Object instanciar() throws MiniException {
+            throw new MiniException(Constantes.FALHA_POPULAR_OBJETO);
+        }
+
+        @Override
+        public Object instanciar(final Object[] valores) throws MiniException {
+            for (int indice = 0; indice < padroes.length; indice++) {
+                if (valores[indice] == null) {
+                    valores[indice] = padroes[indice];
+                }
+            }
+            try {
+                return (Object) construtor.invokeExact(valores);
+            } catch (ClassCastException ex) {
+                throw new MiniException(Constantes.FALHA_POPULAR_OBJETO, ex);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new MiniException(Constantes.FALHA_POPULAR_OBJETO, ex);
+            }
+        }
+    }
+}
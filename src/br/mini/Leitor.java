@@ -0,0 +1,229 @@
+package br.mini;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+import br.mini.exception.MiniException;
+
+/**
+ * Leitor de uma coluna do {@link ResultSet}, resolvido uma única vez na criação dos metadados da classe a partir do
+ * tipo do campo. Cada leitor utiliza o getter específico do JDBC e já entrega o valor convertido para o tipo do
+ * campo, sem testes de tipo a cada linha lida.
+ * <br>
+ * Para campos primitivos ou encapsulados, a ausência de valor é verificada através de {@link ResultSet#wasNull()} e
+ * retornada como null.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public abstract class Leitor {
+
+    private static final Leitor OBJETO = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            return rs.getObject(ordinal);
+        }
+    };
+
+    private static final Leitor TEXTO = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            final String valor = rs.getString(ordinal);
+            return valor == null ? null : valor.trim();
+        }
+    };
+
+    private static final Leitor TEXTO_INTEGRAL = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            return rs.getString(ordinal);
+        }
+    };
+
+    private static final Leitor CLOB = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException, MiniException {
+            final Clob valor = rs.getClob(ordinal);
+            return valor == null ? null : Utils.Clobs.clobToString(valor, true);
+        }
+    };
+
+    private static final Leitor CLOB_INTEGRAL = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException, MiniException {
+            final Clob valor = rs.getClob(ordinal);
+            return valor == null ? null : Utils.Clobs.clobToString(valor, false);
+        }
+    };
+
+    private static final Leitor BLOB = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            final Blob valor = rs.getBlob(ordinal);
+            return valor == null ? null : valor.getBinaryStream();
+        }
+    };
+
+    private static final Leitor DECIMAL = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            return rs.getBigDecimal(ordinal);
+        }
+    };
+
+    private static final Leitor DATA = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            final Timestamp valor = rs.getTimestamp(ordinal);
+            if (valor == null) {
+                return null;
+            }
+            final Calendar cal = Calendar.getInstance();
+            cal.setTimeInMillis(valor.getTime());
+            return cal;
+        }
+    };
+
+    private static final Leitor INTEIRO = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            final int valor = rs.getInt(ordinal);
+            return rs.wasNull() ? null : Integer.valueOf(valor);
+        }
+    };
+
+    private static final Leitor LONGO = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            final long valor = rs.getLong(ordinal);
+            return rs.wasNull() ? null : Long.valueOf(valor);
+        }
+    };
+
+    private static final Leitor CURTO = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            final short valor = rs.getShort(ordinal);
+            return rs.wasNull() ? null : Short.valueOf(valor);
+        }
+    };
+
+    private static final Leitor BYTE = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            final byte valor = rs.getByte(ordinal);
+            return rs.wasNull() ? null : Byte.valueOf(valor);
+        }
+    };
+
+    private static final Leitor DUPLO = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            final double valor = rs.getDouble(ordinal);
+            return rs.wasNull() ? null : Double.valueOf(valor);
+        }
+    };
+
+    private static final Leitor FLUTUANTE = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            final float valor = rs.getFloat(ordinal);
+            return rs.wasNull() ? null : Float.valueOf(valor);
+        }
+    };
+
+    private static final Leitor LOGICO = new Leitor() {
+
+        @Override
+        public Object ler(final ResultSet rs, final int ordinal) throws SQLException {
+            final boolean valor = rs.getBoolean(ordinal);
+            return rs.wasNull() ? null : Boolean.valueOf(valor);
+        }
+    };
+
+    private Leitor() {
+    }
+
+    /**
+     * Resolve o leitor para o tipo do campo
+     *
+     * @param tipo Tipo do campo
+     * @param clob true caso a coluna seja um CLOB
+     * @param fk true caso a coluna seja uma FK, lida sem conversão para a busca da entidade referenciada
+     * @param trim true para remover os espaços das extremidades dos textos
+     * @return leitor da coluna
+     */
+    static Leitor criar(final Class<?> tipo, final boolean clob, final boolean fk, final boolean trim) {
+        if (fk) {
+            return OBJETO;
+        }
+        if (String.class == tipo) {
+            if (clob) {
+                return trim ? CLOB : CLOB_INTEGRAL;
+            }
+            return trim ? TEXTO : TEXTO_INTEGRAL;
+        }
+        if (BigDecimal.class == tipo) {
+            return DECIMAL;
+        }
+        if (Calendar.class.isAssignableFrom(tipo)) {
+            return DATA;
+        }
+        if (InputStream.class.isAssignableFrom(tipo)) {
+            return BLOB;
+        }
+        if (Integer.class == tipo || int.class == tipo) {
+            return INTEIRO;
+        }
+        if (Long.class == tipo || long.class == tipo) {
+            return LONGO;
+        }
+        if (Short.class == tipo || short.class == tipo) {
+            return CURTO;
+        }
+        if (Byte.class == tipo || byte.class == tipo) {
+            return BYTE;
+        }
+        if (Double.class == tipo || double.class == tipo) {
+            return DUPLO;
+        }
+        if (Float.class == tipo || float.class == tipo) {
+            return FLUTUANTE;
+        }
+        if (Boolean.class == tipo || boolean.class == tipo) {
+            return LOGICO;
+        }
+        return OBJETO;
+    }
+
+    /**
+     * Lê a coluna da linha atual do ResultSet, convertida para o tipo do campo
+     *
+     * @param rs ResultSet posicionado na linha
+     * @param ordinal Posição da coluna no ResultSet
+     * @return valor convertido ou null
+     * @throws SQLException
+     * @throws MiniException
+     */
+    public abstract Object ler(ResultSet rs, int ordinal) throws SQLException, MiniException;
+}
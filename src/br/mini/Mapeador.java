@@ -0,0 +1,127 @@
+package br.mini;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import br.mini.annotations.PseudoTabela;
+import br.mini.annotations.Tabela;
+import br.mini.exception.MiniException;
+
+/**
+ * Contrato dos mapeadores gerados em tempo de compilação pelo {@link br.mini.processador.MapeadorProcessor}. Para
+ * cada entidade anotada com {@link Tabela} ou {@link PseudoTabela} é gerada a classe <code>Entidade_Mapeador</code>
+ * no mesmo pacote da entidade. Quando presente, o mapeador é utilizado no lugar da reflexão para instanciar, ler as
+ * linhas do {@link ResultSet}, ler e escrever os campos e atribuí-los no {@link PreparedStatement}; caso contrário o
+ * framework utiliza os {@link Leitor} e {@link Acessor} padrões.
+ * <br>
+ * Os campos são identificados pelo seu índice em {@link #getCampos()}. A hidratação ({@link #popular}), a extração
+ * dos valores ({@link #extrair}), a leitura da linha ({@link #ler}) e a atribuição do INSERT
+ * ({@link #atribuirParametros}) são geradas em sequência, campo a campo, sem desvio por índice; os métodos por campo
+ * atendem aos acessos individuais e aos UPDATEs, cujas colunas variam.
+ *
+ * @param <T> Entidade mapeada
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public interface Mapeador<T> {
+
+    /**
+     * Sufixo do nome da classe gerada
+     */
+    String SUFIXO = "_Mapeador";
+
+    /**
+     * @return nomes dos campos mapeados, na ordem em que as colunas devem ser utilizadas
+     */
+    String[] getCampos();
+
+    /**
+     * @return nova instância da entidade
+     */
+    T instanciar();
+
+    /**
+     * Obtém o valor de um campo
+     *
+     * @param obj Entidade a ser lida
+     * @param campo Índice do campo
+     * @return valor do campo
+     */
+    Object obter(T obj, int campo);
+
+    /**
+     * Atribui o valor a um campo
+     *
+     * @param obj Entidade a ser populada
+     * @param campo Índice do campo
+     * @param valor Valor a ser atribuído
+     */
+    void atribuir(T obj, int campo, Object valor);
+
+    /**
+     * Popula a entidade com os valores de todos os campos, sem atribuir valores nulos a campos primitivos
+     *
+     * @param obj Entidade a ser populada
+     * @param valores Valores já convertidos, indexados pelo campo
+     */
+    void popular(T obj, Object[] valores);
+
+    /**
+     * Obtém os valores de todos os campos
+     *
+     * @param obj Entidade a ser lida
+     * @param valores Array a ser populado com os valores, indexado pelo campo
+     */
+    void extrair(T obj, Object[] valores);
+
+    /**
+     * Lê as colunas da linha atual do {@link ResultSet}, em sequência, com o getter específico para o tipo de cada
+     * campo, escolhido na geração do mapeador com a mesma conversão do {@link Leitor} do campo. As colunas de arquivo
+     * das {@link Tabela}, que não fazem parte dos selects, não são lidas.
+     *
+     * @param rs ResultSet posicionado na linha a ser lida
+     * @param ordinais Posições das colunas no ResultSet, indexadas pelo campo
+     * @param valores Valores convertidos, indexados pelo campo. Para FKs, o valor da coluna sem conversão
+     * @throws SQLException
+     * @throws MiniException
+     */
+    void ler(ResultSet rs, int[] ordinais, Object[] valores) throws SQLException, MiniException;
+
+    /**
+     * Atribui o valor no {@link PreparedStatement} com o setter específico para o tipo do campo
+     *
+     * @param ps PreparedStatement a ser atribuído
+     * @param indice Índice do parâmetro
+     * @param campo Índice do campo
+     * @param valor Valor a ser atribuído. Para FKs, a PK da entidade referenciada
+     * @throws SQLException
+     */
+    void atribuirParametro(PreparedStatement ps, int indice, int campo, Object valor) throws SQLException;
+
+    /**
+     * Atribui os parâmetros do {@link #getInsert()} com o setter específico para o tipo de cada campo. Os LOBs de
+     * carregamento tardio não são atribuídos, ficando a cargo do framework.
+     *
+     * @param ps PreparedStatement do INSERT
+     * @param valores Valores indexados pelo campo. Para FKs, a PK da entidade referenciada
+     * @throws SQLException
+     */
+    void atribuirParametros(PreparedStatement ps, Object[] valores) throws SQLException;
+
+    /**
+     * @return INSERT da entidade ou null caso não se aplique
+     */
+    String getInsert();
+
+    /**
+     * @return DELETE por PK da entidade ou null caso não se aplique
+     */
+    String getDelete();
+
+    /**
+     * @return select por PK da entidade ou null caso não se aplique
+     */
+    String getSelectComPk();
+}
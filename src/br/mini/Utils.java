@@ -1,20 +1,18 @@
 package br.mini;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.util.Arrays;
 import java.util.Calendar;
 
-import br.mini.annotations.Coluna;
 import br.mini.annotations.PseudoColuna;
-import br.mini.annotations.PseudoTabela;
-import br.mini.annotations.Tabela;
 import br.mini.database.Connector;
 import br.mini.exception.MiniException;
 import java.io.FileNotFoundException;
@@ -40,6 +38,13 @@ public final class Utils {
      */
     public static final class Clobs {
 
+        /**
+         * Tamanho, em caracteres, dos blocos de cópia de {@link #copiar(java.sql.Clob, Writer)}
+         */
+        public static final int TAMANHO_BUFFER = 8 * 1024;
+
+        private static final int TAMANHO_MAXIMO = Integer.MAX_VALUE - 8;
+
         /**
          * Transformação de CLOB para String
          *
@@ -48,19 +53,74 @@ public final class Utils {
          * @throws MiniException
          */
         public static String clobToString(final java.sql.Clob data) throws MiniException {
-            final StringBuilder sb = new StringBuilder();
-            try {
-                final Reader reader = data.getCharacterStream();
-                try (BufferedReader br = new BufferedReader(reader)) {
-                    int b;
-                    while (-1 != (b = br.read())) {
-                        sb.append((char) b);
+            return clobToString(data, false);
+        }
+
+        /**
+         * Transformação de CLOB para String. O conteúdo é lido em blocos para um buffer com o tamanho informado pelo
+         * CLOB e a String é criada diretamente a partir dele, já sem os espaços das extremidades quando solicitado,
+         * evitando cópias intermediárias em CLOBs grandes.
+         *
+         * @param data CLOB a ser transformado
+         * @param trim true para remover os espaços das extremidades, como em {@link String#trim()}
+         * @return String transformada
+         * @throws MiniException
+         */
+        public static String clobToString(final java.sql.Clob data, final boolean trim) throws MiniException {
+            try (Reader reader = data.getCharacterStream()) {
+                char[] buffer = new char[(int) Math.min(Math.max(data.length(), 1L), TAMANHO_MAXIMO)];
+                int total = 0;
+                int lidos;
+                while ((lidos = reader.read(buffer, total, buffer.length - total)) != -1) {
+                    total += lidos;
+                    if (total == buffer.length) {
+                        // O tamanho informado pelo driver pode ser menor que o conteúdo, como em CLOBs multibyte
+                        final int proximo = reader.read();
+                        if (proximo == -1) {
+                            break;
+                        }
+                        buffer = Arrays.copyOf(buffer, (int) Math.min(buffer.length * 2L, TAMANHO_MAXIMO));
+                        buffer[total++] = (char) proximo;
+                    }
+                }
+                int inicio = 0;
+                int fim = total;
+                if (trim) {
+                    while (inicio < fim && buffer[inicio] <= ' ') {
+                        inicio++;
+                    }
+                    while (fim > inicio && buffer[fim - 1] <= ' ') {
+                        fim--;
                     }
                 }
+                return new String(buffer, inicio, fim - inicio);
+            } catch (final SQLException | IOException ex) {
+                throw new MiniException(Constantes.FALHA_CAMPO_CLOB, ex);
+            }
+        }
+
+        /**
+         * Copia o conteúdo do CLOB para o destino em blocos de {@link #TAMANHO_BUFFER} caracteres, sem mantê-lo
+         * inteiro em memória. O destino não é fechado.
+         *
+         * @param data CLOB a ser copiado
+         * @param destino Writer de destino, de responsabilidade do chamador
+         * @return quantidade de caracteres copiados
+         * @throws MiniException
+         */
+        public static long copiar(final java.sql.Clob data, final Writer destino) throws MiniException {
+            try (Reader reader = data.getCharacterStream()) {
+                final char[] buffer = new char[TAMANHO_BUFFER];
+                long total = 0L;
+                int lidos;
+                while ((lidos = reader.read(buffer)) != -1) {
+                    destino.write(buffer, 0, lidos);
+                    total += lidos;
+                }
+                return total;
             } catch (final SQLException | IOException ex) {
                 throw new MiniException(Constantes.FALHA_CAMPO_CLOB, ex);
             }
-            return sb.toString();
         }
 
         /**
@@ -70,12 +130,7 @@ public final class Utils {
          * @return true caso exista campo CLOB, false se não
          */
         public static boolean existeClob(final Class<?> classe) {
-            for (Field campo : classe.getDeclaredFields()) {
-                if (campo.isAnnotationPresent(Coluna.class) && campo.getAnnotation(Coluna.class).isClob()) {
-                    return true;
-                }
-            }
-            return false;
+            return EntityMetadata.obter(classe).existeClob();
         }
     }
 
@@ -123,8 +178,7 @@ public final class Utils {
          * @return Nome da tabela primária
          */
         public static String obterNomeTabelaPrimaria(final Class<?> classe) {
-            return classe.isAnnotationPresent(Tabela.class) ? classe.getAnnotation(Tabela.class).nome() : (classe
-                    .isAnnotationPresent(PseudoTabela.class) ? classe.getAnnotation(PseudoTabela.class).alias() : "");
+            return EntityMetadata.obter(classe).getNomeTabela();
         }
 
         /**
@@ -135,13 +189,9 @@ public final class Utils {
          * @return Classe do campo de referência
          */
         public static Class<?> capturarCampoReferencia(String nomeCampo, Class<?> classe) {
-            for (Field campo : classe.getDeclaredFields()) {
-                if (campo.isAnnotationPresent(PseudoColuna.class)
-                        && campo.getAnnotation(PseudoColuna.class).campoReferencia().equalsIgnoreCase(nomeCampo)) {
-                    return campo.getAnnotation(PseudoColuna.class).referencia();
-                }
-            }
-            return null;
+            final EntityMetadata.PseudoColunaDescritor col = EntityMetadata.obter(classe).obterPorCampoReferencia(
+                    nomeCampo);
+            return col == null ? null : col.getReferencia();
         }
 
         /**
@@ -190,14 +240,8 @@ public final class Utils {
      * @return Field da PK
      */
     public static Field encontrarCampoPk(Class<?> classe) {
-        Field c = null;
-        for (Field campo : classe.getDeclaredFields()) {
-            if (campo.isAnnotationPresent(Coluna.class) && campo.getAnnotation(Coluna.class).isPk()) {
-                c = campo;
-                break;
-            }
-        }
-        return c;
+        final EntityMetadata.ColunaDescritor pk = EntityMetadata.obter(classe).getPk();
+        return pk == null ? null : pk.getCampo();
     }
 
     /**
@@ -207,8 +251,7 @@ public final class Utils {
      * @return Nome da PK
      */
     public static String capturaNomePk(Class<?> classe) {
-        final Field campo = encontrarCampoPk(classe);
-        return campo.getAnnotation(Coluna.class).nome();
+        return EntityMetadata.obter(classe).getPk().getNome();
     }
 
 }
@@ -54,6 +54,27 @@ public @interface Coluna {
      */
     boolean isClob() default false;
 
+    /**
+     * <b>Opcional</b> (default <b>false</b>)
+     * <br>
+     * <br>
+     * Atributo referente ao carregamento tardio de campos CLOB e BLOB. O campo deve ser do tipo
+     * {@link br.mini.operacional.Lob}, que mantém apenas a referência à linha e busca o conteúdo pela PK no primeiro
+     * acesso. Para CLOBs, também deve ser marcado {@link #isClob()}.
+     * @return booleano se o carregamento é tardio
+     */
+    boolean isLazy() default false;
+
+    /**
+     * <b>Opcional</b> (default <b>true</b>)
+     * <br>
+     * <br>
+     * Atributo referente à remoção dos espaços das extremidades dos campos texto e CLOB na leitura. Em CLOBs grandes,
+     * como documentos XML, pode ser desmarcado para que o conteúdo seja entregue exatamente como está no banco.
+     * @return booleano se o valor lido é aparado
+     */
+    boolean isTrim() default true;
+
     /**
      * <b>Opcional</b> (default <b>0</b>)
      * <br>
@@ -5,6 +5,8 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import br.mini.enums.ChaveEnum;
+
 /**
  * Anotação responsável pela descrição da tabela.
  * <br>
@@ -44,4 +46,60 @@ public @interface Tabela {
      */
     boolean cacheable() default false;
 
+    /**
+     * <b>Opcional</b> (default <b>1</b>)
+     * <br>
+     * <br>
+     * Atributo referente à quantidade de chaves reservadas de uma só vez na tabela KEY_GEN. Com valores maiores que 1
+     * as chaves são entregues em memória até o fim do bloco, ao custo de lacunas na sequência caso a aplicação seja
+     * encerrada antes de utilizá-lo por completo.
+     *
+     * @return quantidade de chaves reservadas por bloco
+     */
+    int blocoChaves() default 1;
+
+    /**
+     * <b>Opcional</b> (default <b>KEY_GEN</b>)
+     * <br>
+     * <br>
+     * Atributo referente à estratégia de geração da PK. O formato de prefixo com 7 dígitos é mantido para as
+     * estratégias KEY_GEN e SEQUENCIA em PKs do tipo String.
+     *
+     * @return estratégia de geração da PK
+     */
+    ChaveEnum chave() default ChaveEnum.KEY_GEN;
+
+    /**
+     * <b>Opcional</b> (default <b>""</b>)
+     * <br>
+     * <br>
+     * Atributo referente ao nome da sequence utilizada pela estratégia SEQUENCIA
+     *
+     * @return nome da sequence
+     */
+    String sequencia() default "";
+
+    /**
+     * <b>Opcional</b> (default <b>false</b>)
+     * <br>
+     * <br>
+     * Atributo referente ao rastreamento das alterações dos objetos carregados ou persistidos. Com o rastreamento, o
+     * UPDATE contém somente as colunas alteradas desde a carga e não é executado caso nenhuma tenha sido alterada.
+     *
+     * @return se as alterações dos objetos da tabela são rastreadas ou não
+     */
+    boolean rastrearAlteracoes() default false;
+
+    /**
+     * <b>Opcional</b> (default <b>false</b>)
+     * <br>
+     * <br>
+     * Atributo referente à escrita adiada, para tabelas de alto volume que toleram perdas, como auditoria. Com a
+     * escrita adiada, salvar e atualizar fora de uma transação apenas enfileiram o objeto, que é gravado em lotes em
+     * segundo plano.
+     *
+     * @return se a escrita da tabela é adiada ou não
+     */
+    boolean escritaAdiada() default false;
+
 }
@@ -3,6 +3,8 @@ package br.mini.criterio;
 import java.sql.PreparedStatement;
 
 import br.mini.Constantes.Sql;
+import br.mini.EntityMetadata;
+import br.mini.EntityMetadata.ColunaDescritor;
 import br.mini.Utils;
 import br.mini.annotations.PseudoColuna;
 import br.mini.annotations.PseudoTabela;
@@ -19,6 +21,8 @@ import br.mini.operacional.StringCreator;
  */
 public class Criterio extends CriterioBase {
 
+    private static final String WHERE = "WHERE ";
+
     /**
      * Consutrutor único da classe.
      */
@@ -81,6 +85,38 @@ public class Criterio extends CriterioBase {
         return strCriterio;
     }
 
+    /**
+     * Método responsável pela construção do critério de um DELETE ou UPDATE em lote em classes com a anotação
+     * {@link Tabela}. As linhas são selecionadas por um EXISTS correlacionado pelas PKs, com os mesmos JOINs e
+     * condições da consulta, de forma que o comando também seja válido quando o critério referencia outras tabelas.
+     *
+     * @param strComando DELETE ou UPDATE da tabela, sem alias, a ser concatenado
+     * @param classe Classe a ser utilizada na criação do comando
+     * @return Comando construído
+     */
+    public StringBuilder construirCriterioEmLote(final StringBuilder strComando, final Class<?> classe) {
+        final EntityMetadata meta = EntityMetadata.obter(classe);
+        final String alias = meta.getAliasTabela() + "1";
+        final StringBuilder strCriterio = new StringBuilder(strComando);
+        strCriterio.append(" WHERE EXISTS (SELECT 1 FROM " + meta.getNomeTabela() + Sql.ESPACO + alias);
+        strCriterio.append(construirJuncao());
+        final StringBuilder condicao = construirCondicao(classe);
+        if (condicao.length() > 0) {
+            // A condição já inicia com o WHERE, substituído para agrupá-la antes da correlação pelas PKs
+            strCriterio.append(" WHERE (" + condicao.substring(WHERE.length()) + ") AND ");
+        } else {
+            strCriterio.append(Sql.ESPACO + WHERE);
+        }
+        boolean primeiro = true;
+        for (ColunaDescritor pk : meta.getPks()) {
+            strCriterio.append(primeiro ? "" : " AND ");
+            strCriterio.append(alias + Sql.PONTO + pk.getNome());
+            strCriterio.append(" = " + meta.getNomeTabela() + Sql.PONTO + pk.getNome());
+            primeiro = false;
+        }
+        return strCriterio.append(Sql.FECHA_PARENT);
+    }
+
     /**
      * Método responsável pela criação dos joins. <br>
      * Percorre {@link CriterioBase#joinList} e a partir do mesmo cria os JOINs conforme SQL ANSI
@@ -103,7 +139,7 @@ public class Criterio extends CriterioBase {
                 classePrincipal = join.getClassePrincipal();
                 classeSecundaria = join.getClasseSecundaria();
                 nomeTabelaPrincipal = Utils.Criterios.obterNomeTabelaPrimaria(classePrincipal);
-                nomeTabelaSecundaria = classeSecundaria.getAnnotation(Tabela.class).nome();
+                nomeTabelaSecundaria = EntityMetadata.obter(classeSecundaria).getNomeTabela();
                 // ADICIONA O NOME DA TABELA SECUNDÁRIA E SEU ALIAS
                 aliasSecundaria = Utils.Strings.descapitalizaTabela(nomeTabelaSecundaria) + join.getIndiceSecundaria();
                 sb.append(Sql.ESPACO + nomeTabelaSecundaria + Sql.ESPACO + aliasSecundaria);
@@ -182,7 +218,7 @@ public class Criterio extends CriterioBase {
     void construirOrderUnion(Class<?> principal, StringBuilder sb) {
         sb.append(Sql.ESPACO);
         if (orderList != null) {
-            String aliasPrincipal = principal.getAnnotation(PseudoTabela.class).alias();
+            String aliasPrincipal = EntityMetadata.obter(principal).getNomeTabela();
             String campo = null;
             for (Ordenacao order : orderList) {
                 order.adicionarOrdenacao(sb, campo);
@@ -190,8 +226,7 @@ public class Criterio extends CriterioBase {
                 if (referencia == null) {
                     campo = aliasPrincipal + Sql.PONTO + order.getCampo();
                 } else {
-                    campo = Utils.Strings.descapitalizaTabela(referencia.getAnnotation(Tabela.class).nome())
-                            + Sql.PONTO + order.getCampo();
+                    campo = EntityMetadata.obter(referencia).getAliasTabela() + Sql.PONTO + order.getCampo();
                 }
                 sb.append(campo + Sql.ESPACO + order.getOrder());
             }
@@ -217,8 +252,20 @@ public class Criterio extends CriterioBase {
      * @throws MiniException
      */
     public void atribuirValoresPorCondicao(PreparedStatement ps) throws MiniException {
+        atribuirValoresPorCondicao(ps, 1);
+    }
+
+    /**
+     * Método responsável pela atribuição dos valores passados na {@link CriterioBase#parametrosList} para o
+     * {@link PreparedStatement} a partir da posição informada, para comandos com parâmetros anteriores ao critério
+     *
+     * @param ps {@link PreparedStatement} a ser atribuido
+     * @param indiceInicial Posição do primeiro parâmetro do critério
+     * @throws MiniException
+     */
+    public void atribuirValoresPorCondicao(PreparedStatement ps, int indiceInicial) throws MiniException {
         if (parametrosList != null) {
-            int indice = 1;
+            int indice = indiceInicial;
             for (Parametros parametro : parametrosList) {
                 if (!parametro.paramInOrNotIn() && !parametro.paramIsOrIsNot()) {
                     Utils.Criterios.atribuirPorCampo(ps, parametro.getValor(), indice++);
@@ -1,10 +1,9 @@
 package br.mini.criterio;
 
+import br.mini.EntityMetadata;
 import br.mini.Utils;
 import br.mini.Constantes.Sql;
-import br.mini.Utils.Strings;
 import br.mini.annotations.PseudoTabela;
-import br.mini.annotations.Tabela;
 
 /**
  * Classe abstrata que generaliza as possíveis utilizações dos dados de {@link #campo} através de suas especializações
@@ -99,9 +98,9 @@ public abstract class Tipos {
         final Class<?> referencia = Utils.Criterios.capturarCampoReferencia(getCampo(), principal);
         if (getJoinRef() == null) {
             if (referencia == null) {
-                campo = principal.getAnnotation(PseudoTabela.class).alias() + Sql.PONTO + getCampo();
+                campo = EntityMetadata.obter(principal).getNomeTabela() + Sql.PONTO + getCampo();
             } else {
-                campo = Utils.Strings.descapitalizaTabela(referencia.getAnnotation(Tabela.class).nome()) + "1"
+                campo = EntityMetadata.obter(referencia).getAliasTabela() + "1"
                         + Sql.PONTO + getCampo();
             }
         } else {
@@ -118,10 +117,10 @@ public abstract class Tipos {
      */
     String obterAlias(final Class<?> principal) {
         if (getJoinRef() == null) {
-            return Strings.descapitalizaTabela(principal.getAnnotation(Tabela.class).nome()) + "1";
+            return EntityMetadata.obter(principal).getAliasTabela() + "1";
         }
-        String nomeTabelaSecundaria = getJoinRef().getClasseSecundaria().getAnnotation(Tabela.class).nome();
-        return Utils.Strings.descapitalizaTabela(nomeTabelaSecundaria) + getJoinRef().getIndiceSecundaria();
+        return EntityMetadata.obter(getJoinRef().getClasseSecundaria()).getAliasTabela()
+                + getJoinRef().getIndiceSecundaria();
     }
 
 }
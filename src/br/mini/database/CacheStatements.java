@@ -0,0 +1,100 @@
+package br.mini.database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU dos PreparedStatements de uma conexão física do {@link PoolConexoes}, indexado pelo texto do SQL.
+ * <br>
+ * O statement é retirado do cache enquanto está em uso e devolvido no seu fechamento, de forma que dois usos
+ * simultâneos do mesmo SQL na mesma conexão, como nas buscas recursivas das FKs, nunca compartilham o statement
+ * físico. Ao exceder a capacidade, o statement usado há mais tempo é fechado.
+ * <br>
+ * Não é thread-safe: a conexão é utilizada por uma única thread por vez.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+final class CacheStatements {
+
+    private final int capacidade;
+    private final AtomicLong acertos;
+    private final AtomicLong faltas;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    /**
+     * @param capacidade Quantidade máxima de statements ociosos mantidos
+     * @param acertos Contador de acertos, compartilhado pelo pool
+     * @param faltas Contador de faltas, compartilhado pelo pool
+     */
+    CacheStatements(final int capacidade, final AtomicLong acertos, final AtomicLong faltas) {
+        this.capacidade = capacidade;
+        this.acertos = acertos;
+        this.faltas = faltas;
+        this.statements = new LinkedHashMap<>(capacidade * 4 / 3 + 1);
+    }
+
+    /**
+     * Retira o statement do SQL do cache
+     *
+     * @param sql
+     * @return statement ocioso ou null caso não esteja em cache
+     */
+    PreparedStatement retirar(final String sql) {
+        final PreparedStatement ps = statements.remove(sql);
+        if (ps != null) {
+            acertos.incrementAndGet();
+        } else {
+            faltas.incrementAndGet();
+        }
+        return ps;
+    }
+
+    /**
+     * Devolve o statement ao cache, fechando o usado há mais tempo caso a capacidade seja excedida
+     *
+     * @param sql
+     * @param ps
+     */
+    void devolver(final String sql, final PreparedStatement ps) {
+        final PreparedStatement anterior = statements.put(sql, ps);
+        if (anterior != null) {
+            fechar(anterior);
+        }
+        if (statements.size() > capacidade) {
+            final Iterator<PreparedStatement> iterador = statements.values().iterator();
+            final PreparedStatement antigo = iterador.next();
+            iterador.remove();
+            fechar(antigo);
+        }
+    }
+
+    /**
+     * @return quantidade de statements ociosos em cache
+     */
+    int getTamanho() {
+        return statements.size();
+    }
+
+    /**
+     * Fecha todos os statements em cache
+     */
+    void fechar() {
+        for (Map.Entry<String, PreparedStatement> entrada : statements.entrySet()) {
+            fechar(entrada.getValue());
+        }
+        statements.clear();
+    }
+
+    private static void fechar(final PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException ex) {
+            // a conexão será validada ou descartada pelo pool
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package br.mini.database;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+import br.mini.Constantes;
+
+/**
+ * Conexão emprestada pelo {@link PoolConexoes}. Cada empréstimo cria uma nova instância que delega para a conexão
+ * física; o {@link #close()} devolve a conexão ao pool e invalida esta instância, de forma que referências antigas
+ * não alcançam a conexão após o seu reaproveitamento.
+ * <br>
+ * O {@link #prepareStatement(String)} utiliza o {@link CacheStatements} da conexão física. Os statements ainda abertos
+ * no fechamento da conexão são devolvidos ao cache.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+final class ConexaoPool implements Connection {
+
+    private final PoolConexoes pool;
+    private volatile PoolConexoes.Entrada entrada;
+    private final List<StatementCacheado> abertos = new ArrayList<>();
+
+    ConexaoPool(final PoolConexoes pool, final PoolConexoes.Entrada entrada) {
+        this.pool = pool;
+        this.entrada = entrada;
+    }
+
+    /**
+     * @return conexão física ou SQLException caso a conexão já tenha sido devolvida
+     * @throws SQLException
+     */
+    private Connection fisica() throws SQLException {
+        final PoolConexoes.Entrada atual = entrada;
+        if (atual == null) {
+            throw new SQLException(Constantes.CONEXAO_DEVOLVIDA);
+        }
+        return atual.getConexao();
+    }
+
+    /**
+     * Obtém a conexão física marcando a existência de trabalho possivelmente não confirmado
+     */
+    private Connection emUso() throws SQLException {
+        final Connection conn = fisica();
+        entrada.setPendente(true);
+        return conn;
+    }
+
+    /**
+     * Remove o statement fechado dos statements abertos pela conexão
+     *
+     * @param statement
+     */
+    void liberar(final StatementCacheado statement) {
+        for (int indice = abertos.size() - 1; indice >= 0; indice--) {
+            if (abertos.get(indice) == statement) {
+                abertos.remove(indice);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        final PoolConexoes.Entrada atual = entrada;
+        if (atual != null) {
+            try {
+                while (!abertos.isEmpty()) {
+                    abertos.get(abertos.size() - 1).close();
+                }
+            } finally {
+                abertos.clear();
+                entrada = null;
+                pool.devolver(atual);
+            }
+        }
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        final PoolConexoes.Entrada atual = entrada;
+        return atual == null || atual.getConexao().isClosed();
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        fisica().commit();
+        entrada.setPendente(false);
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        fisica().rollback();
+        entrada.setPendente(false);
+    }
+
+    @Override
+    public void rollback(final Savepoint savepoint) throws SQLException {
+        fisica().rollback(savepoint);
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        return emUso().createStatement();
+    }
+
+    @Override
+    public Statement createStatement(final int resultSetType, final int resultSetConcurrency) throws SQLException {
+        return emUso().createStatement(resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public Statement createStatement(final int resultSetType, final int resultSetConcurrency,
+            final int resultSetHoldability) throws SQLException {
+        return emUso().createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(final String sql) throws SQLException {
+        final Connection conn = emUso();
+        final CacheStatements cache = entrada.getCache();
+        if (cache == null) {
+            return conn.prepareStatement(sql);
+        }
+        PreparedStatement ps = cache.retirar(sql);
+        if (ps == null) {
+            ps = conn.prepareStatement(sql);
+        }
+        final StatementCacheado statement = new StatementCacheado(this, cache, sql, ps);
+        abertos.add(statement);
+        return statement;
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(final String sql, final int resultSetType,
+            final int resultSetConcurrency) throws SQLException {
+        return emUso().prepareStatement(sql, resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(final String sql, final int resultSetType,
+            final int resultSetConcurrency, final int resultSetHoldability) throws SQLException {
+        return emUso().prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(final String sql, final int autoGeneratedKeys) throws SQLException {
+        return emUso().prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(final String sql, final int[] columnIndexes) throws SQLException {
+        return emUso().prepareStatement(sql, columnIndexes);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(final String sql, final String[] columnNames) throws SQLException {
+        return emUso().prepareStatement(sql, columnNames);
+    }
+
+    @Override
+    public CallableStatement prepareCall(final String sql) throws SQLException {
+        return emUso().prepareCall(sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(final String sql, final int resultSetType, final int resultSetConcurrency)
+            throws SQLException {
+        return emUso().prepareCall(sql, resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public CallableStatement prepareCall(final String sql, final int resultSetType, final int resultSetConcurrency,
+            final int resultSetHoldability) throws SQLException {
+        return emUso().prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public String nativeSQL(final String sql) throws SQLException {
+        return fisica().nativeSQL(sql);
+    }
+
+    @Override
+    public void setAutoCommit(final boolean autoCommit) throws SQLException {
+        fisica().setAutoCommit(autoCommit);
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        return fisica().getAutoCommit();
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        return fisica().getMetaData();
+    }
+
+    @Override
+    public void setReadOnly(final boolean readOnly) throws SQLException {
+        fisica().setReadOnly(readOnly);
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        return fisica().isReadOnly();
+    }
+
+    @Override
+    public void setCatalog(final String catalog) throws SQLException {
+        fisica().setCatalog(catalog);
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        return fisica().getCatalog();
+    }
+
+    @Override
+    public void setTransactionIsolation(final int level) throws SQLException {
+        fisica().setTransactionIsolation(level);
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        return fisica().getTransactionIsolation();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return fisica().getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        fisica().clearWarnings();
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        return fisica().getTypeMap();
+    }
+
+    @Override
+    public void setTypeMap(final Map<String, Class<?>> map) throws SQLException {
+        fisica().setTypeMap(map);
+    }
+
+    @Override
+    public void setHoldability(final int holdability) throws SQLException {
+        fisica().setHoldability(holdability);
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        return fisica().getHoldability();
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        return emUso().setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(final String name) throws SQLException {
+        return emUso().setSavepoint(name);
+    }
+
+    @Override
+    public void releaseSavepoint(final Savepoint savepoint) throws SQLException {
+        fisica().releaseSavepoint(savepoint);
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        return fisica().createClob();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        return fisica().createBlob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        return fisica().createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        return fisica().createSQLXML();
+    }
+
+    @Override
+    public boolean isValid(final int timeout) throws SQLException {
+        final PoolConexoes.Entrada atual = entrada;
+        return atual != null && atual.getConexao().isValid(timeout);
+    }
+
+    @Override
+    public void setClientInfo(final String name, final String value) throws SQLClientInfoException {
+        final PoolConexoes.Entrada atual = entrada;
+        if (atual == null) {
+            throw new SQLClientInfoException();
+        }
+        atual.getConexao().setClientInfo(name, value);
+    }
+
+    @Override
+    public void setClientInfo(final Properties properties) throws SQLClientInfoException {
+        final PoolConexoes.Entrada atual = entrada;
+        if (atual == null) {
+            throw new SQLClientInfoException();
+        }
+        atual.getConexao().setClientInfo(properties);
+    }
+
+    @Override
+    public String getClientInfo(final String name) throws SQLException {
+        return fisica().getClientInfo(name);
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+        return fisica().getClientInfo();
+    }
+
+    @Override
+    public Array createArrayOf(final String typeName, final Object[] elements) throws SQLException {
+        return fisica().createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public Struct createStruct(final String typeName, final Object[] attributes) throws SQLException {
+        return fisica().createStruct(typeName, attributes);
+    }
+
+    @Override
+    public void setSchema(final String schema) throws SQLException {
+        fisica().setSchema(schema);
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        return fisica().getSchema();
+    }
+
+    @Override
+    public void abort(final Executor executor) throws SQLException {
+        final PoolConexoes.Entrada atual = entrada;
+        if (atual != null) {
+            abertos.clear();
+            entrada = null;
+            pool.descartar(atual, executor);
+        }
+    }
+
+    @Override
+    public void setNetworkTimeout(final Executor executor, final int milliseconds) throws SQLException {
+        fisica().setNetworkTimeout(executor, milliseconds);
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        return fisica().getNetworkTimeout();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return fisica().unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || fisica().isWrapperFor(iface);
+    }
+}
@@ -1,26 +1,33 @@
 package br.mini.database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import javax.naming.Context;
 import javax.naming.InitialContext;
+import javax.naming.NamingException;
 import javax.sql.DataSource;
 
 import br.mini.Constantes;
+import br.mini.enums.HidratacaoEnum;
+import br.mini.enums.RoteamentoEnum;
 import br.mini.exception.MiniException;
-import java.util.logging.Level;
-import java.util.logging.Logger;
-import javax.naming.NamingException;
 
 /**
  * Classe responsável por obter a conexão para o pool
+ * <br>
+ * Opcionalmente, as leituras podem ser distribuídas entre réplicas de leitura, declaradas no mini.cfg.xml através
+ * das propriedades <code>replicas</code> (nomes JNDI separados por vírgula) ou <code>replicas.url</code> (URLs JDBC
+ * separadas por vírgula, com as mesmas credenciais e configurações <code>pool.*</code> do primário), além de
+ * <code>replicas.roteamento</code> e <code>replicas.leituraPropria</code>. As escritas e a geração de chaves utilizam
+ * sempre o DataSource primário.
  *
  * @author figueiredo-lucas <br>
  *
@@ -30,12 +37,56 @@ public class Connector {
     public static String owner = "";
     public static boolean gravaLog = false;
     public static boolean showSql = false;
+    public static HidratacaoEnum hidratacao = HidratacaoEnum.REFLEXAO;
+    /**
+     * Quando true, as leituras de uma sessão que já utilizou o primário, ou que está em uma transação, são feitas no
+     * primário, enxergando as próprias escritas ainda não replicadas
+     */
+    public static boolean leituraPropria = true;
 
-    private static DataSource DATA_SOURCE;
+    private static volatile boolean propriedadesCarregadas;
+    private static volatile DataSource DATA_SOURCE;
+    private static volatile Replica[] REPLICAS = new Replica[0];
+    private static volatile RoteamentoEnum ROTEAMENTO = RoteamentoEnum.RODIZIO;
+    private static final AtomicInteger RODIZIO = new AtomicInteger();
 
-    private Connector() throws MiniException {
+    private Connector() {
+    }
+
+    /**
+     * Configura o framework a partir do mini.cfg.xml. A conexão é obtida do DataSource JNDI informado na propriedade
+     * <code>dataSource</code> ou, na sua ausência, do {@link PoolConexoes} embutido, criado a partir das propriedades
+     * <code>url</code>, <code>driver</code>, <code>usuario</code>, <code>senha</code> e <code>pool.*</code>.
+     *
+     * @throws MiniException
+     */
+    public static synchronized void configurar() throws MiniException {
+        if (DATA_SOURCE != null) {
+            return;
+        }
         Map<String, String> mapaConn = XMLParser.getMapParams();
 
+        aplicarPropriedades(mapaConn);
+        if (mapaConn.containsKey("dataSource")) {
+            try {
+                DATA_SOURCE = (DataSource) new InitialContext().lookup(mapaConn.get("dataSource"));
+            } catch (NamingException ex) {
+                throw new MiniException(Constantes.FALHA_DS, ex);
+            }
+        } else if (mapaConn.containsKey("url")) {
+            DATA_SOURCE = PoolConexoes.criar(mapaConn);
+        } else {
+            throw new MiniException(Constantes.FALHA_DS);
+        }
+        configurarReplicas(mapaConn);
+    }
+
+    /**
+     * Aplica as propriedades gerais do framework declaradas no mini.cfg.xml
+     *
+     * @param mapaConn
+     */
+    private static void aplicarPropriedades(Map<String, String> mapaConn) {
         if (mapaConn.containsKey("owner")) {
             owner = mapaConn.get("owner");
         }
@@ -45,34 +96,157 @@ public class Connector {
         if (mapaConn.containsKey("showSql")) {
             showSql = Boolean.parseBoolean(mapaConn.get("showSql"));
         }
-        try {
-            DATA_SOURCE = (DataSource) new InitialContext().lookup(mapaConn.get("dataSource"));
-        } catch (NamingException ex) {
-            throw new MiniException(Constantes.FALHA_DS, ex);
+        if (mapaConn.containsKey("hidratacao")) {
+            hidratacao = HidratacaoEnum.valueOf(mapaConn.get("hidratacao").trim().toUpperCase(Locale.ROOT));
+        }
+        propriedadesCarregadas = true;
+    }
+
+    /**
+     * Obtém a forma de hidratação das entidades. Como os metadados podem ser gerados antes da configuração do
+     * DataSource, as propriedades gerais do mini.cfg.xml são carregadas no primeiro acesso, independentemente do
+     * DataSource. Na ausência do xml, é mantida a hidratação atribuída programaticamente. Um xml inválido é
+     * reportado pelo {@link #configurar()}.
+     *
+     * @return hidratação configurada
+     */
+    public static HidratacaoEnum getHidratacao() {
+        if (!propriedadesCarregadas) {
+            synchronized (Connector.class) {
+                if (!propriedadesCarregadas) {
+                    try {
+                        if (XMLParser.existe()) {
+                            aplicarPropriedades(XMLParser.getMapParams());
+                        }
+                    } catch (MiniException | IllegalArgumentException ex) {
+                        // mantém o valor atual, a falha é lançada na configuração do DataSource
+                    }
+                    propriedadesCarregadas = true;
+                }
+            }
+        }
+        return hidratacao;
+    }
+
+    /**
+     * Configura as réplicas de leitura declaradas no mini.cfg.xml
+     *
+     * @param mapaConn
+     * @throws MiniException
+     */
+    private static void configurarReplicas(Map<String, String> mapaConn) throws MiniException {
+        if (mapaConn.containsKey("replicas.roteamento")) {
+            ROTEAMENTO = RoteamentoEnum.valueOf(mapaConn.get("replicas.roteamento").trim().toUpperCase(Locale.ROOT));
+        }
+        if (mapaConn.containsKey("replicas.leituraPropria")) {
+            leituraPropria = Boolean.parseBoolean(mapaConn.get("replicas.leituraPropria").trim());
+        }
+        final List<DataSource> replicas = new ArrayList<>();
+        if (mapaConn.containsKey("replicas")) {
+            for (String nome : mapaConn.get("replicas").split(",")) {
+                try {
+                    replicas.add((DataSource) new InitialContext().lookup(nome.trim()));
+                } catch (NamingException ex) {
+                    throw new MiniException(Constantes.FALHA_DS, ex);
+                }
+            }
+        }
+        if (mapaConn.containsKey("replicas.url")) {
+            for (String url : mapaConn.get("replicas.url").split(",")) {
+                final Map<String, String> mapaReplica = new HashMap<>(mapaConn);
+                mapaReplica.put("url", url.trim());
+                replicas.add(PoolConexoes.criar(mapaReplica));
+            }
+        }
+        configurarReplicas(ROTEAMENTO, replicas.toArray(new DataSource[replicas.size()]));
+    }
+
+    /**
+     * Configura programaticamente as réplicas de leitura. As réplicas do pool embutido anteriormente configuradas são
+     * fechadas.
+     *
+     * @param roteamento Forma de distribuição das leituras entre as réplicas
+     * @param replicas DataSources das réplicas. Nenhuma para que as leituras utilizem o primário.
+     */
+    public static synchronized void configurarReplicas(RoteamentoEnum roteamento, DataSource... replicas) {
+        final Replica[] anteriores = REPLICAS;
+        final Replica[] novas = new Replica[replicas.length];
+        for (int i = 0; i < replicas.length; i++) {
+            novas[i] = new Replica(replicas[i]);
+        }
+        ROTEAMENTO = roteamento;
+        REPLICAS = novas;
+        for (Replica anterior : anteriores) {
+            if (anterior.dataSource instanceof PoolConexoes) {
+                ((PoolConexoes) anterior.dataSource).fechar();
+            }
+        }
+    }
+
+    /**
+     * Seleciona a réplica para uma leitura, conforme o roteamento configurado
+     *
+     * @return réplica selecionada ou null caso não haja réplicas configuradas
+     * @throws MiniException
+     */
+    public static Replica selecionarReplica() throws MiniException {
+        if (DATA_SOURCE == null) {
+            configurar();
+        }
+        final Replica[] replicas = REPLICAS;
+        if (replicas.length == 0) {
+            return null;
+        }
+        final int inicio = (RODIZIO.getAndIncrement() & Integer.MAX_VALUE) % replicas.length;
+        if (ROTEAMENTO == RoteamentoEnum.RODIZIO) {
+            return replicas[inicio];
         }
-            
+        Replica selecionada = replicas[inicio];
+        for (int i = 1; i < replicas.length; i++) {
+            final Replica replica = replicas[(inicio + i) % replicas.length];
+            if (replica.emUso.get() < selecionada.emUso.get()) {
+                selecionada = replica;
+            }
+        }
+        return selecionada;
     }
 
     /**
-     * Método responsável por obter a conexão do pool ou abrir uma nova conexão através de uma url de banco.
+     * Configura programaticamente o DataSource das conexões, como um {@link PoolConexoes}, dispensando o mini.cfg.xml.
+     * O pool embutido anteriormente configurado é fechado.
      *
-     * Há a funcionalidade de tentativas. Caso o banco esteja instável, antes de retornar um erro de conexão falha, é
-     * tentado recuperar três vezes a mesma.
+     * @param dataSource
+     */
+    public static synchronized void configurar(DataSource dataSource) {
+        final DataSource anterior = DATA_SOURCE;
+        DATA_SOURCE = dataSource;
+        if (anterior instanceof PoolConexoes && anterior != dataSource) {
+            ((PoolConexoes) anterior).fechar();
+        }
+    }
+
+    /**
+     * Método responsável por obter a conexão do DataSource configurado, configurando-o no primeiro uso.
      *
-     * @param tentativa
      * @return nova conexão
      * @throws MiniException
      */
     private static Connection conectar() throws MiniException {
+        DataSource dataSource = DATA_SOURCE;
+        if (dataSource == null) {
+            configurar();
+            dataSource = DATA_SOURCE;
+        }
         try {
-            return DATA_SOURCE.getConnection();
+            return dataSource.getConnection();
         } catch (Exception ex) {
             throw new MiniException(Constantes.FALHA_CONEXAO, ex);
         }
     }
 
     /**
-     * Método responsável por executar uma consulta com parâmetros.
+     * Método responsável por executar uma consulta com parâmetros. O statement é fechado junto com o ResultSet
+     * retornado ou, nas conexões do {@link PoolConexoes}, devolvido ao cache de statements no fechamento da conexão.
      *
      * @param query
      * @param parametros
@@ -83,6 +257,7 @@ public class Connector {
     public static ResultSet executar(String query, List<Object> parametros,
             Connection conn) throws SQLException {
         PreparedStatement st = conn.prepareStatement(query);
+        st.closeOnCompletion();
         for (int i = 0; i < parametros.size(); i++) {
             st.setObject(i + 1, parametros.get(i));
         }
@@ -112,5 +287,59 @@ public class Connector {
     public static Connection getConnection() throws MiniException {
         return conectar();
     }
-    
+
+    /**
+     * Réplica de leitura, com a contagem das conexões em uso utilizada pelo roteamento
+     * {@link RoteamentoEnum#MENOS_EM_USO}
+     *
+     * @author figueiredo-lucas
+     *
+     */
+    public static final class Replica {
+
+        private final DataSource dataSource;
+        private final AtomicInteger emUso = new AtomicInteger();
+
+        private Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        /**
+         * Obtém uma conexão da réplica, que deve ser liberada através de {@link #liberar(Connection)}
+         *
+         * @return nova conexão
+         * @throws MiniException
+         */
+        public Connection conectar() throws MiniException {
+            try {
+                final Connection conn = dataSource.getConnection();
+                emUso.incrementAndGet();
+                return conn;
+            } catch (Exception ex) {
+                throw new MiniException(Constantes.FALHA_CONEXAO, ex);
+            }
+        }
+
+        /**
+         * Fecha a conexão obtida da réplica
+         *
+         * @param conn
+         * @throws MiniException
+         */
+        public void liberar(Connection conn) throws MiniException {
+            emUso.decrementAndGet();
+            try {
+                conn.close();
+            } catch (SQLException ex) {
+                throw new MiniException(Constantes.FALHA_FECHAR_CONEXAO, ex);
+            }
+        }
+
+        /**
+         * @return quantidade de conexões da réplica em uso
+         */
+        public int getEmUso() {
+            return emUso.get();
+        }
+    }
 }
@@ -0,0 +1,675 @@
+package br.mini.database;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import br.mini.Constantes;
+import br.mini.exception.MiniException;
+
+/**
+ * Pool de conexões embutido, utilizado quando não há um {@link DataSource} disponível via JNDI, como em processos
+ * batch executados em JVMs sem servidor de aplicação.
+ * <br>
+ * O empréstimo e a devolução não utilizam locks: as conexões ociosas ficam em uma fila concorrente, utilizada como
+ * pilha para privilegiar as conexões usadas mais recentemente, e o limite de conexões é controlado por um semáforo.
+ * A validação somente é feita no empréstimo de conexões ociosas há mais tempo que
+ * {@link Configuracao#validacaoOcioso(long)}; as demais são verificadas pela manutenção em segundo plano, que também
+ * descarta as conexões que excederam o tempo de vida e mantém o mínimo de conexões abertas.
+ * <br>
+ * Cada conexão física mantém um cache LRU dos seus PreparedStatements, de forma que os SQLs repetidos das entidades
+ * não são preparados novamente a cada operação.
+ *
+ * <pre>
+ * PoolConexoes pool = new PoolConexoes(new PoolConexoes.Configuracao()
+ *         .url("jdbc:oracle:thin:@servidor:1521:base").usuario("app").senha("***")
+ *         .minimo(2).maximo(10));
+ * Connector.configurar(pool);
+ * </pre>
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public final class PoolConexoes implements DataSource {
+
+    private static final Logger LOGGER = Logger.getLogger(PoolConexoes.class.getName());
+
+    private static final int TIMEOUT_VALIDACAO = 5;
+
+    private final Configuracao configuracao;
+    private final Properties propriedades = new Properties();
+
+    private final ConcurrentLinkedDeque<Entrada> ociosas = new ConcurrentLinkedDeque<>();
+    private final Semaphore vagas;
+    private final AtomicInteger abertas = new AtomicInteger();
+    private final ScheduledExecutorService manutencao;
+    private volatile boolean fechado;
+
+    private final AtomicLong emprestimos = new AtomicLong();
+    private final AtomicLong tempoTotalEspera = new AtomicLong();
+    private final AtomicLong tempoMaximoEspera = new AtomicLong();
+    private final AtomicLong esgotamentos = new AtomicLong();
+    private final AtomicLong criadas = new AtomicLong();
+    private final AtomicLong descartadas = new AtomicLong();
+    private final AtomicLong acertosStatements = new AtomicLong();
+    private final AtomicLong faltasStatements = new AtomicLong();
+
+    private PrintWriter logWriter;
+
+    /**
+     * Cria o pool, abrindo as conexões mínimas
+     *
+     * @param configuracao
+     * @throws MiniException caso a configuração seja inválida ou as conexões mínimas não possam ser abertas
+     */
+    public PoolConexoes(final Configuracao configuracao) throws MiniException {
+        if (configuracao.url == null || configuracao.maximo < 1 || configuracao.minimo < 0
+                || configuracao.minimo > configuracao.maximo) {
+            throw new MiniException(Constantes.POOL_INVALIDO);
+        }
+        this.configuracao = configuracao.copia();
+        if (configuracao.driver != null) {
+            try {
+                Class.forName(configuracao.driver);
+            } catch (ClassNotFoundException ex) {
+                throw new MiniException(Constantes.POOL_INVALIDO, ex);
+            }
+        }
+        if (configuracao.usuario != null) {
+            propriedades.setProperty("user", configuracao.usuario);
+        }
+        if (configuracao.senha != null) {
+            propriedades.setProperty("password", configuracao.senha);
+        }
+        vagas = new Semaphore(configuracao.maximo);
+        try {
+            completarMinimo();
+        } catch (SQLException ex) {
+            fechar();
+            throw new MiniException(Constantes.FALHA_CONEXAO, ex);
+        }
+        manutencao = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable tarefa) {
+                final Thread thread = new Thread(tarefa, "mini-pool-manutencao");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        manutencao.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                manter();
+            }
+        }, configuracao.intervaloManutencao, configuracao.intervaloManutencao, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cria o pool a partir das propriedades do mini.cfg.xml
+     *
+     * @param parametros Propriedades lidas do XML
+     * @return pool criado
+     * @throws MiniException
+     */
+    static PoolConexoes criar(final Map<String, String> parametros) throws MiniException {
+        final Configuracao config = new Configuracao().driver(parametros.get("driver")).url(parametros.get("url"))
+                .usuario(parametros.get("usuario")).senha(parametros.get("senha"));
+        try {
+            if (parametros.containsKey("pool.minimo")) {
+                config.minimo(Integer.parseInt(parametros.get("pool.minimo").trim()));
+            }
+            if (parametros.containsKey("pool.maximo")) {
+                config.maximo(Integer.parseInt(parametros.get("pool.maximo").trim()));
+            }
+            if (parametros.containsKey("pool.tempoEspera")) {
+                config.tempoEspera(Long.parseLong(parametros.get("pool.tempoEspera").trim()));
+            }
+            if (parametros.containsKey("pool.tempoVida")) {
+                config.tempoVida(Long.parseLong(parametros.get("pool.tempoVida").trim()));
+            }
+            if (parametros.containsKey("pool.validacaoOcioso")) {
+                config.validacaoOcioso(Long.parseLong(parametros.get("pool.validacaoOcioso").trim()));
+            }
+            if (parametros.containsKey("pool.intervaloManutencao")) {
+                config.intervaloManutencao(Long.parseLong(parametros.get("pool.intervaloManutencao").trim()));
+            }
+            if (parametros.containsKey("pool.cacheStatements")) {
+                config.cacheStatements(Integer.parseInt(parametros.get("pool.cacheStatements").trim()));
+            }
+            if (parametros.containsKey("pool.autoCommit")) {
+                config.autoCommit(Boolean.parseBoolean(parametros.get("pool.autoCommit").trim()));
+            }
+        } catch (NumberFormatException ex) {
+            throw new MiniException(Constantes.POOL_INVALIDO, ex);
+        }
+        return new PoolConexoes(config.consultaValidacao(parametros.get("pool.consultaValidacao")));
+    }
+
+    /**
+     * Empresta uma conexão, aguardando até {@link Configuracao#tempoEspera(long)} caso todas estejam em uso
+     *
+     * @return conexão emprestada, devolvida ao pool no {@link Connection#close()}
+     * @throws SQLException caso o pool esteja fechado ou esgotado, ou a conexão não possa ser aberta
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (fechado) {
+            throw new SQLException(Constantes.POOL_FECHADO);
+        }
+        final long inicio = System.nanoTime();
+        if (!vagas.tryAcquire()) {
+            try {
+                if (!vagas.tryAcquire(configuracao.tempoEspera, TimeUnit.MILLISECONDS)) {
+                    esgotamentos.incrementAndGet();
+                    throw new SQLException(Constantes.POOL_ESGOTADO + configuracao.tempoEspera + "ms");
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException(Constantes.POOL_ESGOTADO + configuracao.tempoEspera + "ms", ex);
+            }
+        }
+        registrarEspera(System.nanoTime() - inicio);
+        try {
+            return new ConexaoPool(this, obterEntrada());
+        } catch (SQLException | RuntimeException ex) {
+            vagas.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Obtém a conexão ociosa mais recente ainda válida ou abre uma nova
+     */
+    private Entrada obterEntrada() throws SQLException {
+        Entrada entrada;
+        while ((entrada = ociosas.pollFirst()) != null) {
+            final long agora = System.currentTimeMillis();
+            if (entrada.isExpirada(agora, configuracao.tempoVida)) {
+                fecharEntrada(entrada);
+            } else if (agora - entrada.ultimoUso > configuracao.validacaoOcioso && !validar(entrada)) {
+                fecharEntrada(entrada);
+            } else {
+                return entrada;
+            }
+        }
+        return abrir();
+    }
+
+    /**
+     * Devolve a conexão emprestada, desfazendo o que não tenha sido confirmado
+     *
+     * @param entrada
+     */
+    void devolver(final Entrada entrada) {
+        try {
+            final Connection conn = entrada.conexao;
+            final boolean autoCommit = conn.getAutoCommit();
+            if (entrada.pendente && !autoCommit) {
+                conn.rollback();
+            }
+            if (autoCommit != configuracao.autoCommit) {
+                conn.setAutoCommit(configuracao.autoCommit);
+            }
+            entrada.pendente = false;
+            entrada.ultimoUso = System.currentTimeMillis();
+            if (fechado || abertas.get() > configuracao.maximo
+                    || entrada.isExpirada(entrada.ultimoUso, configuracao.tempoVida)) {
+                fecharEntrada(entrada);
+            } else {
+                ociosas.offerFirst(entrada);
+            }
+        } catch (SQLException ex) {
+            fecharEntrada(entrada);
+        } finally {
+            vagas.release();
+        }
+    }
+
+    /**
+     * Descarta a conexão emprestada sem devolvê-la ao pool
+     *
+     * @param entrada
+     * @param executor Executor do fechamento ou null para fechar na thread corrente
+     */
+    void descartar(final Entrada entrada, final Executor executor) {
+        try {
+            if (executor == null) {
+                fecharEntrada(entrada);
+            } else {
+                executor.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        fecharEntrada(entrada);
+                    }
+                });
+            }
+        } finally {
+            vagas.release();
+        }
+    }
+
+    private Entrada abrir() throws SQLException {
+        final Connection conn = DriverManager.getConnection(configuracao.url, propriedades);
+        try {
+            conn.setAutoCommit(configuracao.autoCommit);
+        } catch (SQLException ex) {
+            conn.close();
+            throw ex;
+        }
+        abertas.incrementAndGet();
+        criadas.incrementAndGet();
+        return new Entrada(conn, configuracao.cacheStatements > 0
+                ? new CacheStatements(configuracao.cacheStatements, acertosStatements, faltasStatements) : null);
+    }
+
+    private void fecharEntrada(final Entrada entrada) {
+        abertas.decrementAndGet();
+        descartadas.incrementAndGet();
+        if (entrada.cache != null) {
+            entrada.cache.fechar();
+        }
+        try {
+            entrada.conexao.close();
+        } catch (SQLException ex) {
+            LOGGER.log(Level.FINE, Constantes.FALHA_FECHAR_CONEXAO, ex);
+        }
+    }
+
+    private boolean validar(final Entrada entrada) {
+        try {
+            if (configuracao.consultaValidacao == null) {
+                return entrada.conexao.isValid(TIMEOUT_VALIDACAO);
+            }
+            try (Statement st = entrada.conexao.createStatement()) {
+                st.execute(configuracao.consultaValidacao);
+            }
+            return true;
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    private void completarMinimo() throws SQLException {
+        while (!fechado && abertas.get() < configuracao.minimo) {
+            ociosas.offerLast(abrir());
+        }
+    }
+
+    /**
+     * Manutenção em segundo plano: descarta as conexões ociosas expiradas ou inválidas e completa o mínimo. A conexão
+     * é retirada da fila antes da validação, para que não seja emprestada enquanto a consulta de validação executa.
+     */
+    private void manter() {
+        final long agora = System.currentTimeMillis();
+        final Iterator<Entrada> iterador = ociosas.iterator();
+        while (iterador.hasNext()) {
+            final Entrada entrada = iterador.next();
+            final boolean expirada = entrada.isExpirada(agora, configuracao.tempoVida);
+            if (!expirada && agora - entrada.ultimoUso <= configuracao.validacaoOcioso
+                    || !ociosas.removeFirstOccurrence(entrada)) {
+                // em uso recente ou emprestada concorrentemente
+                continue;
+            }
+            if (expirada || fechado || !validar(entrada)) {
+                fecharEntrada(entrada);
+            } else {
+                entrada.ultimoUso = System.currentTimeMillis();
+                ociosas.offerLast(entrada);
+            }
+        }
+        try {
+            completarMinimo();
+        } catch (SQLException ex) {
+            LOGGER.log(Level.WARNING, Constantes.FALHA_CONEXAO, ex);
+        }
+    }
+
+    private void registrarEspera(final long espera) {
+        emprestimos.incrementAndGet();
+        tempoTotalEspera.addAndGet(espera);
+        long maximo = tempoMaximoEspera.get();
+        while (espera > maximo && !tempoMaximoEspera.compareAndSet(maximo, espera)) {
+            maximo = tempoMaximoEspera.get();
+        }
+    }
+
+    /**
+     * Fecha o pool e as conexões ociosas. As conexões emprestadas são fechadas na devolução.
+     */
+    public void fechar() {
+        fechado = true;
+        if (manutencao != null) {
+            manutencao.shutdownNow();
+        }
+        Entrada entrada;
+        while ((entrada = ociosas.pollFirst()) != null) {
+            fecharEntrada(entrada);
+        }
+    }
+
+    /**
+     * @return true caso o pool tenha sido fechado
+     */
+    public boolean isFechado() {
+        return fechado;
+    }
+
+    /**
+     * @return quantidade de empréstimos realizados
+     */
+    public long getEmprestimos() {
+        return emprestimos.get();
+    }
+
+    /**
+     * @return tempo médio de espera por uma conexão, em nanossegundos
+     */
+    public long getTempoMedioEspera() {
+        final long total = emprestimos.get();
+        return total == 0 ? 0 : tempoTotalEspera.get() / total;
+    }
+
+    /**
+     * @return maior tempo de espera por uma conexão, em nanossegundos
+     */
+    public long getTempoMaximoEspera() {
+        return tempoMaximoEspera.get();
+    }
+
+    /**
+     * @return quantidade de empréstimos recusados por falta de conexão no tempo de espera
+     */
+    public long getEsgotamentos() {
+        return esgotamentos.get();
+    }
+
+    /**
+     * @return quantidade de conexões emprestadas no momento
+     */
+    public int getAtivas() {
+        return configuracao.maximo - vagas.availablePermits();
+    }
+
+    /**
+     * @return quantidade de conexões ociosas no momento
+     */
+    public int getOciosas() {
+        return ociosas.size();
+    }
+
+    /**
+     * @return quantidade de conexões físicas abertas desde a criação do pool
+     */
+    public long getCriadas() {
+        return criadas.get();
+    }
+
+    /**
+     * @return quantidade de conexões físicas fechadas desde a criação do pool
+     */
+    public long getDescartadas() {
+        return descartadas.get();
+    }
+
+    /**
+     * @return quantidade de PreparedStatements reaproveitados do cache das conexões
+     */
+    public long getAcertosStatements() {
+        return acertosStatements.get();
+    }
+
+    /**
+     * @return quantidade de PreparedStatements preparados por não estarem no cache das conexões
+     */
+    public long getFaltasStatements() {
+        return faltasStatements.get();
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return LOGGER;
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException(iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(this);
+    }
+
+    /**
+     * Conexão física mantida pelo pool
+     */
+    static final class Entrada {
+
+        private final Connection conexao;
+        private final CacheStatements cache;
+        private final long criacao;
+        private volatile long ultimoUso;
+        /**
+         * Indica que a conexão foi utilizada desde a última confirmação, devendo ser desfeita na devolução
+         */
+        private volatile boolean pendente;
+
+        Entrada(final Connection conexao, final CacheStatements cache) {
+            this.conexao = conexao;
+            this.cache = cache;
+            this.criacao = System.currentTimeMillis();
+            this.ultimoUso = criacao;
+        }
+
+        Connection getConexao() {
+            return conexao;
+        }
+
+        /**
+         * @return cache de statements da conexão ou null caso desabilitado
+         */
+        CacheStatements getCache() {
+            return cache;
+        }
+
+        void setPendente(final boolean pendente) {
+            this.pendente = pendente;
+        }
+
+        boolean isExpirada(final long agora, final long tempoVida) {
+            return tempoVida > 0 && agora - criacao > tempoVida;
+        }
+    }
+
+    /**
+     * Configuração do pool. Os tempos são informados em milissegundos.
+     *
+     * @author figueiredo-lucas
+     *
+     */
+    public static final class Configuracao {
+
+        private String driver;
+        private String url;
+        private String usuario;
+        private String senha;
+        private int minimo = 1;
+        private int maximo = 10;
+        private long tempoEspera = 30000L;
+        private long tempoVida = 1800000L;
+        private long validacaoOcioso = 30000L;
+        private long intervaloManutencao = 30000L;
+        private String consultaValidacao;
+        private int cacheStatements = 64;
+        private boolean autoCommit;
+
+        /**
+         * @param driver Classe do driver JDBC, necessária somente para drivers anteriores ao JDBC 4
+         */
+        public Configuracao driver(final String driver) {
+            this.driver = driver;
+            return this;
+        }
+
+        public Configuracao url(final String url) {
+            this.url = url;
+            return this;
+        }
+
+        public Configuracao usuario(final String usuario) {
+            this.usuario = usuario;
+            return this;
+        }
+
+        public Configuracao senha(final String senha) {
+            this.senha = senha;
+            return this;
+        }
+
+        /**
+         * @param minimo Quantidade de conexões mantidas abertas, padrão 1
+         */
+        public Configuracao minimo(final int minimo) {
+            this.minimo = minimo;
+            return this;
+        }
+
+        /**
+         * @param maximo Quantidade máxima de conexões emprestadas ao mesmo tempo, padrão 10
+         */
+        public Configuracao maximo(final int maximo) {
+            this.maximo = maximo;
+            return this;
+        }
+
+        /**
+         * @param tempoEspera Tempo máximo de espera por uma conexão, padrão 30 segundos
+         */
+        public Configuracao tempoEspera(final long tempoEspera) {
+            this.tempoEspera = tempoEspera;
+            return this;
+        }
+
+        /**
+         * @param tempoVida Tempo de vida máximo de uma conexão física, padrão 30 minutos. 0 para ilimitado.
+         */
+        public Configuracao tempoVida(final long tempoVida) {
+            this.tempoVida = tempoVida;
+            return this;
+        }
+
+        /**
+         * @param validacaoOcioso Tempo ocioso a partir do qual a conexão é validada no empréstimo e na manutenção,
+         *            padrão 30 segundos. Deve ser da ordem do {@link #intervaloManutencao(long)}: as conexões ociosas
+         *            por mais tempo são revalidadas pela manutenção, e a validação no empréstimo fica restrita às
+         *            conexões que ficaram ociosas entre duas manutenções, fora do caminho das conexões em uso
+         *            frequente.
+         */
+        public Configuracao validacaoOcioso(final long validacaoOcioso) {
+            this.validacaoOcioso = validacaoOcioso;
+            return this;
+        }
+
+        /**
+         * @param intervaloManutencao Intervalo da manutenção em segundo plano, padrão 30 segundos
+         */
+        public Configuracao intervaloManutencao(final long intervaloManutencao) {
+            this.intervaloManutencao = intervaloManutencao;
+            return this;
+        }
+
+        /**
+         * @param consultaValidacao Consulta de validação. Caso não informada, é utilizado
+         *            {@link Connection#isValid(int)}
+         */
+        public Configuracao consultaValidacao(final String consultaValidacao) {
+            this.consultaValidacao = consultaValidacao;
+            return this;
+        }
+
+        /**
+         * @param cacheStatements Quantidade de PreparedStatements mantidos em cache por conexão, padrão 64. 0 para
+         *            desabilitar.
+         */
+        public Configuracao cacheStatements(final int cacheStatements) {
+            this.cacheStatements = cacheStatements;
+            return this;
+        }
+
+        /**
+         * @param autoCommit Modo de confirmação das conexões, padrão false
+         */
+        public Configuracao autoCommit(final boolean autoCommit) {
+            this.autoCommit = autoCommit;
+            return this;
+        }
+
+        private Configuracao copia() {
+            final Configuracao copia = new Configuracao();
+            copia.driver = driver;
+            copia.url = url;
+            copia.usuario = usuario;
+            copia.senha = senha;
+            copia.minimo = minimo;
+            copia.maximo = maximo;
+            copia.tempoEspera = tempoEspera;
+            copia.tempoVida = tempoVida;
+            copia.validacaoOcioso = validacaoOcioso;
+            copia.intervaloManutencao = intervaloManutencao;
+            copia.consultaValidacao = consultaValidacao;
+            copia.cacheStatements = cacheStatements;
+            copia.autoCommit = autoCommit;
+            return copia;
+        }
+    }
+}
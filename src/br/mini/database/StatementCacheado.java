@@ -0,0 +1,607 @@
+package br.mini.database;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+
+import br.mini.Constantes;
+
+/**
+ * PreparedStatement emprestado pelo {@link CacheStatements} de uma {@link ConexaoPool}. O {@link #close()} fecha o
+ * ResultSet aberto, limpa os parâmetros e devolve o statement físico ao cache, em vez de fechá-lo.
+ * <br>
+ * Statements com opções de execução alteradas, como o tamanho do fetch ou o timeout, são fechados em vez de
+ * devolvidos, para que as alterações não alcancem o próximo uso.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+final class StatementCacheado implements PreparedStatement {
+
+    private final ConexaoPool conexao;
+    private final CacheStatements cache;
+    private final String sql;
+    private PreparedStatement statement;
+    private ResultSet resultado;
+    private boolean reutilizavel = true;
+    private boolean fecharAoCompletar;
+    private boolean emLote;
+
+    StatementCacheado(final ConexaoPool conexao, final CacheStatements cache, final String sql,
+            final PreparedStatement statement) {
+        this.conexao = conexao;
+        this.cache = cache;
+        this.sql = sql;
+        this.statement = statement;
+    }
+
+    private PreparedStatement alvo() throws SQLException {
+        final PreparedStatement atual = statement;
+        if (atual == null) {
+            throw new SQLException(Constantes.STATEMENT_FECHADO);
+        }
+        return atual;
+    }
+
+    /**
+     * Obtém o statement físico para a alteração de uma opção de execução, impedindo a sua devolução ao cache
+     */
+    private PreparedStatement alterado() throws SQLException {
+        final PreparedStatement atual = alvo();
+        reutilizavel = false;
+        return atual;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        final PreparedStatement atual = statement;
+        if (atual == null) {
+            return;
+        }
+        statement = null;
+        conexao.liberar(this);
+        try {
+            if (resultado != null) {
+                resultado.close();
+                resultado = null;
+            }
+            if (reutilizavel) {
+                atual.clearParameters();
+                if (emLote) {
+                    atual.clearBatch();
+                }
+                atual.clearWarnings();
+                cache.devolver(sql, atual);
+                return;
+            }
+        } catch (SQLException ex) {
+            // statement em estado desconhecido, descartado abaixo
+        }
+        atual.close();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return statement == null;
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        resultado = alvo().executeQuery();
+        return resultado;
+    }
+
+    @Override
+    public ResultSet executeQuery(final String sql) throws SQLException {
+        resultado = alvo().executeQuery(sql);
+        return resultado;
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        resultado = alvo().getResultSet();
+        return resultado;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        alvo();
+        return conexao;
+    }
+
+    /**
+     * O statement é liberado no fechamento da conexão emprestada, caso não seja fechado antes
+     */
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        alvo();
+        fecharAoCompletar = true;
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        alvo();
+        return fecharAoCompletar;
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return alvo().unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || alvo().isWrapperFor(iface);
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        alvo().addBatch();
+        emLote = true;
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        alvo().clearParameters();
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        return alvo().execute();
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        return alvo().executeUpdate();
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        return alvo().getMetaData();
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        return alvo().getParameterMetaData();
+    }
+
+    @Override
+    public void setArray(final int parameterIndex, final Array x) throws SQLException {
+        alvo().setArray(parameterIndex, x);
+    }
+
+    @Override
+    public void setAsciiStream(final int parameterIndex, final InputStream x, final int length) throws SQLException {
+        alvo().setAsciiStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setAsciiStream(final int parameterIndex, final InputStream x, final long length) throws SQLException {
+        alvo().setAsciiStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setAsciiStream(final int parameterIndex, final InputStream x) throws SQLException {
+        alvo().setAsciiStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setBigDecimal(final int parameterIndex, final BigDecimal x) throws SQLException {
+        alvo().setBigDecimal(parameterIndex, x);
+    }
+
+    @Override
+    public void setBinaryStream(final int parameterIndex, final InputStream x, final int length) throws SQLException {
+        alvo().setBinaryStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBinaryStream(final int parameterIndex, final InputStream x, final long length) throws SQLException {
+        alvo().setBinaryStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBinaryStream(final int parameterIndex, final InputStream x) throws SQLException {
+        alvo().setBinaryStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(final int parameterIndex, final InputStream x, final long length) throws SQLException {
+        alvo().setBlob(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setBlob(final int parameterIndex, final InputStream x) throws SQLException {
+        alvo().setBlob(parameterIndex, x);
+    }
+
+    @Override
+    public void setBlob(final int parameterIndex, final Blob x) throws SQLException {
+        alvo().setBlob(parameterIndex, x);
+    }
+
+    @Override
+    public void setBoolean(final int parameterIndex, final boolean x) throws SQLException {
+        alvo().setBoolean(parameterIndex, x);
+    }
+
+    @Override
+    public void setByte(final int parameterIndex, final byte x) throws SQLException {
+        alvo().setByte(parameterIndex, x);
+    }
+
+    @Override
+    public void setBytes(final int parameterIndex, final byte[] x) throws SQLException {
+        alvo().setBytes(parameterIndex, x);
+    }
+
+    @Override
+    public void setCharacterStream(final int parameterIndex, final Reader x, final int length) throws SQLException {
+        alvo().setCharacterStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setCharacterStream(final int parameterIndex, final Reader x, final long length) throws SQLException {
+        alvo().setCharacterStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setCharacterStream(final int parameterIndex, final Reader x) throws SQLException {
+        alvo().setCharacterStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setClob(final int parameterIndex, final Reader x, final long length) throws SQLException {
+        alvo().setClob(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setClob(final int parameterIndex, final Reader x) throws SQLException {
+        alvo().setClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setClob(final int parameterIndex, final Clob x) throws SQLException {
+        alvo().setClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setDate(final int parameterIndex, final Date x, final Calendar cal) throws SQLException {
+        alvo().setDate(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setDate(final int parameterIndex, final Date x) throws SQLException {
+        alvo().setDate(parameterIndex, x);
+    }
+
+    @Override
+    public void setDouble(final int parameterIndex, final double x) throws SQLException {
+        alvo().setDouble(parameterIndex, x);
+    }
+
+    @Override
+    public void setFloat(final int parameterIndex, final float x) throws SQLException {
+        alvo().setFloat(parameterIndex, x);
+    }
+
+    @Override
+    public void setInt(final int parameterIndex, final int x) throws SQLException {
+        alvo().setInt(parameterIndex, x);
+    }
+
+    @Override
+    public void setLong(final int parameterIndex, final long x) throws SQLException {
+        alvo().setLong(parameterIndex, x);
+    }
+
+    @Override
+    public void setNCharacterStream(final int parameterIndex, final Reader x, final long length) throws SQLException {
+        alvo().setNCharacterStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setNCharacterStream(final int parameterIndex, final Reader x) throws SQLException {
+        alvo().setNCharacterStream(parameterIndex, x);
+    }
+
+    @Override
+    public void setNClob(final int parameterIndex, final Reader x, final long length) throws SQLException {
+        alvo().setNClob(parameterIndex, x, length);
+    }
+
+    @Override
+    public void setNClob(final int parameterIndex, final Reader x) throws SQLException {
+        alvo().setNClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setNClob(final int parameterIndex, final NClob x) throws SQLException {
+        alvo().setNClob(parameterIndex, x);
+    }
+
+    @Override
+    public void setNString(final int parameterIndex, final String x) throws SQLException {
+        alvo().setNString(parameterIndex, x);
+    }
+
+    @Override
+    public void setNull(final int parameterIndex, final int sqlType, final String typeName) throws SQLException {
+        alvo().setNull(parameterIndex, sqlType, typeName);
+    }
+
+    @Override
+    public void setNull(final int parameterIndex, final int sqlType) throws SQLException {
+        alvo().setNull(parameterIndex, sqlType);
+    }
+
+    @Override
+    public void setObject(final int parameterIndex, final Object x, final int targetSqlType,
+            final int scaleOrLength) throws SQLException {
+        alvo().setObject(parameterIndex, x, targetSqlType, scaleOrLength);
+    }
+
+    @Override
+    public void setObject(final int parameterIndex, final Object x, final int targetSqlType) throws SQLException {
+        alvo().setObject(parameterIndex, x, targetSqlType);
+    }
+
+    @Override
+    public void setObject(final int parameterIndex, final Object x) throws SQLException {
+        alvo().setObject(parameterIndex, x);
+    }
+
+    @Override
+    public void setRef(final int parameterIndex, final Ref x) throws SQLException {
+        alvo().setRef(parameterIndex, x);
+    }
+
+    @Override
+    public void setRowId(final int parameterIndex, final RowId x) throws SQLException {
+        alvo().setRowId(parameterIndex, x);
+    }
+
+    @Override
+    public void setSQLXML(final int parameterIndex, final SQLXML x) throws SQLException {
+        alvo().setSQLXML(parameterIndex, x);
+    }
+
+    @Override
+    public void setShort(final int parameterIndex, final short x) throws SQLException {
+        alvo().setShort(parameterIndex, x);
+    }
+
+    @Override
+    public void setString(final int parameterIndex, final String x) throws SQLException {
+        alvo().setString(parameterIndex, x);
+    }
+
+    @Override
+    public void setTime(final int parameterIndex, final Time x, final Calendar cal) throws SQLException {
+        alvo().setTime(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setTime(final int parameterIndex, final Time x) throws SQLException {
+        alvo().setTime(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(final int parameterIndex, final Timestamp x, final Calendar cal) throws SQLException {
+        alvo().setTimestamp(parameterIndex, x, cal);
+    }
+
+    @Override
+    public void setTimestamp(final int parameterIndex, final Timestamp x) throws SQLException {
+        alvo().setTimestamp(parameterIndex, x);
+    }
+
+    @Override
+    public void setURL(final int parameterIndex, final URL x) throws SQLException {
+        alvo().setURL(parameterIndex, x);
+    }
+
+    @Override
+    @Deprecated
+    public void setUnicodeStream(final int parameterIndex, final InputStream x, final int length) throws SQLException {
+        alvo().setUnicodeStream(parameterIndex, x, length);
+    }
+
+    @Override
+    public void addBatch(final String sql) throws SQLException {
+        alvo().addBatch(sql);
+        emLote = true;
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        alvo().cancel();
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        alvo().clearBatch();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        alvo().clearWarnings();
+    }
+
+    @Override
+    public boolean execute(final String sql, final int[] columnIndexes) throws SQLException {
+        return alvo().execute(sql, columnIndexes);
+    }
+
+    @Override
+    public boolean execute(final String sql, final String[] columnNames) throws SQLException {
+        return alvo().execute(sql, columnNames);
+    }
+
+    @Override
+    public boolean execute(final String sql, final int autoGeneratedKeys) throws SQLException {
+        return alvo().execute(sql, autoGeneratedKeys);
+    }
+
+    @Override
+    public boolean execute(final String sql) throws SQLException {
+        return alvo().execute(sql);
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        return alvo().executeBatch();
+    }
+
+    @Override
+    public int executeUpdate(final String sql, final int[] columnIndexes) throws SQLException {
+        return alvo().executeUpdate(sql, columnIndexes);
+    }
+
+    @Override
+    public int executeUpdate(final String sql, final String[] columnNames) throws SQLException {
+        return alvo().executeUpdate(sql, columnNames);
+    }
+
+    @Override
+    public int executeUpdate(final String sql, final int autoGeneratedKeys) throws SQLException {
+        return alvo().executeUpdate(sql, autoGeneratedKeys);
+    }
+
+    @Override
+    public int executeUpdate(final String sql) throws SQLException {
+        return alvo().executeUpdate(sql);
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return alvo().getFetchDirection();
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return alvo().getFetchSize();
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return alvo().getGeneratedKeys();
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        return alvo().getMaxFieldSize();
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return alvo().getMaxRows();
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        return alvo().getMoreResults();
+    }
+
+    @Override
+    public boolean getMoreResults(final int current) throws SQLException {
+        return alvo().getMoreResults(current);
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        return alvo().getQueryTimeout();
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        return alvo().getResultSetConcurrency();
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        return alvo().getResultSetHoldability();
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        return alvo().getResultSetType();
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        return alvo().getUpdateCount();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return alvo().getWarnings();
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        return alvo().isPoolable();
+    }
+
+    @Override
+    public void setCursorName(final String name) throws SQLException {
+        alterado().setCursorName(name);
+    }
+
+    @Override
+    public void setEscapeProcessing(final boolean enable) throws SQLException {
+        alterado().setEscapeProcessing(enable);
+    }
+
+    @Override
+    public void setFetchDirection(final int direction) throws SQLException {
+        alterado().setFetchDirection(direction);
+    }
+
+    @Override
+    public void setFetchSize(final int rows) throws SQLException {
+        alterado().setFetchSize(rows);
+    }
+
+    @Override
+    public void setMaxFieldSize(final int max) throws SQLException {
+        alterado().setMaxFieldSize(max);
+    }
+
+    @Override
+    public void setMaxRows(final int max) throws SQLException {
+        alterado().setMaxRows(max);
+    }
+
+    @Override
+    public void setPoolable(final boolean poolable) throws SQLException {
+        alterado().setPoolable(poolable);
+    }
+
+    @Override
+    public void setQueryTimeout(final int seconds) throws SQLException {
+        alterado().setQueryTimeout(seconds);
+    }
+}
@@ -1,6 +1,5 @@
 package br.mini.database;
 
-import java.io.File;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
@@ -22,6 +21,17 @@ import br.mini.exception.MiniException;
  */
 class XMLParser {
 
+    private static final String XML = "mini.cfg.xml";
+
+    /**
+     * Verifica se o xml de configuração está presente no classpath
+     *
+     * @return true caso o xml exista
+     */
+    static boolean existe() {
+        return Thread.currentThread().getContextClassLoader().getResource(XML) != null;
+    }
+
     /**
      * Método responsável por obter os parâmetros mapeados no xml
      *
@@ -29,8 +39,7 @@ class XMLParser {
      * @throws MiniException
      */
     static Map<String, String> getMapParams() throws MiniException {
-        String xml = "/mini.cfg.xml";
-        URL resource = Thread.currentThread().getContextClassLoader().getResource(xml);
+        URL resource = Thread.currentThread().getContextClassLoader().getResource(XML);
         DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
         DocumentBuilder docBuilder;
         Map<String, String> mapaConn = new HashMap<String, String>();
@@ -38,7 +47,7 @@ class XMLParser {
         try {
             docBuilder = dbf.newDocumentBuilder();
             Document doc;
-            doc = docBuilder.parse(new File(resource.toURI()));
+            doc = docBuilder.parse(resource.toString());
             NodeList nl = doc.getElementsByTagName("property");
             for (int i = 0; i < nl.getLength(); i++) {
                 mapaConn.put(nl.item(i).getAttributes().getNamedItem("name").getNodeValue(), nl.item(i).getTextContent());
@@ -0,0 +1,14 @@
+package br.mini.enums;
+
+/**
+ * Enum responsável por definir a estratégia de geração da chave primária da tabela: pela tabela KEY_GEN, por uma
+ * sequence do banco, por uma coluna de identidade lida através de getGeneratedKeys ou localmente, sem acesso ao banco,
+ * por um identificador ordenado pelo tempo no formato Snowflake ou UUIDv7
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public enum ChaveEnum {
+
+    KEY_GEN, SEQUENCIA, IDENTIDADE, SNOWFLAKE, UUID;
+}
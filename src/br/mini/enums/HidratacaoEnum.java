@@ -0,0 +1,13 @@
+package br.mini.enums;
+
+/**
+ * Enum responsável por definir como as entidades sem mapeador gerado em tempo de compilação são populadas: por
+ * reflexão ou por um mapeador compilado em tempo de execução na primeira utilização da entidade
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public enum HidratacaoEnum {
+
+    REFLEXAO, GERADO;
+}
@@ -0,0 +1,13 @@
+package br.mini.enums;
+
+/**
+ * Enum responsável por definir como as leituras são distribuídas entre as réplicas: em rodízio ou para a réplica com
+ * menos conexões em uso
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public enum RoteamentoEnum {
+
+    RODIZIO, MENOS_EM_USO;
+}
@@ -0,0 +1,573 @@
+package br.mini.operacional;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import br.mini.Constantes;
+import br.mini.EntityMetadata;
+import br.mini.EntityMetadata.ColunaDescritor;
+import br.mini.annotations.Tabela;
+import br.mini.exception.MiniException;
+
+/**
+ * Fila de escrita adiada das tabelas com {@link Tabela#escritaAdiada()}, destinada a entidades de alto volume que
+ * toleram perdas, como auditoria e telemetria.
+ * <br>
+ * Os métodos {@link Operacoes#salvar(Object)} e {@link Operacoes#atualizar(Object)} dessas tabelas apenas enfileiram
+ * o objeto e retornam, sem aguardar o commit. Uma thread em segundo plano grava a fila em lotes JDBC a cada
+ * {@link Configuracao#intervalo(long)} ou assim que {@link Configuracao#tamanhoLote(int)} objetos estejam pendentes.
+ * Gravações repetidas da mesma PK ainda pendentes são agrupadas em uma só, com o estado do objeto no último
+ * enfileiramento; um INSERT pendente seguido de UPDATE permanece um único INSERT. A fila mantém uma cópia dos valores
+ * das colunas, de forma que o objeto pode continuar a ser alterado pelo chamador.
+ * <br>
+ * Com a fila cheia, a thread que enfileira aguarda até {@link Configuracao#tempoEspera(long)} por espaço. A fila é
+ * gravada no encerramento da JVM e no {@link #fechar()}. Dentro de uma {@link Transacao}, a escrita é sempre imediata,
+ * já que a mesma deve ser desfeita junto com as demais operações.
+ * <br>
+ * As PKs são geradas no enfileiramento, em uma sessão confirmada de imediato, para que possam ser agrupadas e
+ * retornadas ao chamador. As PKs de {@link br.mini.enums.ChaveEnum#IDENTIDADE}, geradas pelo banco somente na
+ * descarga, não são atribuídas ao objeto do chamador. Recomenda-se as estratégias que não acessam o banco
+ * ({@link br.mini.enums.ChaveEnum#SNOWFLAKE} e {@link br.mini.enums.ChaveEnum#UUID}) ou {@link Tabela#blocoChaves()}
+ * maior que 1. Falhas na gravação de um lote são registradas em log e contabilizadas em {@link #getFalhas()},
+ * descartando os objetos do lote.
+ *
+ * <pre>
+ * FilaEscrita.configurar(new FilaEscrita.Configuracao().capacidade(50000).intervalo(500));
+ * </pre>
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public final class FilaEscrita {
+
+    private static final Logger LOGGER = Logger.getLogger(FilaEscrita.class.getName());
+
+    private static volatile FilaEscrita atual;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread("mini-escrita-adiada-encerramento") {
+
+            @Override
+            public void run() {
+                final FilaEscrita fila = atual;
+                if (fila != null) {
+                    fila.fechar();
+                }
+            }
+        });
+    }
+
+    private final Configuracao configuracao;
+    private final Operacoes operacoes = new Operacoes();
+
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition espaco = trava.newCondition();
+    /**
+     * Objetos pendentes, na ordem do primeiro enfileiramento de cada PK
+     */
+    private final LinkedHashMap<Chave, Pendente> pendentes = new LinkedHashMap<>();
+    private boolean descargaAgendada;
+    private volatile boolean fechada;
+
+    /**
+     * Serializa as descargas, de forma que os lotes sejam gravados na ordem em que foram retirados da fila, e as
+     * exclusões, que aguardam a gravação em andamento
+     */
+    private final Object descarga = new Object();
+    private final ScheduledExecutorService gravador;
+    private final Runnable tarefaDescarga = new Runnable() {
+
+        @Override
+        public void run() {
+            descarregar();
+        }
+    };
+
+    private final AtomicLong enfileirados = new AtomicLong();
+    private final AtomicLong agrupados = new AtomicLong();
+    private final AtomicLong gravados = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong esperas = new AtomicLong();
+    private final AtomicLong descargas = new AtomicLong();
+    private final AtomicLong tempoTotalDescarga = new AtomicLong();
+    private final AtomicLong tempoMaximoDescarga = new AtomicLong();
+    private volatile int profundidade;
+    private volatile int profundidadeMaxima;
+
+    private FilaEscrita(final Configuracao configuracao) {
+        this.configuracao = configuracao.copia();
+        gravador = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(final Runnable tarefa) {
+                final Thread thread = new Thread(tarefa, "mini-escrita-adiada");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        gravador.scheduleWithFixedDelay(tarefaDescarga, configuracao.intervalo, configuracao.intervalo,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Substitui a fila corrente por uma nova com a configuração informada. A fila anterior é gravada e encerrada.
+     *
+     * @param configuracao
+     * @return nova fila
+     * @throws MiniException caso a configuração seja inválida
+     */
+    public static synchronized FilaEscrita configurar(final Configuracao configuracao) throws MiniException {
+        if (configuracao.capacidade < 1 || configuracao.tamanhoLote < 1 || configuracao.intervalo < 1
+                || configuracao.tempoEspera < 0) {
+            throw new MiniException(Constantes.FILA_ESCRITA_INVALIDA);
+        }
+        final FilaEscrita anterior = atual;
+        atual = new FilaEscrita(configuracao);
+        if (anterior != null) {
+            anterior.fechar();
+        }
+        return atual;
+    }
+
+    /**
+     * @return fila corrente, criada com a configuração padrão no primeiro acesso
+     */
+    public static FilaEscrita obter() {
+        FilaEscrita fila = atual;
+        if (fila == null) {
+            synchronized (FilaEscrita.class) {
+                fila = atual;
+                if (fila == null) {
+                    fila = new FilaEscrita(new Configuracao());
+                    atual = fila;
+                }
+            }
+        }
+        return fila;
+    }
+
+    /**
+     * @param meta
+     * @return true caso a escrita dos objetos da classe deva ser enfileirada na thread corrente
+     */
+    static boolean isAdiada(final EntityMetadata meta) {
+        if (!meta.isTabela() || !meta.getTabela().escritaAdiada()) {
+            return false;
+        }
+        final Sessao sessao = Sessao.atual();
+        return sessao == null || !sessao.isEmTransacao();
+    }
+
+    /**
+     * Enfileira o INSERT do objeto, gerando a sua PK caso necessário
+     *
+     * @param obj
+     * @throws MiniException caso a fila esteja encerrada ou permaneça cheia após o tempo de espera
+     */
+    void salvar(final Object obj) throws MiniException {
+        final EntityMetadata meta = EntityMetadata.obter(obj.getClass());
+        // A reserva da chave é confirmada de imediato, já que o INSERT só ocorre na descarga, em outra sessão
+        final Sessao sessao = Sessao.abrir();
+        try {
+            for (ColunaDescritor pk : meta.getPks()) {
+                if (pk.getAcessor().obter(obj) == null) {
+                    pk.getAcessor().atribuir(obj, KeyGen.gerar(meta.getTabela(), pk));
+                }
+            }
+            sessao.confirmar();
+        } finally {
+            sessao.close();
+        }
+        enfileirar(meta, obj, true);
+    }
+
+    /**
+     * Enfileira o UPDATE do objeto
+     *
+     * @param obj
+     * @throws MiniException caso a fila esteja encerrada ou permaneça cheia após o tempo de espera
+     */
+    void atualizar(final Object obj) throws MiniException {
+        enfileirar(EntityMetadata.obter(obj.getClass()), obj, false);
+    }
+
+    /**
+     * Remove da fila a gravação pendente do objeto, utilizado antes da sua exclusão. A descarga em andamento, que pode
+     * conter a gravação do objeto já retirada da fila, é aguardada antes, de forma que o DELETE seguinte não seja
+     * executado antes do INSERT e o registro não volte a existir após a exclusão.
+     *
+     * @param obj
+     * @throws MiniException
+     */
+    void descartar(final Object obj) throws MiniException {
+        final Chave chave = Chave.obter(EntityMetadata.obter(obj.getClass()), obj);
+        synchronized (descarga) {
+            trava.lock();
+            try {
+                if (pendentes.remove(chave) != null) {
+                    profundidade = pendentes.size();
+                    espaco.signal();
+                }
+            } finally {
+                trava.unlock();
+            }
+        }
+    }
+
+    private void enfileirar(final EntityMetadata meta, final Object obj, final boolean insercao)
+            throws MiniException {
+        final Chave chave = Chave.obter(meta, obj);
+        final Object retrato = retratar(meta, obj);
+        trava.lock();
+        try {
+            if (fechada) {
+                throw new MiniException(Constantes.FILA_ESCRITA_FECHADA);
+            }
+            Pendente pendente = pendentes.get(chave);
+            if (pendente == null && pendentes.size() >= configuracao.capacidade) {
+                esperas.incrementAndGet();
+                long restante = TimeUnit.MILLISECONDS.toNanos(configuracao.tempoEspera);
+                while (pendentes.size() >= configuracao.capacidade) {
+                    if (restante <= 0L) {
+                        throw new MiniException(Constantes.FILA_ESCRITA_CHEIA + configuracao.tempoEspera + "ms");
+                    }
+                    restante = espaco.awaitNanos(restante);
+                    if (fechada) {
+                        throw new MiniException(Constantes.FILA_ESCRITA_FECHADA);
+                    }
+                }
+                pendente = pendentes.get(chave);
+            }
+            enfileirados.incrementAndGet();
+            if (pendente != null) {
+                pendente.obj = retrato;
+                pendente.insercao |= insercao;
+                agrupados.incrementAndGet();
+                return;
+            }
+            pendentes.put(chave, new Pendente(retrato, insercao));
+            profundidade = pendentes.size();
+            if (profundidade > profundidadeMaxima) {
+                profundidadeMaxima = profundidade;
+            }
+            if (profundidade >= configuracao.tamanhoLote && !descargaAgendada) {
+                descargaAgendada = true;
+                gravador.execute(tarefaDescarga);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new MiniException(Constantes.FILA_ESCRITA_CHEIA + configuracao.tempoEspera + "ms", ex);
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Cria uma cópia do objeto com os valores das colunas no momento do enfileiramento. A fila grava somente a cópia,
+     * publicada à thread de gravação pela trava da fila, de forma que alterações posteriores do chamador no objeto não
+     * são lidas durante a descarga.
+     */
+    private static Object retratar(final EntityMetadata meta, final Object obj) throws MiniException {
+        final Object[] valores = new Object[meta.getColunas().size()];
+        for (ColunaDescritor col : meta.getColunas()) {
+            Object valor = col.getAcessor().obter(obj);
+            if (valor instanceof Calendar) {
+                valor = ((Calendar) valor).clone();
+            } else if (valor instanceof Date) {
+                valor = ((Date) valor).clone();
+            } else if (valor instanceof byte[]) {
+                valor = ((byte[]) valor).clone();
+            }
+            valores[col.getPosicao()] = valor;
+        }
+        return meta.hidratar(valores);
+    }
+
+    /**
+     * Grava imediatamente todos os objetos pendentes, na thread corrente
+     */
+    public void descarregar() {
+        synchronized (descarga) {
+            final List<Object> insercoes = new ArrayList<>();
+            final List<Object> atualizacoes = new ArrayList<>();
+            trava.lock();
+            try {
+                descargaAgendada = false;
+                if (pendentes.isEmpty()) {
+                    return;
+                }
+                for (Iterator<Pendente> iterador = pendentes.values().iterator(); iterador.hasNext();) {
+                    final Pendente pendente = iterador.next();
+                    (pendente.insercao ? insercoes : atualizacoes).add(pendente.obj);
+                    iterador.remove();
+                }
+                profundidade = 0;
+                espaco.signalAll();
+            } finally {
+                trava.unlock();
+            }
+            final long inicio = System.nanoTime();
+            gravar(insercoes, false);
+            gravar(atualizacoes, true);
+            registrarDescarga(System.nanoTime() - inicio);
+        }
+    }
+
+    private void gravar(final List<Object> objetos, final boolean atualizacao) {
+        if (objetos.isEmpty()) {
+            return;
+        }
+        try {
+            if (atualizacao) {
+                operacoes.atualizarEmLote(objetos, configuracao.tamanhoLote);
+            } else {
+                operacoes.salvarEmLote(objetos, configuracao.tamanhoLote);
+            }
+            gravados.addAndGet(objetos.size());
+        } catch (MiniException | RuntimeException ex) {
+            falhas.addAndGet(objetos.size());
+            LOGGER.log(Level.WARNING, Constantes.FALHA_GRAVAR_FILA_ESCRITA + objetos.size(), ex);
+        }
+    }
+
+    private void registrarDescarga(final long tempo) {
+        descargas.incrementAndGet();
+        tempoTotalDescarga.addAndGet(tempo);
+        long maximo = tempoMaximoDescarga.get();
+        while (tempo > maximo && !tempoMaximoDescarga.compareAndSet(maximo, tempo)) {
+            maximo = tempoMaximoDescarga.get();
+        }
+    }
+
+    /**
+     * Encerra a fila, gravando os objetos pendentes. Novos enfileiramentos são rejeitados.
+     */
+    public void fechar() {
+        trava.lock();
+        try {
+            fechada = true;
+            espaco.signalAll();
+        } finally {
+            trava.unlock();
+        }
+        // sem interromper a descarga em andamento, aguardada por descarregar()
+        gravador.shutdown();
+        descarregar();
+    }
+
+    /**
+     * @return true caso a fila tenha sido encerrada
+     */
+    public boolean isFechada() {
+        return fechada;
+    }
+
+    /**
+     * @return quantidade de objetos pendentes na fila
+     */
+    public int getProfundidade() {
+        return profundidade;
+    }
+
+    /**
+     * @return maior quantidade de objetos pendentes já observada
+     */
+    public int getProfundidadeMaxima() {
+        return profundidadeMaxima;
+    }
+
+    /**
+     * @return quantidade de gravações enfileiradas, incluindo as agrupadas
+     */
+    public long getEnfileirados() {
+        return enfileirados.get();
+    }
+
+    /**
+     * @return quantidade de gravações agrupadas a uma gravação pendente da mesma PK
+     */
+    public long getAgrupados() {
+        return agrupados.get();
+    }
+
+    /**
+     * @return quantidade de objetos gravados no banco
+     */
+    public long getGravados() {
+        return gravados.get();
+    }
+
+    /**
+     * @return quantidade de objetos descartados por falha na gravação
+     */
+    public long getFalhas() {
+        return falhas.get();
+    }
+
+    /**
+     * @return quantidade de enfileiramentos que aguardaram espaço na fila
+     */
+    public long getEsperas() {
+        return esperas.get();
+    }
+
+    /**
+     * @return quantidade de descargas realizadas
+     */
+    public long getDescargas() {
+        return descargas.get();
+    }
+
+    /**
+     * @return tempo médio das descargas, em nanossegundos
+     */
+    public long getTempoMedioDescarga() {
+        final long total = descargas.get();
+        return total == 0 ? 0 : tempoTotalDescarga.get() / total;
+    }
+
+    /**
+     * @return maior tempo de uma descarga, em nanossegundos
+     */
+    public long getTempoMaximoDescarga() {
+        return tempoMaximoDescarga.get();
+    }
+
+    /**
+     * Gravação pendente de um objeto, com a cópia criada por {@link FilaEscrita#retratar(EntityMetadata, Object)}
+     */
+    private static final class Pendente {
+
+        private Object obj;
+        private boolean insercao;
+
+        Pendente(final Object obj, final boolean insercao) {
+            this.obj = obj;
+            this.insercao = insercao;
+        }
+    }
+
+    /**
+     * Chave da fila: a classe e a PK do objeto ou, na falta da PK, a identidade do próprio objeto
+     */
+    private static final class Chave {
+
+        private final Class<?> classe;
+        private final Object valor;
+
+        private Chave(final Class<?> classe, final Object valor) {
+            this.classe = classe;
+            this.valor = valor;
+        }
+
+        static Chave obter(final EntityMetadata meta, final Object obj) throws MiniException {
+            final StringBuilder sb = new StringBuilder();
+            for (ColunaDescritor pk : meta.getPks()) {
+                final Object valor = pk.getAcessor().obter(obj);
+                if (valor == null) {
+                    return new Chave(meta.getClasse(), new Identidade(obj));
+                }
+                sb.append(valor).append('\u0000');
+            }
+            return new Chave(meta.getClasse(), sb.toString());
+        }
+
+        @Override
+        public int hashCode() {
+            return classe.hashCode() * 31 + valor.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Chave)) {
+                return false;
+            }
+            final Chave outra = (Chave) obj;
+            return classe == outra.classe && valor.equals(outra.valor);
+        }
+    }
+
+    private static final class Identidade {
+
+        private final Object obj;
+
+        Identidade(final Object obj) {
+            this.obj = obj;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(obj);
+        }
+
+        @Override
+        public boolean equals(final Object outra) {
+            return outra instanceof Identidade && ((Identidade) outra).obj == obj;
+        }
+    }
+
+    /**
+     * Configuração da fila de escrita adiada
+     *
+     * @author figueiredo-lucas
+     *
+     */
+    public static final class Configuracao {
+
+        private int capacidade = 10000;
+        private int tamanhoLote = Operacoes.TAMANHO_LOTE;
+        private long intervalo = 1000L;
+        private long tempoEspera = 30000L;
+
+        /**
+         * @param capacidade Quantidade máxima de objetos pendentes, padrão 10000
+         */
+        public Configuracao capacidade(final int capacidade) {
+            this.capacidade = capacidade;
+            return this;
+        }
+
+        /**
+         * @param tamanhoLote Quantidade de objetos pendentes que dispara a gravação e tamanho dos lotes JDBC, padrão
+         *            {@link Operacoes#TAMANHO_LOTE}
+         */
+        public Configuracao tamanhoLote(final int tamanhoLote) {
+            this.tamanhoLote = tamanhoLote;
+            return this;
+        }
+
+        /**
+         * @param intervalo Intervalo entre as gravações periódicas, padrão 1 segundo
+         */
+        public Configuracao intervalo(final long intervalo) {
+            this.intervalo = intervalo;
+            return this;
+        }
+
+        /**
+         * @param tempoEspera Tempo máximo de espera por espaço com a fila cheia, padrão 30 segundos
+         */
+        public Configuracao tempoEspera(final long tempoEspera) {
+            this.tempoEspera = tempoEspera;
+            return this;
+        }
+
+        private Configuracao copia() {
+            return new Configuracao().capacidade(capacidade).tamanhoLote(tamanhoLote).intervalo(intervalo)
+                    .tempoEspera(tempoEspera);
+        }
+    }
+}
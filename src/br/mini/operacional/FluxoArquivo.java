@@ -0,0 +1,57 @@
+package br.mini.operacional;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import br.mini.exception.MiniException;
+
+/**
+ * Stream de um campo BLOB retornado por {@link Operacoes#buscarArquivo(Class, String, String)}. O ResultSet, o
+ * statement e a participação na {@link Sessao} permanecem abertos até o {@link #close()}, de forma que o conteúdo é
+ * lido diretamente do banco, sem cópia prévia para a memória.
+ * <br>
+ * O chamador é o dono do stream e deve fechá-lo na mesma thread em que foi obtido, já que a sessão é associada à
+ * thread.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+final class FluxoArquivo extends FilterInputStream {
+
+    private final ResultSet rs;
+    private final PreparedStatement ps;
+    private final Sessao sessao;
+    private boolean fechado;
+
+    FluxoArquivo(final InputStream in, final ResultSet rs, final PreparedStatement ps, final Sessao sessao) {
+        super(in);
+        this.rs = rs;
+        this.ps = ps;
+        this.sessao = sessao;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fechado) {
+            return;
+        }
+        fechado = true;
+        try {
+            super.close();
+            rs.close();
+            ps.close();
+        } catch (SQLException ex) {
+            throw new IOException(ex);
+        } finally {
+            try {
+                sessao.close();
+            } catch (MiniException ex) {
+                throw new IOException(ex);
+            }
+        }
+    }
+}
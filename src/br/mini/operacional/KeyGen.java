@@ -1,19 +1,35 @@
 package br.mini.operacional;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 import br.mini.Constantes;
+import br.mini.EntityMetadata.ColunaDescritor;
 import br.mini.Utils;
 import br.mini.annotations.Coluna;
 import br.mini.annotations.Tabela;
 import br.mini.database.Connector;
+import br.mini.enums.ChaveEnum;
 import br.mini.exception.MiniException;
 
 /**
  * Classe responsável pela geração da chave primária das tabelas
+ * <br>
+ * Para as tabelas com {@link Tabela#blocoChaves()} maior que 1, as chaves são reservadas em blocos: um único UPDATE
+ * avança o CC_NEXT_VALUE do domínio pelo tamanho do bloco, e as chaves do bloco são entregues em memória, sem locks.
+ * Somente a reserva do próximo bloco é sincronizada, e apenas sobre o domínio que o esgotou.
+ * <br>
+ * As demais estratégias de {@link ChaveEnum} são resolvidas por {@link #gerar(Tabela, ColunaDescritor)}. As
+ * estratégias SNOWFLAKE e UUID não acessam o banco; no SNOWFLAKE, o identificador do nó é lido da propriedade de
+ * sistema <code>mini.no</code> (0 a 1023) e deve ser distinto entre as JVMs que geram chaves para a mesma tabela.
  *
  * @author figueiredo-lucas
  *
@@ -21,15 +37,100 @@ import br.mini.exception.MiniException;
 final class KeyGen {
 
     private static final String SELECT_CC = "SELECT CC_NEXT_VALUE FROM KEY_GEN WHERE CC_DOMAIN = ?";
-    private static final String UPDATE_CC = "UPDATE KEY_GEN SET CC_NEXT_VALUE = CC_NEXT_VALUE + 1 WHERE CC_DOMAIN = ?";
+    private static final String UPDATE_CC = "UPDATE KEY_GEN SET CC_NEXT_VALUE = CC_NEXT_VALUE + ? WHERE CC_DOMAIN = ?";
     private static final String INSERT_CC = "INSERT INTO KEY_GEN(CC_DOMAIN, CC_NEXT_VALUE) VALUES (?, ?)";
 
+    /**
+     * Blocos de chaves reservados, por domínio
+     */
+    private static final ConcurrentMap<String, Dominio> DOMINIOS = new ConcurrentHashMap<>();
+
+    private static final Snowflake SNOWFLAKE = new Snowflake(Integer.getInteger("mini.no", 0));
+
     private KeyGen() {
     }
 
     /**
-     * Busca primeira chave válida para o objeto passado por parâmetro para o método salvar(). A partir desse momento,
-     * atualiza-se a coluna com o próximo valor.
+     * Gera a chave primária conforme a estratégia da tabela, convertida para o tipo do campo
+     *
+     * @param tbl Anotação de tabela com os dados de referência de banco
+     * @param pk Descritor da PK
+     * @return Nova chave ou null caso seja gerada pelo banco na inserção
+     * @throws MiniException
+     */
+    static Object gerar(Tabela tbl, ColunaDescritor pk) throws MiniException {
+        switch (tbl.chave()) {
+            case IDENTIDADE:
+                return null;
+            case SEQUENCIA:
+                final long sequencial = proximoDaSequencia(tbl.sequencia());
+                return converter(pk.getTipo(), sequencial, formatar(tbl, sequencial));
+            case SNOWFLAKE:
+                final long id = SNOWFLAKE.proximo();
+                return converter(pk.getTipo(), id, tbl.prefixo() + id);
+            case UUID:
+                final UUID uuid = uuidV7();
+                return UUID.class == pk.getTipo() ? uuid : uuid.toString();
+            default:
+                return getPk(tbl, pk.getColuna());
+        }
+    }
+
+    private static Object converter(Class<?> tipo, long valor, String texto) {
+        if (Long.class == tipo || long.class == tipo) {
+            return valor;
+        }
+        if (Integer.class == tipo || int.class == tipo) {
+            return (int) valor;
+        }
+        if (BigDecimal.class == tipo) {
+            return BigDecimal.valueOf(valor);
+        }
+        return texto;
+    }
+
+    /**
+     * Obtém o próximo valor da sequence, na conexão da {@link Sessao} corrente
+     *
+     * @param sequencia Nome da sequence
+     * @return próximo valor
+     * @throws MiniException
+     */
+    private static long proximoDaSequencia(String sequencia) throws MiniException {
+        final Sessao sessao = Sessao.abrir();
+        try (PreparedStatement ps = sessao.getConexao().prepareStatement(
+                "SELECT " + sequencia + ".NEXTVAL FROM DUAL");
+                ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        } catch (SQLException ex) {
+            throw new MiniException(Constantes.FALHA_OBTER_NOVA_PK, ex);
+        } finally {
+            sessao.close();
+        }
+    }
+
+    /**
+     * Gera um UUID versão 7: 48 bits do instante em milissegundos seguidos de bits aleatórios, ordenável pelo tempo
+     *
+     * @return novo UUID
+     */
+    private static UUID uuidV7() {
+        final ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        final long mais = System.currentTimeMillis() << 16 | 0x7000L | aleatorio.nextInt(0x1000);
+        final long menos = aleatorio.nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mais, menos);
+    }
+
+    /**
+     * Busca primeira chave válida para o objeto passado por parâmetro para o método salvar().
+     * <br>
+     * Sem blocos, a coluna é atualizada com o próximo valor antes da leitura, de forma que a linha do domínio fica
+     * bloqueada até o commit e chamadas concorrentes não obtêm a mesma chave. É utilizada a conexão da {@link Sessao}
+     * corrente, sempre sem auto commit, sendo confirmada juntamente com a operação que solicitou a chave.
+     * <br>
+     * Com blocos, a reserva é confirmada em uma conexão própria, já que as chaves do bloco sobrevivem à transação que
+     * as solicitou. O UPDATE e a leitura do bloco são feitos nela sem auto commit, em uma única transação.
      *
      * @param tbl Anotação de tabela com os dados de referência de banco
      * @param col Anotação da PK com os dados de referência de banco
@@ -37,35 +138,191 @@ final class KeyGen {
      * @throws MiniException
      */
     static String getPk(Tabela tbl, Coluna col) throws MiniException {
-        final Connection conn = Connector.getConnection();
-        try {
-            final PreparedStatement psSelect = conn.prepareStatement(SELECT_CC);
-            String escape = "0000000";
-            psSelect.setString(1, Utils.Strings.removeOwner(tbl.nome()) + col.nome());
-            ResultSet rs = psSelect.executeQuery();
-            final String retorno;
-            if (rs.next()) {
-                String concatPk = escape + rs.getBigDecimal(1).intValue();
-                concatPk = tbl.prefixo() + concatPk.substring(concatPk.length() - (7 - tbl.prefixo().length()));
-                rs.close();
-                final PreparedStatement psUpdate = conn.prepareStatement(UPDATE_CC);
-                psUpdate.setString(1, Utils.Strings.removeOwner(tbl.nome()) + col.nome());
-                psUpdate.executeUpdate();
-                conn.close();
-                retorno = concatPk;
-            } else {
-                try (PreparedStatement psInsert = conn.prepareStatement(INSERT_CC)) {
-                    psInsert.setString(1, Utils.Strings.removeOwner(tbl.nome()) + col.nome());
-                    psInsert.setDouble(2, 2);
-                    psInsert.executeUpdate();
-                }
-                retorno = tbl.prefixo() + ("0000001".substring(7 - (7 - tbl.prefixo().length())));
+        final String dominio = Utils.Strings.removeOwner(tbl.nome()) + col.nome();
+        if (tbl.blocoChaves() <= 1) {
+            final Sessao sessao = Sessao.abrir();
+            try {
+                return formatar(tbl, reservar(sessao.getConexao(), dominio, 1));
+            } catch (SQLException ex) {
+                throw new MiniException(Constantes.FALHA_OBTER_NOVA_PK, ex);
+            } finally {
+                sessao.close();
+            }
+        }
+        Dominio blocos = DOMINIOS.get(dominio);
+        if (blocos == null) {
+            final Dominio novo = new Dominio();
+            blocos = DOMINIOS.putIfAbsent(dominio, novo);
+            if (blocos == null) {
+                blocos = novo;
             }
-            conn.commit();
-            conn.close();
-            return retorno;
+        }
+        return formatar(tbl, blocos.proxima(dominio, tbl.blocoChaves()));
+    }
+
+    /**
+     * Reserva um bloco de chaves, avançando o CC_NEXT_VALUE do domínio pelo tamanho do bloco
+     *
+     * @param conn
+     * @param dominio
+     * @param tamanho Tamanho do bloco
+     * @return primeira chave do bloco
+     * @throws SQLException
+     */
+    private static long reservar(Connection conn, String dominio, int tamanho) throws SQLException {
+        if (incrementar(conn, dominio, tamanho)) {
+            return selecionar(conn, dominio) - tamanho;
+        }
+        try (PreparedStatement psInsert = conn.prepareStatement(INSERT_CC)) {
+            psInsert.setString(1, dominio);
+            psInsert.setLong(2, tamanho + 1L);
+            psInsert.executeUpdate();
+            return 1L;
         } catch (SQLException ex) {
-            throw new MiniException(Constantes.FALHA_OBTER_NOVA_PK, ex);
+            // domínio criado concorrentemente
+            if (incrementar(conn, dominio, tamanho)) {
+                return selecionar(conn, dominio) - tamanho;
+            }
+            throw ex;
+        }
+    }
+
+    private static boolean incrementar(Connection conn, String dominio, int tamanho) throws SQLException {
+        try (PreparedStatement psUpdate = conn.prepareStatement(UPDATE_CC)) {
+            psUpdate.setInt(1, tamanho);
+            psUpdate.setString(2, dominio);
+            return psUpdate.executeUpdate() > 0;
+        }
+    }
+
+    private static long selecionar(Connection conn, String dominio) throws SQLException {
+        try (PreparedStatement psSelect = conn.prepareStatement(SELECT_CC)) {
+            psSelect.setString(1, dominio);
+            try (ResultSet rs = psSelect.executeQuery()) {
+                rs.next();
+                return rs.getBigDecimal(1).longValue();
+            }
+        }
+    }
+
+    /**
+     * Formata a chave com o prefixo da tabela, completando com zeros até 7 caracteres
+     *
+     * @param tbl
+     * @param valor
+     * @return chave formatada
+     */
+    private static String formatar(Tabela tbl, long valor) {
+        final String concatPk = "0000000" + valor;
+        return tbl.prefixo() + concatPk.substring(concatPk.length() - (7 - tbl.prefixo().length()));
+    }
+
+    /**
+     * Gerador de identificadores de 64 bits no formato Snowflake: 41 bits de milissegundos desde 2020-01-01, 10 bits
+     * do nó e 12 bits de sequência dentro do milissegundo. Sem locks: o instante e a sequência são avançados juntos por
+     * CAS, e ao esgotar a sequência ou caso o relógio retroceda o gerador avança para o milissegundo seguinte,
+     * mantendo os identificadores sempre crescentes.
+     */
+    private static final class Snowflake {
+
+        private static final long EPOCA = 1577836800000L;
+        private static final int BITS_SEQUENCIA = 12;
+        private static final long MAXIMO_SEQUENCIA = (1L << BITS_SEQUENCIA) - 1;
+
+        private final long no;
+        /**
+         * Instante e sequência do último identificador: (instante &lt;&lt; 12) | sequência
+         */
+        private final AtomicLong estado = new AtomicLong();
+
+        Snowflake(int no) {
+            this.no = (no & 0x3FFL) << BITS_SEQUENCIA;
+        }
+
+        long proximo() {
+            while (true) {
+                final long anterior = estado.get();
+                final long agora = System.currentTimeMillis() - EPOCA;
+                final long instante = anterior >>> BITS_SEQUENCIA;
+                final long novo;
+                if (agora > instante) {
+                    novo = agora << BITS_SEQUENCIA;
+                } else if ((anterior & MAXIMO_SEQUENCIA) < MAXIMO_SEQUENCIA) {
+                    novo = anterior + 1;
+                } else {
+                    novo = (instante + 1) << BITS_SEQUENCIA;
+                }
+                if (estado.compareAndSet(anterior, novo)) {
+                    return (novo >>> BITS_SEQUENCIA) << 22 | no | novo & MAXIMO_SEQUENCIA;
+                }
+            }
+        }
+    }
+
+    /**
+     * Bloco de chaves reservado: [proxima, limite)
+     */
+    private static final class Bloco {
+
+        private final AtomicLong proxima;
+        private final long limite;
+
+        Bloco(long inicio, long limite) {
+            this.proxima = new AtomicLong(inicio);
+            this.limite = limite;
+        }
+    }
+
+    /**
+     * Bloco corrente de um domínio. As chaves são obtidas sem lock; a reserva do próximo bloco é feita por uma única
+     * thread, enquanto as demais do mesmo domínio aguardam.
+     */
+    private static final class Dominio {
+
+        private volatile Bloco atual = new Bloco(0L, 0L);
+
+        long proxima(String dominio, int tamanho) throws MiniException {
+            while (true) {
+                final Bloco bloco = atual;
+                final long valor = bloco.proxima.getAndIncrement();
+                if (valor < bloco.limite) {
+                    return valor;
+                }
+                synchronized (this) {
+                    if (atual == bloco) {
+                        final long inicio = reservarBloco(dominio, tamanho);
+                        atual = new Bloco(inicio, inicio + tamanho);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Reserva o bloco em uma transação própria. Em auto commit, o UPDATE seria confirmado antes da leitura e duas
+         * reservas concorrentes poderiam ler o mesmo CC_NEXT_VALUE, por isso o auto commit é desligado durante a
+         * reserva e restaurado em seguida.
+         */
+        private static long reservarBloco(String dominio, int tamanho) throws MiniException {
+            try (Connection conn = Connector.getConnection()) {
+                final boolean autoCommit = conn.getAutoCommit();
+                if (autoCommit) {
+                    conn.setAutoCommit(false);
+                }
+                try {
+                    final long inicio = reservar(conn, dominio, tamanho);
+                    conn.commit();
+                    return inicio;
+                } catch (SQLException ex) {
+                    conn.rollback();
+                    throw ex;
+                } finally {
+                    if (autoCommit) {
+                        conn.setAutoCommit(true);
+                    }
+                }
+            } catch (SQLException ex) {
+                throw new MiniException(Constantes.FALHA_OBTER_NOVA_PK, ex);
+            }
         }
     }
 }
@@ -0,0 +1,142 @@
+package br.mini.operacional;
+
+import java.io.InputStream;
+
+import br.mini.Constantes;
+import br.mini.EntityMetadata.ColunaDescritor;
+import br.mini.annotations.Coluna;
+import br.mini.exception.MiniException;
+
+/**
+ * Campo CLOB ou BLOB de carregamento tardio, mapeado com {@link Coluna#isLazy()}.
+ * <br>
+ * Nas entidades carregadas do banco, o campo contém apenas a referência à linha (classe, coluna e PK). O conteúdo de
+ * um CLOB é buscado no primeiro {@link #getTexto()} e mantido em memória; o de um BLOB é lido diretamente do banco a
+ * cada {@link #abrir()}. Para evitar uma consulta por objeto em listas, os CLOBs podem ser carregados de uma só vez
+ * por {@link Operacoes#carregarLobs(java.util.Collection)}.
+ * <br>
+ * Para gravar um novo conteúdo, atribui-se ao campo um valor criado por {@link #texto(String)} ou
+ * {@link #arquivo(InputStream)}. Os campos que mantêm a referência original não são incluídos no UPDATE.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public final class Lob {
+
+    private static final Operacoes OPERACOES = new Operacoes();
+
+    private final Class<?> classe;
+    private final ColunaDescritor coluna;
+    private final String[] pks;
+    private final boolean clob;
+
+    private String texto;
+    private InputStream arquivo;
+    private volatile boolean carregado;
+
+    /**
+     * Referência a um LOB existente no banco
+     */
+    Lob(final Class<?> classe, final ColunaDescritor coluna, final String... pks) {
+        this.classe = classe;
+        this.coluna = coluna;
+        this.clob = coluna.isClob();
+        this.pks = pks;
+    }
+
+    private Lob(final String texto, final InputStream arquivo, final boolean clob) {
+        this.classe = null;
+        this.coluna = null;
+        this.pks = null;
+        this.clob = clob;
+        this.texto = texto;
+        this.arquivo = arquivo;
+        this.carregado = true;
+    }
+
+    /**
+     * @param texto Novo conteúdo do CLOB
+     * @return LOB a ser gravado
+     */
+    public static Lob texto(final String texto) {
+        return new Lob(texto, null, true);
+    }
+
+    /**
+     * @param arquivo Novo conteúdo do BLOB, consumido e fechado pelo driver na gravação
+     * @return LOB a ser gravado
+     */
+    public static Lob arquivo(final InputStream arquivo) {
+        return new Lob(null, arquivo, false);
+    }
+
+    /**
+     * @param valor Valor do campo
+     * @return true caso o valor seja um novo conteúdo a ser gravado
+     */
+    static boolean isAlterado(final Object valor) {
+        return valor instanceof Lob && ((Lob) valor).classe == null;
+    }
+
+    public boolean isClob() {
+        return clob;
+    }
+
+    /**
+     * @return true caso o conteúdo do CLOB já esteja em memória
+     */
+    public boolean isCarregado() {
+        return carregado;
+    }
+
+    /**
+     * Obtém o conteúdo do CLOB, buscando-o pela PK no primeiro acesso
+     *
+     * @return conteúdo do CLOB ou null
+     * @throws MiniException
+     */
+    public String getTexto() throws MiniException {
+        if (!clob) {
+            throw new IllegalStateException(Constantes.LOB_NAO_CLOB);
+        }
+        if (!carregado) {
+            synchronized (this) {
+                if (!carregado) {
+                    carregar(OPERACOES.carregarTexto(this));
+                }
+            }
+        }
+        return texto;
+    }
+
+    /**
+     * Abre o conteúdo do BLOB. Nas referências, o stream é lido diretamente do banco e deve ser fechado pelo chamador,
+     * na mesma thread, conforme {@link Operacoes#buscarArquivo(Class, String, String)}.
+     *
+     * @return conteúdo do BLOB ou null
+     * @throws MiniException
+     */
+    public InputStream abrir() throws MiniException {
+        if (clob) {
+            throw new IllegalStateException(Constantes.LOB_NAO_BLOB);
+        }
+        return classe == null ? arquivo : OPERACOES.abrirArquivo(this);
+    }
+
+    synchronized void carregar(final String conteudo) {
+        this.texto = conteudo;
+        this.carregado = true;
+    }
+
+    Class<?> getClasse() {
+        return classe;
+    }
+
+    ColunaDescritor getColuna() {
+        return coluna;
+    }
+
+    String[] getPks() {
+        return pks;
+    }
+}
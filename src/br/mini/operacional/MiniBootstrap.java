@@ -0,0 +1,342 @@
+package br.mini.operacional;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import br.mini.Constantes;
+import br.mini.EntityMetadata;
+import br.mini.EntityMetadata.ColunaDescritor;
+import br.mini.EntityMetadata.PseudoColunaDescritor;
+import br.mini.Mapeador;
+import br.mini.annotations.PseudoTabela;
+import br.mini.annotations.Tabela;
+import br.mini.enums.ChaveEnum;
+import br.mini.exception.MiniException;
+
+/**
+ * Inicialização antecipada do framework, a ser chamada no deploy da aplicação. Varre os pacotes informados em busca
+ * das classes anotadas com {@link Tabela} e {@link PseudoTabela}, valida os mapeamentos, gera os metadados e os SQLs
+ * das entidades e, opcionalmente, carrega em paralelo as tabelas <code>cacheable</code> no cache de entidades.
+ * <br>
+ * Desta forma o custo da primeira utilização de cada entidade não é absorvido pelas primeiras requisições.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public final class MiniBootstrap {
+
+    private static final Logger LOGGER = Logger.getLogger(MiniBootstrap.class.getName());
+
+    private static final String EXTENSAO = ".class";
+
+    /**
+     * Fases da inicialização
+     */
+    public enum Fase {
+        VARREDURA, METADADOS, SQL, PRECARGA;
+    }
+
+    private MiniBootstrap() {
+    }
+
+    /**
+     * Inicializa as entidades dos pacotes informados, sem a carga das tabelas cacheáveis
+     *
+     * @param pacotes Pacotes a serem varridos, incluindo os subpacotes
+     * @return relatório da inicialização
+     * @throws MiniException caso algum mapeamento seja inválido
+     */
+    public static Relatorio inicializar(final String... pacotes) throws MiniException {
+        return inicializar(false, pacotes);
+    }
+
+    /**
+     * Inicializa as entidades dos pacotes informados
+     *
+     * @param precarregar true para carregar em paralelo as tabelas <code>cacheable</code> no cache de entidades
+     * @param pacotes Pacotes a serem varridos, incluindo os subpacotes
+     * @return relatório da inicialização
+     * @throws MiniException caso algum mapeamento seja inválido
+     */
+    public static Relatorio inicializar(final boolean precarregar, final String... pacotes) throws MiniException {
+        final Relatorio relatorio = new Relatorio();
+
+        long inicio = System.nanoTime();
+        final List<Class<?>> classes = new ArrayList<>();
+        for (String pacote : pacotes) {
+            for (Class<?> classe : varrer(pacote)) {
+                if (classe.isAnnotationPresent(Tabela.class) || classe.isAnnotationPresent(PseudoTabela.class)) {
+                    classes.add(classe);
+                }
+            }
+        }
+        relatorio.classes = Collections.unmodifiableList(classes);
+        inicio = relatorio.registrar(Fase.VARREDURA, inicio);
+
+        final List<String> falhas = new ArrayList<>();
+        for (Class<?> classe : classes) {
+            validar(EntityMetadata.obter(classe), falhas);
+        }
+        if (!falhas.isEmpty()) {
+            throw new MiniException(Constantes.FALHA_MAPEAMENTO + falhas);
+        }
+        inicio = relatorio.registrar(Fase.METADADOS, inicio);
+
+        for (Class<?> classe : classes) {
+            StringCreator.preparar(classe);
+        }
+        inicio = relatorio.registrar(Fase.SQL, inicio);
+
+        if (precarregar) {
+            relatorio.precarregadas = precarregar(classes);
+            relatorio.registrar(Fase.PRECARGA, inicio);
+        }
+        LOGGER.log(Level.INFO, "mini-orm inicializado: {0}", relatorio);
+        return relatorio;
+    }
+
+    /**
+     * Valida o mapeamento da entidade
+     *
+     * @param meta Metadados da entidade
+     * @param falhas Lista a ser populada com as falhas encontradas
+     */
+    private static void validar(final EntityMetadata meta, final List<String> falhas) {
+        final String nome = meta.getClasse().getName();
+        if (!meta.isInstanciavel()) {
+            falhas.add(nome + ": construtor sem parâmetros ou com todos os campos mapeados não encontrado");
+        }
+        if (meta.isPseudoTabela()) {
+            if (meta.getPseudoColunas().isEmpty()) {
+                falhas.add(nome + ": nenhum campo anotado com @PseudoColuna");
+            }
+            for (PseudoColunaDescritor col : meta.getPseudoColunas()) {
+                if (col.isReferenciada() && !col.getReferencia().isAnnotationPresent(Tabela.class)) {
+                    falhas.add(nome + "." + col.getCampo().getName() + ": referência sem @Tabela");
+                }
+            }
+            return;
+        }
+        if (meta.getNomeTabela().isEmpty()) {
+            falhas.add(nome + ": nome da tabela não informado");
+        }
+        if (meta.getColunas().isEmpty()) {
+            falhas.add(nome + ": nenhum campo anotado com @Coluna");
+        } else if (meta.getPk() == null) {
+            falhas.add(nome + ": nenhuma coluna marcada como PK");
+        }
+        if (meta.getTabela().chave() == ChaveEnum.SEQUENCIA && meta.getTabela().sequencia().isEmpty()) {
+            falhas.add(nome + ": sequence não informada para a estratégia SEQUENCIA");
+        }
+        for (ColunaDescritor col : meta.getFks()) {
+            if (!col.getTipo().isAnnotationPresent(Tabela.class)) {
+                falhas.add(nome + "." + col.getCampo().getName() + ": FK para classe sem @Tabela");
+            }
+        }
+        for (ColunaDescritor col : meta.getLazies()) {
+            if (col.getTipo() != Lob.class) {
+                falhas.add(nome + "." + col.getCampo().getName() + ": campo com isLazy deve ser do tipo Lob");
+            }
+        }
+    }
+
+    /**
+     * Carrega em paralelo as tabelas cacheáveis, uma tarefa por tabela
+     *
+     * @param classes Entidades inicializadas
+     * @return quantidade de tabelas carregadas
+     */
+    private static int precarregar(final List<Class<?>> classes) {
+        final List<Class<?>> cacheaveis = new ArrayList<>();
+        for (Class<?> classe : classes) {
+            final Tabela tabela = classe.getAnnotation(Tabela.class);
+            if (tabela != null && tabela.cacheable()) {
+                cacheaveis.add(classe);
+            }
+        }
+        if (cacheaveis.isEmpty()) {
+            return 0;
+        }
+        final int threads = Math.min(cacheaveis.size(), Runtime.getRuntime().availableProcessors());
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        int carregadas = 0;
+        try {
+            final List<Future<?>> tarefas = new ArrayList<>();
+            for (final Class<?> classe : cacheaveis) {
+                tarefas.add(executor.submit(new Callable<Object>() {
+
+                    @Override
+                    public Object call() throws MiniException {
+                        return new Operacoes().encontrarTodos(classe);
+                    }
+                }));
+            }
+            for (int indice = 0; indice < tarefas.size(); indice++) {
+                try {
+                    tarefas.get(indice).get();
+                    carregadas++;
+                } catch (ExecutionException ex) {
+                    LOGGER.log(Level.WARNING, "Falha ao carregar o cache de " + cacheaveis.get(indice).getName(),
+                            ex.getCause());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return carregadas;
+    }
+
+    /**
+     * Varre as classes do pacote e de seus subpacotes, em diretórios ou arquivos jar
+     *
+     * @param pacote
+     * @return classes encontradas
+     * @throws MiniException
+     */
+    private static Set<Class<?>> varrer(final String pacote) throws MiniException {
+        final ClassLoader loader = carregador();
+        final String caminho = pacote.replace('.', '/');
+        final Set<Class<?>> classes = new LinkedHashSet<>();
+        try {
+            final Enumeration<URL> recursos = loader.getResources(caminho);
+            while (recursos.hasMoreElements()) {
+                final URL recurso = recursos.nextElement();
+                if ("jar".equals(recurso.getProtocol())) {
+                    varrerJar(((JarURLConnection) recurso.openConnection()).getJarFile(), caminho, loader, classes);
+                } else if ("file".equals(recurso.getProtocol())) {
+                    varrerDiretorio(new File(URLDecoder.decode(recurso.getPath(), "UTF-8")), pacote, loader,
+                            classes);
+                }
+            }
+        } catch (IOException ex) {
+            throw new MiniException(Constantes.FALHA_VARREDURA + pacote, ex);
+        }
+        return classes;
+    }
+
+    private static void varrerDiretorio(final File diretorio, final String pacote, final ClassLoader loader,
+            final Set<Class<?>> classes) throws MiniException {
+        final File[] arquivos = diretorio.listFiles();
+        if (arquivos == null) {
+            return;
+        }
+        for (File arquivo : arquivos) {
+            if (arquivo.isDirectory()) {
+                varrerDiretorio(arquivo, pacote + "." + arquivo.getName(), loader, classes);
+            } else if (arquivo.getName().endsWith(EXTENSAO)) {
+                carregar(pacote + "." + arquivo.getName().substring(0,
+                        arquivo.getName().length() - EXTENSAO.length()), loader, classes);
+            }
+        }
+    }
+
+    private static void varrerJar(final JarFile jar, final String caminho, final ClassLoader loader,
+            final Set<Class<?>> classes) throws MiniException {
+        final Enumeration<JarEntry> entradas = jar.entries();
+        while (entradas.hasMoreElements()) {
+            final String nome = entradas.nextElement().getName();
+            if (nome.startsWith(caminho + "/") && nome.endsWith(EXTENSAO)) {
+                carregar(nome.substring(0, nome.length() - EXTENSAO.length()).replace('/', '.'), loader, classes);
+            }
+        }
+    }
+
+    /**
+     * Carrega a classe sem inicializá-la, ignorando classes internas e mapeadores gerados
+     */
+    private static void carregar(final String nome, final ClassLoader loader, final Set<Class<?>> classes)
+            throws MiniException {
+        if (nome.indexOf('$') >= 0 || nome.endsWith(Mapeador.SUFIXO)) {
+            return;
+        }
+        try {
+            classes.add(Class.forName(nome, false, loader));
+        } catch (ClassNotFoundException | LinkageError ex) {
+            throw new MiniException(Constantes.FALHA_VARREDURA + nome, ex);
+        }
+    }
+
+    private static ClassLoader carregador() {
+        final ClassLoader contexto = Thread.currentThread().getContextClassLoader();
+        return contexto != null ? contexto : MiniBootstrap.class.getClassLoader();
+    }
+
+    /**
+     * Relatório da inicialização, com as entidades encontradas e o tempo de cada fase
+     *
+     * @author figueiredo-lucas
+     *
+     */
+    public static final class Relatorio {
+
+        private final Map<Fase, Long> tempos = new EnumMap<>(Fase.class);
+        private List<Class<?>> classes = Collections.emptyList();
+        private int precarregadas;
+
+        private Relatorio() {
+        }
+
+        /**
+         * Registra o tempo da fase
+         *
+         * @param fase
+         * @param inicio Início da fase em nanossegundos
+         * @return início da próxima fase
+         */
+        private long registrar(final Fase fase, final long inicio) {
+            final long fim = System.nanoTime();
+            tempos.put(fase, (fim - inicio) / 1000000L);
+            return fim;
+        }
+
+        /**
+         * @return entidades inicializadas
+         */
+        public List<Class<?>> getClasses() {
+            return classes;
+        }
+
+        /**
+         * @return quantidade de tabelas carregadas no cache de entidades
+         */
+        public int getPrecarregadas() {
+            return precarregadas;
+        }
+
+        /**
+         * @param fase
+         * @return tempo da fase em milissegundos ou -1 caso a fase não tenha sido executada
+         */
+        public long getTempo(final Fase fase) {
+            final Long tempo = tempos.get(fase);
+            return tempo != null ? tempo : -1L;
+        }
+
+        @Override
+        public String toString() {
+            return classes.size() + " entidades, " + precarregadas + " tabelas em cache, tempos (ms) " + tempos;
+        }
+    }
+}
@@ -1,48 +1,87 @@
 package br.mini.operacional;
 
-import java.io.FileNotFoundException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
-import java.lang.reflect.Field;
+import java.io.Writer;
 import java.math.BigDecimal;
-import java.sql.Blob;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 
 import br.mini.Constantes;
+import br.mini.EntityMetadata;
 import br.mini.Utils;
-import br.mini.annotations.Coluna;
-import br.mini.annotations.PseudoColuna;
+import br.mini.EntityMetadata.ColunaDescritor;
+import br.mini.EntityMetadata.PseudoColunaDescritor;
+import br.mini.Mapeador;
 import br.mini.annotations.PseudoTabela;
 import br.mini.annotations.Tabela;
 import br.mini.criterio.Criterio;
 import br.mini.database.Connector;
 import br.mini.exception.MiniException;
 import br.mini.exception.MiniRuntimeException;
+import br.mini.operacional.ResultadoRelacionamento.Situacao;
 
 /**
  * Classe principal do framework.
+ * <br>
+ * Não possui estado mutável: statements, result sets e o cache das FKs são locais a cada operação, de forma que uma
+ * mesma instância pode ser compartilhada entre threads.
  *
  * @author figueiredo-lucas
  *
  */
 public class Operacoes {
 
+    /**
+     * Tamanho padrão dos lotes de {@link #salvarEmLote(Collection)} e {@link #atualizarEmLote(Collection)}
+     */
+    public static final int TAMANHO_LOTE = 500;
+
+    /**
+     * Quantidade máxima de parâmetros das PKs em um único <code>DELETE ... WHERE PK IN (...)</code>
+     */
+    public static final int TAMANHO_IN = 1000;
+
+    /**
+     * Tamanho dos blocos na cópia de arquivos dos campos BLOB
+     */
+    public static final int TAMANHO_BUFFER_ARQUIVO = 64 * 1024;
+
+    private static final char SEPARADOR_CHAVE = '\u0000';
+
     protected Operacoes() {
     }
 
-    private PreparedStatement ps;
-
     /**
      * Salva ou Atualiza o objeto passado pelo parâmetro
      *
@@ -51,56 +90,221 @@ public class Operacoes {
      * @throws br.mini.exception.MiniException
      */
     public boolean salvarOuAtualizar(final Object obj) throws MiniException {
-        try {
-            final Class<?> classe = obj.getClass();
-            final Field campoPk = Utils.encontrarCampoPk(classe);
-            campoPk.setAccessible(true);
-            final boolean existePk = campoPk.getAnnotation(Coluna.class).isPk() && campoPk.get(obj) != null;
-            if (existePk) {
-                return atualizar(obj);
-            } else {
-                return salvar(obj);
-            }
-        } catch (IllegalArgumentException | IllegalAccessException ex) {
-            throw new MiniException(Constantes.FALHA_OBTER_CAMPO, ex);
+        final ColunaDescritor pk = EntityMetadata.obter(obj.getClass()).getPk();
+        final boolean existePk = pk != null && pk.getAcessor().obter(obj) != null;
+        if (existePk) {
+            return atualizar(obj);
+        } else {
+            return salvar(obj);
         }
     }
 
     /**
-     * Salva o objeto passado pelo parâmetro
+     * Salva o objeto passado pelo parâmetro. Nas tabelas com escrita adiada, o objeto é apenas enfileirado na
+     * {@link FilaEscrita}.
      *
      * @param obj
      * @return true caso a operação seja bem sucedida, false caso não.
      * @throws br.mini.exception.MiniException
      */
     public boolean salvar(Object obj) throws MiniException {
-        final Connection conn = Connector.getConnection();
+        if (FilaEscrita.isAdiada(EntityMetadata.obter(obj.getClass()))) {
+            FilaEscrita.obter().salvar(obj);
+            return true;
+        }
+        final Sessao sessao = Sessao.abrir();
         try {
-            StringBuilder strInsert = StringCreator.criaInsert(obj);
-            ps = conn.prepareStatement(strInsert.toString());
-            return percorrerClasse(ps, obj, obj.getClass());
-        } catch (SQLException | IllegalAccessException ex) {
-            closeConnException(conn);
+            final boolean persistido = inserir(sessao.getConexao(), obj);
+            sessao.confirmar();
+            return persistido;
+        } catch (SQLException ex) {
+            sessao.desfazer();
             throw new MiniRuntimeException(Constantes.FALHA_PERSISTIR_DADO, ex);
+        } finally {
+            sessao.close();
         }
     }
 
     /**
-     * Atualiza o objeto passado pelo parâmetro
+     * Salva os objetos em lote, com o tamanho de lote padrão
+     *
+     * @param objetos Objetos a serem salvos, de uma ou mais classes
+     * @return quantidade de objetos salvos
+     * @throws MiniException
+     * @see #salvarEmLote(Collection, int)
+     */
+    public int salvarEmLote(Collection<?> objetos) throws MiniException {
+        return salvarEmLote(objetos, TAMANHO_LOTE);
+    }
+
+    /**
+     * Salva os objetos em lote. Os objetos são agrupados por classe, cada classe utiliza um único PreparedStatement
+     * com addBatch/executeBatch, e cada lote é confirmado de uma só vez. As FKs ainda não persistidas são inseridas
+     * individualmente durante o preenchimento do lote, sem interrompê-lo.
+     * <br>
+     * Caso haja uma {@link Transacao} aberta, os lotes participam dela e são confirmados somente ao seu término.
+     *
+     * @param objetos Objetos a serem salvos, de uma ou mais classes
+     * @param tamanhoLote Quantidade de objetos por executeBatch e por commit
+     * @return quantidade de objetos salvos
+     * @throws MiniException
+     */
+    public int salvarEmLote(Collection<?> objetos, int tamanhoLote) throws MiniException {
+        return persistirEmLote(new ArrayList<Object>(objetos), null, tamanhoLote, false, null);
+    }
+
+    /**
+     * Atualiza os objetos em lote, com o tamanho de lote padrão
+     *
+     * @param objetos Objetos a serem atualizados, de uma ou mais classes
+     * @return quantidade de objetos atualizados
+     * @throws MiniException
+     * @see #atualizarEmLote(Collection, int)
+     */
+    public int atualizarEmLote(Collection<?> objetos) throws MiniException {
+        return atualizarEmLote(objetos, TAMANHO_LOTE);
+    }
+
+    /**
+     * Atualiza os objetos em lote, nos mesmos moldes de {@link #salvarEmLote(Collection, int)}. Os objetos são
+     * agrupados pelo UPDATE gerado, já que campos de arquivo nulos não são atualizados.
+     *
+     * @param objetos Objetos a serem atualizados, de uma ou mais classes
+     * @param tamanhoLote Quantidade de objetos por executeBatch e por commit
+     * @return quantidade de objetos atualizados
+     * @throws MiniException
+     */
+    public int atualizarEmLote(Collection<?> objetos, int tamanhoLote) throws MiniException {
+        return persistirEmLote(new ArrayList<Object>(objetos), null, tamanhoLote, true, null);
+    }
+
+    /**
+     * Persiste os objetos em lotes, agrupados pelo SQL gerado
+     *
+     * @param objetos
+     * @param indices Posições dos objetos a serem persistidos ou null para todos
+     * @param tamanhoLote
+     * @param atualizacao true para UPDATE, false para INSERT
+     * @param resultado Resultado a ser populado com a situação de cada objeto ou null
+     * @return quantidade de objetos persistidos
+     * @throws MiniException
+     */
+    private int persistirEmLote(List<?> objetos, List<Integer> indices, int tamanhoLote, boolean atualizacao,
+            ResultadoRelacionamento<?> resultado) throws MiniException {
+        if (tamanhoLote < 1) {
+            throw new IllegalArgumentException("tamanhoLote");
+        }
+        final Map<String, List<Integer>> grupos = new LinkedHashMap<>();
+        final BitSet[] alteradas = new BitSet[objetos.size()];
+        final int quantidade = indices != null ? indices.size() : objetos.size();
+        for (int posicao = 0; posicao < quantidade; posicao++) {
+            final int indice = indices != null ? indices.get(posicao) : posicao;
+            final Object obj = objetos.get(indice);
+            final String sql;
+            if (atualizacao) {
+                final EntityMetadata meta = EntityMetadata.obter(obj.getClass());
+                alteradas[indice] = RastreadorAlteracoes.alteradas(meta, obj);
+                if (alteradas[indice] != null && alteradas[indice].isEmpty()) {
+                    if (resultado != null) {
+                        resultado.registrar(indice, Situacao.ATUALIZADO);
+                    }
+                    continue;
+                }
+                sql = alteradas[indice] != null ? StringCreator.obterUpdateParcial(meta, alteradas[indice])
+                        : StringCreator.obterUpdate(obj);
+            } else {
+                sql = StringCreator.obterInsert(obj);
+            }
+            List<Integer> grupo = grupos.get(sql);
+            if (grupo == null) {
+                grupo = new ArrayList<>();
+                grupos.put(sql, grupo);
+            }
+            grupo.add(indice);
+        }
+        int total = 0;
+        final Sessao sessao = Sessao.abrir();
+        try {
+            final Connection conn = sessao.getConexao();
+            for (Map.Entry<String, List<Integer>> grupo : grupos.entrySet()) {
+                final List<Integer> lista = grupo.getValue();
+                final EntityMetadata meta = EntityMetadata.obter(objetos.get(lista.get(0)).getClass());
+                final boolean identidade = !atualizacao && meta.isIdentidade();
+                try (PreparedStatement ps = identidade
+                        ? conn.prepareStatement(grupo.getKey(), new String[] { meta.getPk().getNome() })
+                        : conn.prepareStatement(grupo.getKey())) {
+                    for (int inicio = 0; inicio < lista.size(); inicio += tamanhoLote) {
+                        final List<Integer> lote = lista.subList(inicio, Math.min(inicio + tamanhoLote, lista.size()));
+                        final int[] contagens;
+                        try (Transacao tx = Transacao.iniciar()) {
+                            for (int indice : lote) {
+                                atribuirParametros(conn, ps, objetos.get(indice), meta, atualizacao,
+                                        alteradas[indice]);
+                                ps.addBatch();
+                            }
+                            contagens = ps.executeBatch();
+                            if (identidade) {
+                                lerChavesGeradas(ps, meta.getPk(), objetos, lote);
+                            }
+                            for (int indice : lote) {
+                                RastreadorAlteracoes.registrarAoConfirmar(sessao, meta, objetos.get(indice));
+                            }
+                            tx.confirmar();
+                        }
+                        if (resultado != null) {
+                            for (int posicao = 0; posicao < lote.size(); posicao++) {
+                                final boolean encontrado = posicao >= contagens.length || contagens[posicao] != 0;
+                                resultado.registrar(lote.get(posicao), !encontrado ? Situacao.NAO_ENCONTRADO
+                                        : atualizacao ? Situacao.ATUALIZADO : Situacao.INSERIDO);
+                            }
+                        }
+                        total += lote.size();
+                    }
+                }
+            }
+            return total;
+        } catch (SQLException ex) {
+            sessao.desfazer();
+            throw new MiniRuntimeException(Constantes.FALHA_PERSISTIR_DADO, ex);
+        } finally {
+            sessao.close();
+        }
+    }
+
+    /**
+     * Atualiza o objeto passado pelo parâmetro. Nas tabelas com escrita adiada, o objeto é apenas enfileirado na
+     * {@link FilaEscrita}.
      *
      * @param obj
      * @return true caso a operação seja bem sucedida, false caso não.
      * @throws br.mini.exception.MiniException
      */
     public boolean atualizar(Object obj) throws MiniException {
-        final Connection conn = Connector.getConnection();
+        final EntityMetadata meta = EntityMetadata.obter(obj.getClass());
+        if (FilaEscrita.isAdiada(meta)) {
+            FilaEscrita.obter().atualizar(obj);
+            return true;
+        }
+        final BitSet alteradas = RastreadorAlteracoes.alteradas(meta, obj);
+        if (alteradas != null && alteradas.isEmpty()) {
+            return true;
+        }
+        final Sessao sessao = Sessao.abrir();
         try {
-            StringBuilder strUpdate = StringCreator.criaUpdate(obj);
-            ps = conn.prepareStatement(strUpdate.toString());
-            return percorrerClasse(ps, obj, obj.getClass());
-        } catch (IllegalArgumentException | IllegalAccessException | SQLException ex) {
-            closeConnException(conn);
+            final Connection conn = sessao.getConexao();
+            try (PreparedStatement ps = conn.prepareStatement(alteradas != null
+                    ? StringCreator.obterUpdateParcial(meta, alteradas) : StringCreator.obterUpdate(obj))) {
+                atribuirParametros(conn, ps, obj, meta, true, alteradas);
+                ps.execute();
+                RastreadorAlteracoes.registrarAoConfirmar(sessao, meta, obj);
+                sessao.confirmar();
+                return true;
+            }
+        } catch (SQLException ex) {
+            sessao.desfazer();
             throw new MiniRuntimeException(Constantes.FALHA_PERSISTIR_DADO, ex);
+        } finally {
+            sessao.close();
         }
     }
 
@@ -112,27 +316,133 @@ public class Operacoes {
      * @throws br.mini.exception.MiniException
      */
     public boolean excluir(Object obj) throws MiniException {
-        final Connection conn = Connector.getConnection();
+        final EntityMetadata meta = EntityMetadata.obter(obj.getClass());
+        if (meta.isTabela() && meta.getTabela().escritaAdiada()) {
+            FilaEscrita.obter().descartar(obj);
+        }
+        final Sessao sessao = Sessao.abrir();
         try {
-            int contPk = 0;
-            StringBuilder strDelete = StringCreator.criaDelete(obj);
-            ps = conn.prepareStatement(strDelete.toString());
-            Class<?> classe = obj.getClass();
-            if (classe.isAnnotationPresent(Tabela.class)) {
-                final Field campoPk = Utils.encontrarCampoPk(classe);
-                campoPk.setAccessible(true);
-                atribuirValorPreparedStatement(ps, campoPk, obj, contPk);
-                ps.execute();
-                conn.commit();
-                return true;
+            final Connection conn = sessao.getConexao();
+            try (PreparedStatement ps = conn.prepareStatement(StringCreator.obterDelete(obj))) {
+                int contPk = 0;
+                if (meta.isTabela()) {
+                    for (ColunaDescritor pk : meta.getPks()) {
+                        atribuirValorPreparedStatement(conn, ps, meta, pk, obj, contPk++);
+                    }
+                    ps.execute();
+                    sessao.confirmar();
+                    return true;
+                }
+                throw new MiniException(Constantes.FALHA_ANOTACAO_TABELA);
             }
-            throw new MiniException(Constantes.FALHA_ANOTACAO_TABELA);
-        } catch (SQLException | SecurityException | IllegalArgumentException | IllegalAccessException ex) {
-            closeConnException(conn);
+        } catch (SQLException ex) {
+            sessao.desfazer();
             throw new MiniRuntimeException(Constantes.FALHA_EXCLUIR_DADO, ex);
+        } finally {
+            sessao.close();
+        }
+    }
+
+    /**
+     * Exclui, em um único DELETE, todas as linhas da classe que atendem aos parâmetros e JOINs do critério, sem
+     * carregar as entidades. Após a confirmação, a lista cacheada da classe é invalidada e os retratos das tabelas com
+     * {@link Tabela#rastrearAlteracoes()} são descartados.
+     *
+     * @param classe Classe a ser excluída
+     * @param criterio Critério com os parâmetros a serem utilizados
+     * @return quantidade de linhas excluídas
+     * @throws MiniException
+     */
+    public int excluirPorCriterio(Class<?> classe, Criterio criterio) throws MiniException {
+        final EntityMetadata meta = EntityMetadata.obter(classe);
+        if (!meta.isTabela()) {
+            throw new MiniException(Constantes.FALHA_ANOTACAO_TABELA);
+        }
+        final StringBuilder strDelete = criterio.construirCriterioEmLote(StringCreator.criaDeleteCriterio(meta),
+                classe);
+        return executarPorCriterio(meta, strDelete.toString(), criterio, new LinkedHashMap<ColunaDescritor, Object>(),
+                Constantes.FALHA_EXCLUIR_DADO);
+    }
+
+    /**
+     * Atualiza, em um único UPDATE, as colunas informadas de todas as linhas da classe que atendem aos parâmetros e
+     * JOINs do critério, sem carregar as entidades. Após a confirmação, a lista cacheada da classe é invalidada e os
+     * retratos das tabelas com {@link Tabela#rastrearAlteracoes()} são descartados.
+     *
+     * @param classe Classe a ser atualizada
+     * @param valores Novos valores, indexados pelo nome da coluna como nos parâmetros do critério
+     * @param criterio Critério com os parâmetros a serem utilizados
+     * @return quantidade de linhas atualizadas
+     * @throws MiniException
+     */
+    public int atualizarPorCriterio(Class<?> classe, Map<String, Object> valores, Criterio criterio)
+            throws MiniException {
+        final EntityMetadata meta = EntityMetadata.obter(classe);
+        if (!meta.isTabela()) {
+            throw new MiniException(Constantes.FALHA_ANOTACAO_TABELA);
+        }
+        if (valores.isEmpty()) {
+            throw new MiniException(Constantes.ATUALIZACAO_SEM_VALORES);
+        }
+        final Map<ColunaDescritor, Object> porColuna = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> valor : valores.entrySet()) {
+            porColuna.put(obterColuna(meta, valor.getKey()), valor.getValue());
+        }
+        final StringBuilder strUpdate = criterio.construirCriterioEmLote(
+                StringCreator.criaUpdateCriterio(meta, new ArrayList<>(porColuna.keySet())), classe);
+        return executarPorCriterio(meta, strUpdate.toString(), criterio, porColuna, Constantes.FALHA_PERSISTIR_DADO);
+    }
+
+    private int executarPorCriterio(final EntityMetadata meta, String sql, Criterio criterio,
+            Map<ColunaDescritor, Object> valores, String falha) throws MiniException {
+        // As escritas adiadas pendentes são gravadas antes, para que não sejam aplicadas sobre o resultado do comando
+        if (FilaEscrita.isAdiada(meta)) {
+            FilaEscrita.obter().descarregar();
+        }
+        if (Connector.showSql) {
+            System.out.println(sql);
+        }
+        final Sessao sessao = Sessao.abrir();
+        try {
+            final Connection conn = sessao.getConexao();
+            final int afetadas;
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                int indice = 0;
+                for (Map.Entry<ColunaDescritor, Object> valor : valores.entrySet()) {
+                    atribuirValor(conn, ps, meta, valor.getKey(), valor.getValue(), indice++);
+                }
+                criterio.atribuirValoresPorCondicao(ps, indice + 1);
+                afetadas = ps.executeUpdate();
+            }
+            sessao.aoConfirmar(new Runnable() {
+
+                @Override
+                public void run() {
+                    Pooling.EntityCache.invalidar(meta.getClasse());
+                    if (RastreadorAlteracoes.isRastreada(meta)) {
+                        RastreadorAlteracoes.descartar(meta.getClasse());
+                    }
+                }
+            });
+            sessao.confirmar();
+            return afetadas;
+        } catch (SQLException ex) {
+            sessao.desfazer();
+            throw new MiniRuntimeException(falha, ex);
+        } finally {
+            sessao.close();
         }
     }
 
+    private static ColunaDescritor obterColuna(EntityMetadata meta, String nome) throws MiniException {
+        for (ColunaDescritor col : meta.getColunas()) {
+            if (col.getNome().equalsIgnoreCase(nome)) {
+                return col;
+            }
+        }
+        throw new MiniException(Constantes.COLUNA_INEXISTENTE + nome);
+    }
+
     /**
      * Processa os valores do dado {@link StringCreator} com seus parâmetros definidos
      *
@@ -143,9 +453,10 @@ public class Operacoes {
      * @throws MiniException
      */
     public <T> List<T> processarValores(Class<T> classe, Criterio criterio) throws MiniException {
-        final Connection conn = Connector.getConnection();
+        final Sessao sessao = Sessao.abrir();
         try {
-            StringBuilder strSelect = StringCreator.criaSelect(classe);
+            final Connection conn = sessao.getConexaoLeitura();
+            StringBuilder strSelect = new StringBuilder(StringCreator.obterSelect(classe));
             if (criterio.getCondicao() != null) {
                 strSelect.append(" ").append(criterio.getCondicao());
             } else {
@@ -154,37 +465,39 @@ public class Operacoes {
                     System.out.println(strSelect.toString());
                 }
 
-                ps = conn.prepareStatement(strSelect.toString());
-                criterio.atribuirValoresPorCondicao(ps);
-                if (criterio.getQtdMaxima() > 0) {
-                    ps.setMaxRows(criterio.getQtdMaxima());
+                try (PreparedStatement ps = conn.prepareStatement(strSelect.toString())) {
+                    criterio.atribuirValoresPorCondicao(ps);
+                    if (criterio.getQtdMaxima() > 0) {
+                        ps.setMaxRows(criterio.getQtdMaxima());
+                    }
+                    return obterLista(conn, ps, classe, Boolean.FALSE);
                 }
-                return obterLista(classe, Boolean.FALSE);
             }
-            return encontrar(classe, strSelect);
+            return encontrar(conn, classe, strSelect, new Pooling.QueryCache());
         } catch (SQLException ex) {
-            closeConnException(conn);
+            sessao.desfazer();
             throw new MiniRuntimeException(Constantes.FALHA_OBTER_LISTA, ex);
         } finally {
-            Pooling.QueryCache.limparMapa();
+            sessao.close();
         }
     }
 
-    private <T> List<T> obterLista(final Class<T> classe, final Boolean isUnion) throws MiniException,
-            SQLException {
+    private <T> List<T> obterLista(final Connection conn, final PreparedStatement ps, final Class<T> classe,
+            final Boolean isUnion) throws MiniException, SQLException {
         final List<T> valores = new ArrayList<>();
-        final ResultSet rs = ps.executeQuery();
-        while (rs.next()) {
-            final T obj;
-            if (isUnion) {
-                obj = populaObjetoUnion(classe, rs);
-            } else {
-                obj = populaObjeto(classe, rs);
+        final Pooling.QueryCache cache = new Pooling.QueryCache();
+        try (ResultSet rs = ps.executeQuery()) {
+            final int[] ordinais = resolverOrdinais(EntityMetadata.obter(classe), rs, isUnion);
+            while (rs.next()) {
+                final T obj;
+                if (isUnion) {
+                    obj = populaObjetoUnion(classe, rs, ordinais);
+                } else {
+                    obj = populaObjeto(conn, classe, rs, ordinais, cache);
+                }
+                valores.add(obj);
             }
-            valores.add(obj);
         }
-        ps.getResultSet().close();
-        ps.close();
         return valores;
     }
 
@@ -198,26 +511,29 @@ public class Operacoes {
      * @throws MiniException
      */
     public <T> List<T> processarPseudoClasse(Class<T> classe, Criterio criterio) throws MiniException {
-        final Connection conn = Connector.getConnection();
+        final Sessao sessao = Sessao.abrir();
         try {
-            StringBuilder strSelect = StringCreator.criaSelectUnion(classe);
+            final Connection conn = sessao.getConexaoLeitura();
+            StringBuilder strSelect = new StringBuilder(StringCreator.obterSelectUnion(classe));
             if (criterio.getCondicao() != null) {
                 strSelect.append(" ").append(criterio.getCondicao());
-                ps = conn.prepareStatement(strSelect.toString());
             } else {
                 criterio.construirCriterioUnion(strSelect, classe);
                 if (Connector.showSql) {
                     System.out.println(strSelect.toString());
                 }
-                ps = conn.prepareStatement(strSelect.toString());
-                criterio.atribuirValoresPorCondicao(ps);
             }
-            return obterLista(classe, Boolean.TRUE);
+            try (PreparedStatement ps = conn.prepareStatement(strSelect.toString())) {
+                if (criterio.getCondicao() == null) {
+                    criterio.atribuirValoresPorCondicao(ps);
+                }
+                return obterLista(conn, ps, classe, Boolean.TRUE);
+            }
         } catch (SQLException ex) {
-            closeConnException(conn);
+            sessao.desfazer();
             throw new MiniRuntimeException(Constantes.FALHA_OBTER_LISTA, ex);
         } finally {
-            Pooling.QueryCache.limparMapa();
+            sessao.close();
         }
     }
 
@@ -232,25 +548,29 @@ public class Operacoes {
      * @throws MiniException
      */
     public <T> Integer processarCount(Class<T> classe, Criterio criterio) throws MiniException {
-        final Connection conn = Connector.getConnection();
+        final Sessao sessao = Sessao.abrir();
         Integer total = 0;
         try {
-            StringBuilder strSelect = criterio.construirCriterio(StringCreator.criaCount(classe), classe);
+            final Connection conn = sessao.getConexaoLeitura();
+            StringBuilder strSelect = criterio.construirCriterio(new StringBuilder(StringCreator.obterCount(classe)),
+                    classe);
             if (Connector.showSql) {
                 System.out.println(strSelect.toString());
             }
-            ps = conn.prepareStatement(strSelect.toString());
-            criterio.atribuirValoresPorCondicao(ps);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                total = rs.getInt("TOTAL");
+            try (PreparedStatement ps = conn.prepareStatement(strSelect.toString())) {
+                criterio.atribuirValoresPorCondicao(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        total = rs.getInt("TOTAL");
+                    }
+                }
             }
-            ps.getResultSet().close();
-            ps.close();
             return total;
         } catch (SQLException ex) {
-            closeConnException(conn);
+            sessao.desfazer();
             throw new MiniRuntimeException(Constantes.FALHA_OBTER_COUNT, ex);
+        } finally {
+            sessao.close();
         }
     }
 
@@ -267,9 +587,10 @@ public class Operacoes {
      */
     public <T> List<T> processarValoresPaginados(Class<T> classe, Criterio criterio, int rownumDe, int rownumAte)
             throws MiniException {
-        final Connection conn = Connector.getConnection();
+        final Sessao sessao = Sessao.abrir();
         try {
-            StringBuilder strSelect = StringCreator.criaSelect(classe);
+            final Connection conn = sessao.getConexaoLeitura();
+            StringBuilder strSelect = new StringBuilder(StringCreator.obterSelect(classe));
             if (criterio.getCondicao() != null) {
                 strSelect.append(" ").append(criterio.getCondicao());
             } else {
@@ -277,16 +598,17 @@ public class Operacoes {
                 if (Connector.showSql) {
                     System.out.println(strSelect.toString());
                 }
-                ps = conn.prepareStatement(strSelect.toString());
-                criterio.atribuirValoresPorCondicao(ps);
-                return obterLista(classe, Boolean.FALSE);
+                try (PreparedStatement ps = conn.prepareStatement(strSelect.toString())) {
+                    criterio.atribuirValoresPorCondicao(ps);
+                    return obterLista(conn, ps, classe, Boolean.FALSE);
+                }
             }
-            return encontrar(classe, strSelect);
+            return encontrar(conn, classe, strSelect, new Pooling.QueryCache());
         } catch (final SQLException ex) {
-            closeConnException(conn);
+            sessao.desfazer();
             throw new MiniRuntimeException(Constantes.FALHA_OBTER_LISTA, ex);
         } finally {
-            Pooling.QueryCache.limparMapa();
+            sessao.close();
         }
     }
 
@@ -300,23 +622,22 @@ public class Operacoes {
      * @throws MiniException
      */
     public <T> List<T> encontrarTodos(final Class<T> classe) throws MiniException {
-        final Connection conn = Connector.getConnection();
-        if (classe.getAnnotation(Tabela.class).cacheable() && Pooling.EntityCache.existeNaLista(classe)) {
+        final EntityMetadata meta = EntityMetadata.obter(classe);
+        if (meta.getTabela().cacheable() && Pooling.EntityCache.existeNaLista(classe)) {
             return Pooling.EntityCache.obterListaPorClasse(classe);
         }
-        StringBuilder strSelect = StringCreator.criaSelect(classe);
-        if (Utils.Clobs.existeClob(classe)) {
-            strSelect = StringCreator.criaSelectClob(classe, strSelect);
-        }
+        StringBuilder strSelect = new StringBuilder(StringCreator.obterSelectComClob(classe));
+        final Sessao sessao = Sessao.abrir();
         try {
-            final List<T> valores = encontrar(classe, strSelect);
+            final Connection conn = sessao.getConexaoLeitura();
+            final List<T> valores = encontrar(conn, classe, strSelect, new Pooling.QueryCache());
             Pooling.EntityCache.adicionarListaCache(classe, valores);
             return valores;
         } catch (Exception ex) {
-            closeConnException(conn);
+            sessao.desfazer();
             throw new MiniRuntimeException(Constantes.FALHA_OBTER_LISTA, ex);
         } finally {
-            Pooling.QueryCache.limparMapa();
+            sessao.close();
         }
     }
 
@@ -331,45 +652,28 @@ public class Operacoes {
      * @throws MiniException
      */
     public <T> T encontrarPorPK(Class<T> classe, String... pks) throws MiniException {
-        final ResultSet rs;
-        final PreparedStatement pStmt;
-        final Connection conn = Connector.getConnection();
+        final Sessao sessao = Sessao.abrir();
         try {
-            StringBuilder sb = StringCreator.criaSelectComPk(classe);
-            pStmt = conn.prepareStatement(sb.toString());
-            atribuirValorPkPreparedStatement(pStmt, pks);
-            rs = pStmt.executeQuery();
-            if (rs.next()) {
-                T obj = populaObjeto(classe, rs);
-                return obj;
-            }
-            pStmt.getResultSet().close();
-            pStmt.close();
-            return null;
+            final Connection conn = sessao.getConexaoLeitura();
+            return encontrarSubClasses(conn, classe, new Pooling.QueryCache(), pks);
         } catch (SQLException ex) {
-            closeConnException(conn);
+            sessao.desfazer();
             throw new MiniRuntimeException(Constantes.FALHA_OBTER_OBJETO, ex);
+        } finally {
+            sessao.close();
         }
     }
 
-    private <T> T encontrarSubClasses(Class<T> classe, String... pks) throws MiniException {
-        final ResultSet rs;
-        final PreparedStatement pStmt;
-        final Connection conn = Connector.getConnection();
-        try {
-            StringBuilder sb = StringCreator.criaSelectComPk(classe);
-            pStmt = conn.prepareStatement(sb.toString());
+    private <T> T encontrarSubClasses(Connection conn, Class<T> classe, Pooling.QueryCache cache, String... pks)
+            throws MiniException, SQLException {
+        try (PreparedStatement pStmt = conn.prepareStatement(StringCreator.obterSelectComPk(classe))) {
             atribuirValorPkPreparedStatement(pStmt, pks);
-            rs = pStmt.executeQuery();
-            if (rs.next()) {
-                T obj = populaObjeto(classe, rs);
-                return obj;
+            try (ResultSet rs = pStmt.executeQuery()) {
+                if (rs.next()) {
+                    return populaObjeto(conn, classe, rs, resolverOrdinais(EntityMetadata.obter(classe), rs, false),
+                            cache);
+                }
             }
-            pStmt.getResultSet().close();
-            pStmt.close();
-        } catch (SQLException ex) {
-            closeConnException(conn);
-            throw new MiniException(Constantes.FALHA_OBTER_OBJETO, ex);
         }
         return null;
     }
@@ -378,17 +682,19 @@ public class Operacoes {
      * Executa uma consulta genérica.
      *
      * @param query
-     * @return ResultSet com os valores ou nulo caso ocorra um erro.
+     * @return ResultSet com os valores ou nulo caso ocorra um erro. A conexão é liberada ao final da {@link Sessao},
+     *         portanto o ResultSet deve ser percorrido dentro de uma sessão aberta explicitamente.
      * @throws MiniException
      */
     public ResultSet executarConsulta(String query) throws MiniException {
-        final Connection conn = Connector.getConnection();
+        final Sessao sessao = Sessao.abrir();
         try {
+            final Connection conn = sessao.getConexao();
             return Connector.executar(query, conn);
         } catch (SQLException ex) {
             throw new MiniException(ex);
         } finally {
-            closeConnException(conn);
+            sessao.close();
         }
     }
 
@@ -398,81 +704,576 @@ public class Operacoes {
      *
      * @param query query a ser rodada
      * @param parametros parametros da query
-     * @return ResultSet com os valores ou nulo caso ocorra um erro.
+     * @return ResultSet com os valores ou nulo caso ocorra um erro. A conexão é liberada ao final da {@link Sessao},
+     *         portanto o ResultSet deve ser percorrido dentro de uma sessão aberta explicitamente.
      * @throws MiniException
      */
     public ResultSet executarConsulta(String query, List<Object> parametros) throws MiniException {
-        final Connection conn = Connector.getConnection();
+        final Sessao sessao = Sessao.abrir();
         try {
+            final Connection conn = sessao.getConexao();
             return Connector.executar(query, parametros, conn);
         } catch (SQLException ex) {
             throw new MiniException(ex);
         } finally {
-            closeConnException(conn);
+            sessao.close();
         }
     }
 
     /**
-     * Método para salvar dados de uma lista <b>N:M</b>
+     * Método para salvar dados de uma lista <b>N:M</b>, em uma única {@link Transacao}. Os elementos sem PK são
+     * inseridos e os demais atualizados, em lotes de {@link #TAMANHO_LOTE} por classe.
      *
      * @param <T>
      * @param <Z>
      * @param obj Lista a ser persistida
-     * @return true caso a persistencia seja bem sucedida, false caso haja erro
+     * @return situação de cada elemento da lista
      * @throws br.mini.exception.MiniException
      */
-    public <T extends Collection<Z>, Z> boolean salvarRelacionamento(T obj) throws MiniException {
-        for (Z val : obj) {
-            if (!salvarOuAtualizar(val)) {
-                return false;
+    public <T extends Collection<Z>, Z> ResultadoRelacionamento<Z> salvarRelacionamento(T obj) throws MiniException {
+        final ResultadoRelacionamento<Z> resultado = new ResultadoRelacionamento<>(obj);
+        final List<Z> elementos = resultado.getElementos();
+        final List<Integer> novos = new ArrayList<>();
+        final List<Integer> existentes = new ArrayList<>();
+        for (int indice = 0; indice < elementos.size(); indice++) {
+            final ColunaDescritor pk = EntityMetadata.obter(elementos.get(indice).getClass()).getPk();
+            if (pk != null && pk.getAcessor().obter(elementos.get(indice)) != null) {
+                existentes.add(indice);
+            } else {
+                novos.add(indice);
             }
         }
-        return true;
+        try (Transacao tx = Transacao.iniciar()) {
+            persistirEmLote(elementos, novos, TAMANHO_LOTE, false, resultado);
+            persistirEmLote(elementos, existentes, TAMANHO_LOTE, true, resultado);
+            tx.confirmar();
+        }
+        return resultado;
     }
 
     /**
-     * Método para remover dados de uma lista <b>N:M</b>
+     * Método para remover dados de uma lista <b>N:M</b>, em uma única {@link Transacao}. Os elementos são removidos
+     * com <code>DELETE ... WHERE PK IN (...)</code>, em blocos de até {@link #TAMANHO_IN} parâmetros por classe.
      *
      * @param <T>
      * @param <Z>
      * @param obj Lista a ser removida
-     * @return true caso a remoção seja bem sucedida, false caso haja erro
+     * @return situação de cada elemento da lista
      * @throws br.mini.exception.MiniException
      */
-    public <T extends Collection<Z>, Z> boolean removerRelacionamento(T obj) throws MiniException {
-        for (Z val : obj) {
-            if (!excluir(val)) {
-                return false;
+    public <T extends Collection<Z>, Z> ResultadoRelacionamento<Z> removerRelacionamento(T obj) throws MiniException {
+        final ResultadoRelacionamento<Z> resultado = new ResultadoRelacionamento<>(obj);
+        final List<Z> elementos = resultado.getElementos();
+        final Map<Class<?>, List<Integer>> grupos = new LinkedHashMap<>();
+        for (int indice = 0; indice < elementos.size(); indice++) {
+            final Class<?> classe = elementos.get(indice).getClass();
+            List<Integer> grupo = grupos.get(classe);
+            if (grupo == null) {
+                grupo = new ArrayList<>();
+                grupos.put(classe, grupo);
             }
+            grupo.add(indice);
         }
-        return true;
+        final Sessao sessao = Sessao.abrir();
+        try (Transacao tx = Transacao.iniciar()) {
+            final Connection conn = sessao.getConexao();
+            for (Map.Entry<Class<?>, List<Integer>> grupo : grupos.entrySet()) {
+                final EntityMetadata meta = EntityMetadata.obter(grupo.getKey());
+                if (!meta.isTabela() || meta.getPks().isEmpty()) {
+                    throw new MiniException(Constantes.FALHA_ANOTACAO_TABELA);
+                }
+                final List<Integer> lista = new ArrayList<>();
+                for (int indice : grupo.getValue()) {
+                    if (chave(meta, elementos.get(indice)) != null) {
+                        lista.add(indice);
+                    } else {
+                        resultado.registrar(indice, Situacao.NAO_ENCONTRADO);
+                    }
+                }
+                final int tamanho = TAMANHO_IN / meta.getPks().size();
+                for (int inicio = 0; inicio < lista.size(); inicio += tamanho) {
+                    excluirEmBloco(conn, meta, elementos, lista.subList(inicio,
+                            Math.min(inicio + tamanho, lista.size())), resultado);
+                }
+            }
+            tx.confirmar();
+        } catch (SQLException ex) {
+            sessao.desfazer();
+            throw new MiniRuntimeException(Constantes.FALHA_EXCLUIR_DADO, ex);
+        } finally {
+            sessao.close();
+        }
+        return resultado;
+    }
+
+    /**
+     * Exclui um bloco de elementos da mesma classe com um único DELETE, registrando como não encontrados os elementos
+     * cujas PKs não existiam
+     */
+    private void excluirEmBloco(Connection conn, EntityMetadata meta, List<?> elementos, List<Integer> bloco,
+            ResultadoRelacionamento<?> resultado) throws SQLException, MiniException {
+        final Set<String> existentes = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                StringCreator.obterSelectPksEmLote(meta.getClasse(), bloco.size()))) {
+            atribuirPks(conn, ps, meta, elementos, bloco);
+            try (ResultSet rs = ps.executeQuery()) {
+                final StringBuilder sb = new StringBuilder();
+                while (rs.next()) {
+                    sb.setLength(0);
+                    for (int coluna = 1; coluna <= meta.getPks().size(); coluna++) {
+                        final String valor = rs.getString(coluna);
+                        sb.append(valor != null ? valor.trim() : null).append(SEPARADOR_CHAVE);
+                    }
+                    existentes.add(sb.toString());
+                }
+            }
+        }
+        if (!existentes.isEmpty()) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    StringCreator.obterDeleteEmLote(meta.getClasse(), bloco.size()))) {
+                atribuirPks(conn, ps, meta, elementos, bloco);
+                ps.executeUpdate();
+            }
+        }
+        for (int indice : bloco) {
+            resultado.registrar(indice, existentes.contains(chave(meta, elementos.get(indice)))
+                    ? Situacao.EXCLUIDO : Situacao.NAO_ENCONTRADO);
+        }
+    }
+
+    /**
+     * Atribui as PKs do bloco, repetindo as da última linha nas posições excedentes do SQL arredondado por
+     * {@link StringCreator#arredondarLote}
+     */
+    private void atribuirPks(Connection conn, PreparedStatement ps, EntityMetadata meta, List<?> elementos,
+            List<Integer> bloco) throws SQLException, MiniException {
+        final int linhas = StringCreator.arredondarLote(meta, bloco.size());
+        int parametro = 0;
+        for (int linha = 0; linha < linhas; linha++) {
+            final Object elemento = elementos.get(bloco.get(Math.min(linha, bloco.size() - 1)));
+            for (ColunaDescritor pk : meta.getPks()) {
+                atribuirValorPreparedStatement(conn, ps, meta, pk, elemento, parametro++);
+            }
+        }
+    }
+
+    /**
+     * Chave textual do elemento, composta pelos valores das suas PKs. As PKs que são FKs utilizam a PK da entidade
+     * referenciada.
+     *
+     * @return chave ou null caso alguma PK não esteja preenchida
+     */
+    private static String chave(EntityMetadata meta, Object obj) throws MiniException {
+        final StringBuilder sb = new StringBuilder();
+        for (ColunaDescritor pk : meta.getPks()) {
+            Object valor = pk.getAcessor().obter(obj);
+            if (valor != null && pk.isFk()) {
+                final ColunaDescritor pkReferencia = EntityMetadata.obter(valor.getClass()).getPk();
+                valor = pkReferencia != null ? pkReferencia.getAcessor().obter(valor) : null;
+            }
+            if (valor == null) {
+                return null;
+            }
+            sb.append(String.valueOf(valor).trim()).append(SEPARADOR_CHAVE);
+        }
+        return sb.toString();
     }
 
     /**
-     * Método responsável por obter o arquivo de um campo BLOB do banco
+     * Método responsável por obter o arquivo de um campo BLOB do banco.
+     * <br>
+     * O stream é lido diretamente do banco: a conexão permanece em uso até o seu fechamento, que é responsabilidade do
+     * chamador e deve ocorrer na mesma thread.
+     *
+     * <pre>
+     * try (InputStream arquivo = operacoes.buscarArquivo(Documento.class, "BL_CONTEUDO", pk)) {
+     *     ...
+     * }
+     * </pre>
      *
      * @param classe Classe a ser buscada
      * @param nomeCampo Nome do campo com o arquivo
      * @param pk PK da tabela referenciada na classe
-     * @return Arquivo encontrado
+     * @return Arquivo encontrado ou null caso não exista
      * @throws MiniException
      */
     public InputStream buscarArquivo(Class<?> classe, String nomeCampo, String pk) throws MiniException {
-        final Connection conn = Connector.getConnection();
+        return abrirArquivo(StringCreator.criaSelectPkArquivo(classe, nomeCampo).toString(), pk);
+    }
+
+    /**
+     * Abre o conteúdo de um campo {@link Lob} de BLOB, conforme {@link #buscarArquivo(Class, String, String)}
+     *
+     * @param lob Referência ao BLOB
+     * @return conteúdo do BLOB ou null caso não exista
+     * @throws MiniException
+     */
+    InputStream abrirArquivo(Lob lob) throws MiniException {
+        return abrirArquivo(StringCreator.obterSelectLob(EntityMetadata.obter(lob.getClasse()), lob.getColuna()),
+                lob.getPks());
+    }
+
+    private InputStream abrirArquivo(String sql, String... pks) throws MiniException {
+        final Sessao sessao = Sessao.abrir();
+        PreparedStatement pStatement = null;
+        ResultSet rs = null;
+        boolean transferido = false;
         try {
-            StringBuilder sb = StringCreator.criaSelectPkArquivo(classe, nomeCampo);
-            PreparedStatement pStatement = conn.prepareStatement(sb.toString());
-            atribuirValorPkPreparedStatement(pStatement, pk);
-            ResultSet rs = pStatement.executeQuery();
-            if (rs.next()) {
-                return rs.getBinaryStream(nomeCampo);
+            final Connection conn = sessao.getConexaoLeitura();
+            pStatement = conn.prepareStatement(sql);
+            atribuirValorPkPreparedStatement(pStatement, pks);
+            rs = pStatement.executeQuery();
+            final InputStream arquivo = rs.next() ? rs.getBinaryStream(1) : null;
+            if (arquivo == null) {
+                return null;
             }
-        } catch (Exception ex) {
+            transferido = true;
+            return new FluxoArquivo(arquivo, rs, pStatement, sessao);
+        } catch (SQLException ex) {
             throw new MiniException(Constantes.FALHA_OBTER_OBJETO, ex);
         } finally {
-            closeConnException(conn);
+            if (!transferido) {
+                try {
+                    if (rs != null) {
+                        rs.close();
+                    }
+                    if (pStatement != null) {
+                        pStatement.close();
+                    }
+                } catch (SQLException ex) {
+                    // liberados junto com a conexão
+                } finally {
+                    sessao.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Busca o conteúdo de um campo {@link Lob} de CLOB pela PK
+     *
+     * @param lob Referência ao CLOB
+     * @return conteúdo do CLOB ou null
+     * @throws MiniException
+     */
+    String carregarTexto(Lob lob) throws MiniException {
+        final Sessao sessao = Sessao.abrir();
+        try {
+            final Connection conn = sessao.getConexaoLeitura();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    StringCreator.obterSelectLob(EntityMetadata.obter(lob.getClasse()), lob.getColuna()))) {
+                atribuirValorPkPreparedStatement(ps, lob.getPks());
+                try (ResultSet rs = ps.executeQuery()) {
+                    return rs.next() ? lerTexto(rs, 1, lob.getColuna()) : null;
+                }
+            }
+        } catch (SQLException ex) {
+            throw new MiniException(Constantes.FALHA_CAMPO_CLOB, ex);
+        } finally {
+            sessao.close();
+        }
+    }
+
+    /**
+     * Carrega de uma só vez os campos {@link Lob} de CLOB ainda não carregados dos objetos, com uma consulta por classe
+     * para cada bloco de até {@link #TAMANHO_IN} parâmetros, evitando uma consulta por objeto no primeiro acesso.
+     *
+     * @param objetos
+     * @throws MiniException
+     */
+    public void carregarLobs(Collection<?> objetos) throws MiniException {
+        final Map<Class<?>, Map<String, List<Lob>>> grupos = new LinkedHashMap<>();
+        for (Object obj : objetos) {
+            final EntityMetadata meta = EntityMetadata.obter(obj.getClass());
+            for (ColunaDescritor col : meta.getLazies()) {
+                final Object valor = col.getAcessor().obter(obj);
+                if (!col.isClob() || !(valor instanceof Lob) || ((Lob) valor).isCarregado()) {
+                    continue;
+                }
+                final Lob lob = (Lob) valor;
+                Map<String, List<Lob>> porChave = grupos.get(lob.getClasse());
+                if (porChave == null) {
+                    porChave = new LinkedHashMap<>();
+                    grupos.put(lob.getClasse(), porChave);
+                }
+                final String chave = juntarChave(lob.getPks());
+                List<Lob> lobs = porChave.get(chave);
+                if (lobs == null) {
+                    lobs = new ArrayList<>();
+                    porChave.put(chave, lobs);
+                }
+                lobs.add(lob);
+            }
+        }
+        if (grupos.isEmpty()) {
+            return;
+        }
+        final Sessao sessao = Sessao.abrir();
+        try {
+            final Connection conn = sessao.getConexaoLeitura();
+            for (Map.Entry<Class<?>, Map<String, List<Lob>>> grupo : grupos.entrySet()) {
+                final EntityMetadata meta = EntityMetadata.obter(grupo.getKey());
+                final List<List<Lob>> pendentes = new ArrayList<>(grupo.getValue().values());
+                final int tamanho = TAMANHO_IN / meta.getPks().size();
+                for (int inicio = 0; inicio < pendentes.size(); inicio += tamanho) {
+                    carregarLobsEmBloco(conn, meta, grupo.getValue(),
+                            pendentes.subList(inicio, Math.min(inicio + tamanho, pendentes.size())));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new MiniException(Constantes.FALHA_CAMPO_CLOB, ex);
+        } finally {
+            sessao.close();
+        }
+    }
+
+    private void carregarLobsEmBloco(Connection conn, EntityMetadata meta, Map<String, List<Lob>> porChave,
+            List<List<Lob>> bloco) throws SQLException, MiniException {
+        // O select contém as PKs e as colunas Lob de CLOB, na ordem dos metadados
+        final int[] ordinais = new int[meta.getColunas().size()];
+        int ordinal = 0;
+        for (ColunaDescritor col : meta.getColunas()) {
+            if (col.isPk() || col.isLazy() && col.isClob()) {
+                ordinais[col.getPosicao()] = ++ordinal;
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(StringCreator.obterSelectLobsEmLote(meta, bloco.size()))) {
+            // As linhas excedentes do SQL arredondado repetem a PK da última linha do bloco
+            final int linhas = StringCreator.arredondarLote(meta, bloco.size());
+            int parametro = 1;
+            for (int linha = 0; linha < linhas; linha++) {
+                for (String pk : bloco.get(Math.min(linha, bloco.size() - 1)).get(0).getPks()) {
+                    ps.setString(parametro++, pk);
+                }
+            }
+            final Set<String> encontradas = new HashSet<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                final String[] pks = new String[meta.getPks().size()];
+                while (rs.next()) {
+                    for (int indice = 0; indice < pks.length; indice++) {
+                        pks[indice] = lerPk(rs, ordinais[meta.getPks().get(indice).getPosicao()]);
+                    }
+                    final String chave = juntarChave(pks);
+                    final List<Lob> lobs = porChave.get(chave);
+                    if (lobs == null) {
+                        continue;
+                    }
+                    encontradas.add(chave);
+                    for (Lob lob : lobs) {
+                        if (!lob.isCarregado()) {
+                            lob.carregar(lerTexto(rs, ordinais[lob.getColuna().getPosicao()], lob.getColuna()));
+                        }
+                    }
+                }
+            }
+            // Linhas não encontradas, por exemplo excluídas após a consulta original, não têm conteúdo
+            for (List<Lob> lobs : bloco) {
+                if (!encontradas.contains(juntarChave(lobs.get(0).getPks()))) {
+                    for (Lob lob : lobs) {
+                        lob.carregar(null);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String juntarChave(String... pks) {
+        final StringBuilder sb = new StringBuilder();
+        for (String pk : pks) {
+            sb.append(pk).append(SEPARADOR_CHAVE);
+        }
+        return sb.toString();
+    }
+
+    private static String lerPk(ResultSet rs, int ordinal) throws SQLException {
+        final String valor = rs.getString(ordinal);
+        return valor != null ? valor.trim() : null;
+    }
+
+    private static String lerTexto(ResultSet rs, int ordinal, ColunaDescritor col) throws SQLException, MiniException {
+        final Clob valor = rs.getClob(ordinal);
+        return valor == null ? null : Utils.Clobs.clobToString(valor, col.isTrim());
+    }
+
+    /**
+     * Copia o conteúdo de um campo CLOB do banco para o destino informado, em blocos de
+     * {@link Utils.Clobs#TAMANHO_BUFFER} caracteres, sem mantê-lo inteiro em memória. O conteúdo é copiado sem a
+     * remoção dos espaços das extremidades e o destino não é fechado.
+     *
+     * @param classe Classe a ser buscada
+     * @param nomeCampo Nome do campo CLOB
+     * @param pk PK da tabela referenciada na classe
+     * @param destino Writer de destino, de responsabilidade do chamador
+     * @return quantidade de caracteres copiados ou -1 caso o CLOB não exista
+     * @throws MiniException
+     */
+    public long lerTexto(Class<?> classe, String nomeCampo, String pk, Writer destino) throws MiniException {
+        final Sessao sessao = Sessao.abrir();
+        try {
+            final Connection conn = sessao.getConexaoLeitura();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    StringCreator.criaSelectPkArquivo(classe, nomeCampo).toString())) {
+                atribuirValorPkPreparedStatement(ps, pk);
+                try (ResultSet rs = ps.executeQuery()) {
+                    final Clob valor = rs.next() ? rs.getClob(1) : null;
+                    return valor == null ? -1L : Utils.Clobs.copiar(valor, destino);
+                }
+            }
+        } catch (SQLException ex) {
+            throw new MiniException(Constantes.FALHA_CAMPO_CLOB, ex);
+        } finally {
+            sessao.close();
+        }
+    }
+
+    /**
+     * Copia o arquivo de um campo BLOB do banco para o stream informado, em blocos de {@link #TAMANHO_BUFFER_ARQUIVO}
+     * bytes. O stream de destino não é fechado.
+     *
+     * @param classe Classe a ser buscada
+     * @param nomeCampo Nome do campo com o arquivo
+     * @param pk PK da tabela referenciada na classe
+     * @param destino Stream de destino, de responsabilidade do chamador
+     * @return quantidade de bytes copiados ou -1 caso o arquivo não exista
+     * @throws MiniException
+     */
+    public long lerArquivo(Class<?> classe, String nomeCampo, String pk, OutputStream destino) throws MiniException {
+        try (InputStream arquivo = buscarArquivo(classe, nomeCampo, pk)) {
+            if (arquivo == null) {
+                return -1L;
+            }
+            final byte[] buffer = new byte[TAMANHO_BUFFER_ARQUIVO];
+            long total = 0L;
+            int lidos;
+            while ((lidos = arquivo.read(buffer)) != -1) {
+                destino.write(buffer, 0, lidos);
+                total += lidos;
+            }
+            return total;
+        } catch (IOException ex) {
+            throw new MiniException(Constantes.FALHA_TRANSFERIR_ARQUIVO, ex);
+        }
+    }
+
+    /**
+     * Copia o arquivo de um campo BLOB do banco para o canal informado, em blocos de {@link #TAMANHO_BUFFER_ARQUIVO}
+     * bytes. O canal de destino não é fechado.
+     *
+     * @param classe Classe a ser buscada
+     * @param nomeCampo Nome do campo com o arquivo
+     * @param pk PK da tabela referenciada na classe
+     * @param destino Canal de destino, de responsabilidade do chamador
+     * @return quantidade de bytes copiados ou -1 caso o arquivo não exista
+     * @throws MiniException
+     */
+    public long lerArquivo(Class<?> classe, String nomeCampo, String pk, WritableByteChannel destino)
+            throws MiniException {
+        try (InputStream arquivo = buscarArquivo(classe, nomeCampo, pk)) {
+            if (arquivo == null) {
+                return -1L;
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER_ARQUIVO);
+            long total = 0L;
+            int lidos;
+            while ((lidos = arquivo.read(buffer.array())) != -1) {
+                buffer.clear().limit(lidos);
+                while (buffer.hasRemaining()) {
+                    destino.write(buffer);
+                }
+                total += lidos;
+            }
+            return total;
+        } catch (IOException ex) {
+            throw new MiniException(Constantes.FALHA_TRANSFERIR_ARQUIVO, ex);
+        }
+    }
+
+    /**
+     * Copia o arquivo de um campo BLOB do banco para um arquivo local através de um {@link FileChannel}, substituindo
+     * o seu conteúdo
+     *
+     * @param classe Classe a ser buscada
+     * @param nomeCampo Nome do campo com o arquivo
+     * @param pk PK da tabela referenciada na classe
+     * @param destino Caminho do arquivo local
+     * @return quantidade de bytes copiados ou -1 caso o arquivo não exista, mantendo o arquivo local inalterado
+     * @throws MiniException
+     */
+    public long lerArquivo(Class<?> classe, String nomeCampo, String pk, Path destino) throws MiniException {
+        try (InputStream arquivo = buscarArquivo(classe, nomeCampo, pk)) {
+            if (arquivo == null) {
+                return -1L;
+            }
+            try (FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ReadableByteChannel origem = Channels.newChannel(arquivo);
+                long total = 0L;
+                long transferidos;
+                while ((transferidos = canal.transferFrom(origem, total, TAMANHO_BUFFER_ARQUIVO)) > 0) {
+                    total += transferidos;
+                }
+                return total;
+            }
+        } catch (IOException ex) {
+            throw new MiniException(Constantes.FALHA_TRANSFERIR_ARQUIVO, ex);
+        }
+    }
+
+    /**
+     * Grava o arquivo de um campo BLOB a partir do canal informado, com tamanho conhecido, permitindo ao driver enviar
+     * o conteúdo sem copiá-lo para a memória. O canal de origem não é fechado.
+     *
+     * @param classe Classe a ser atualizada
+     * @param nomeCampo Nome do campo com o arquivo
+     * @param pk PK da tabela referenciada na classe
+     * @param origem Canal de origem, de responsabilidade do chamador
+     * @param tamanho Quantidade de bytes a serem lidos do canal
+     * @return true caso o registro exista, false caso não
+     * @throws MiniException
+     */
+    public boolean gravarArquivo(Class<?> classe, String nomeCampo, String pk, ReadableByteChannel origem,
+            long tamanho) throws MiniException {
+        final Sessao sessao = Sessao.abrir();
+        try {
+            final Connection conn = sessao.getConexao();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    StringCreator.criaUpdatePkArquivo(classe, nomeCampo).toString())) {
+                ps.setBinaryStream(1, new FilterInputStream(Channels.newInputStream(origem)) {
+
+                    @Override
+                    public void close() {
+                        // o canal pertence ao chamador
+                    }
+                }, tamanho);
+                ps.setString(2, pk);
+                final boolean gravado = ps.executeUpdate() > 0;
+                sessao.confirmar();
+                return gravado;
+            }
+        } catch (SQLException ex) {
+            sessao.desfazer();
+            throw new MiniRuntimeException(Constantes.FALHA_PERSISTIR_DADO, ex);
+        } finally {
+            sessao.close();
+        }
+    }
+
+    /**
+     * Grava o arquivo de um campo BLOB a partir de um arquivo local, lido através de um {@link FileChannel}
+     *
+     * @param classe Classe a ser atualizada
+     * @param nomeCampo Nome do campo com o arquivo
+     * @param pk PK da tabela referenciada na classe
+     * @param origem Caminho do arquivo local
+     * @return true caso o registro exista, false caso não
+     * @throws MiniException
+     */
+    public boolean gravarArquivo(Class<?> classe, String nomeCampo, String pk, Path origem) throws MiniException {
+        try (FileChannel canal = FileChannel.open(origem, StandardOpenOption.READ)) {
+            return gravarArquivo(classe, nomeCampo, pk, canal, canal.size());
+        } catch (IOException ex) {
+            throw new MiniException(Constantes.FALHA_TRANSFERIR_ARQUIVO, ex);
         }
-        return null;
     }
 
     /**
@@ -484,59 +1285,66 @@ public class Operacoes {
      * @return Lista de dados encontrados
      * @throws MiniException
      */
-    private <T> List<T> encontrar(Class<T> classe, StringBuilder strSelect) throws MiniException {
-        final Connection conn = Connector.getConnection();
+    private <T> List<T> encontrar(Connection conn, Class<T> classe, StringBuilder strSelect,
+            Pooling.QueryCache cache) throws MiniException {
         final List<T> classList = new ArrayList<>();
-        final Statement stmt;
-        final ResultSet rs;
-        try {
-            stmt = conn.createStatement();
-            rs = stmt.executeQuery(strSelect.toString());
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(strSelect.toString())) {
+            final int[] ordinais = resolverOrdinais(EntityMetadata.obter(classe), rs, false);
             while (rs.next()) {
-                T obj = populaObjeto(classe, rs);
+                T obj = populaObjeto(conn, classe, rs, ordinais, cache);
                 classList.add(obj);
             }
-            rs.close();
-            stmt.close();
             return classList;
         } catch (SQLException sqle) {
-            closeConnException(conn);
             throw new MiniException(sqle);
         }
     }
 
     /**
-     * Popula o objeto com os dados da linha atual do ResultSet
+     * Popula o objeto com os dados da linha atual do ResultSet. Com o {@link Mapeador} gerado, a linha é lida em
+     * sequência pelo próprio mapeador; caso contrário, coluna a coluna pelos {@link br.mini.Leitor}.
      *
      * @param classe
      * @param rs
+     * @param ordinais Posições das colunas no ResultSet, obtidas por {@link #resolverOrdinais}
+     * @param cache Cache das FKs da operação
      * @return
-     * @throws InstantiationException
-     * @throws IllegalAccessException
-     * @throws SQLException
      * @throws MiniException
-     * @throws IllegalArgumentException
      */
-    private <T> T populaObjeto(Class<T> classe, ResultSet rs) throws MiniException {
+    private <T> T populaObjeto(Connection conn, Class<T> classe, ResultSet rs, int[] ordinais,
+            Pooling.QueryCache cache) throws MiniException {
         try {
-            Coluna col;
-            Object dado;
-            T obj = classe.newInstance();
-            for (Field campo : classe.getDeclaredFields()) {
-                campo.setAccessible(true);
-                if (campo.isAnnotationPresent(Coluna.class) && !InputStream.class.isAssignableFrom(campo.getType())) {
-                    col = campo.getAnnotation(Coluna.class);
-                    dado = rs.getObject(col.nome());
-                    if (col.isFk() && dado != null) {
-                        campo.set(obj, buscarValor(campo, dado));
-                    } else {
-                        atribuirVariavel(dado, campo, obj);
+            final EntityMetadata meta = EntityMetadata.obter(classe);
+            final Object[] valores = new Object[ordinais.length];
+            final Mapeador<?> mapeador = meta.getMapeador();
+            if (mapeador != null) {
+                mapeador.ler(rs, ordinais, valores);
+            } else {
+                for (ColunaDescritor col : meta.getColunas()) {
+                    if (!col.isBlob() && !col.isLazy()) {
+                        valores[col.getPosicao()] = col.getLeitor().ler(rs, ordinais[col.getPosicao()]);
                     }
                 }
             }
+            for (ColunaDescritor col : meta.getFks()) {
+                final Object dado = valores[col.getPosicao()];
+                if (dado != null) {
+                    valores[col.getPosicao()] = buscarValor(conn, col.getTipo(), dado, cache);
+                }
+            }
+            if (!meta.getLazies().isEmpty()) {
+                final String[] pks = new String[meta.getPks().size()];
+                for (int indice = 0; indice < pks.length; indice++) {
+                    pks[indice] = lerPk(rs, ordinais[meta.getPks().get(indice).getPosicao()]);
+                }
+                for (ColunaDescritor col : meta.getLazies()) {
+                    valores[col.getPosicao()] = new Lob(classe, col, pks);
+                }
+            }
+            final T obj = classe.cast(meta.hidratar(valores));
+            RastreadorAlteracoes.registrar(meta, obj);
             return obj;
-        } catch (InstantiationException | IllegalAccessException | SecurityException | SQLException
-                | IllegalArgumentException ex) {
+        } catch (SQLException ex) {
             throw new MiniException(Constantes.FALHA_POPULAR_OBJETO, ex);
         }
     }
@@ -546,51 +1354,73 @@ public class Operacoes {
      *
      * @param classe
      * @param rs
+     * @param ordinais Posições das colunas no ResultSet, obtidas por {@link #resolverOrdinais}
      * @return
-     * @throws InstantiationException
-     * @throws IllegalAccessException
-     * @throws SQLException
      * @throws MiniException
-     * @throws IllegalArgumentException
      */
-    private <T> T populaObjetoUnion(Class<T> classe, ResultSet rs) throws MiniException {
+    private <T> T populaObjetoUnion(Class<T> classe, ResultSet rs, int[] ordinais) throws MiniException {
         try {
-            PseudoColuna col;
-            Object dado;
-            T obj = classe.newInstance();
-            Field[] campos = classe.getDeclaredFields();
-            if (classe.getSuperclass() != null && classe.getSuperclass() != Object.class) {
-                List<Field> camposList = new ArrayList<>();
-                camposList.addAll(Arrays.asList(classe.getSuperclass().getDeclaredFields()));
-                camposList.addAll(Arrays.asList(campos));
-                campos = new Field[camposList.size()];
-                camposList.toArray(campos);
-            }
-            for (Field campo : campos) {
-                campo.setAccessible(true);
-                if (campo.isAnnotationPresent(PseudoColuna.class)) {
-                    col = campo.getAnnotation(PseudoColuna.class);
-                    if (col.referencia() == Object.class) {
-                        dado = rs.getObject(col.alias());
-                    } else {
-                        dado = rs.getObject(col.campoReferencia());
-                    }
-                    atribuirVariavel(dado, campo, obj);
+            final EntityMetadata meta = EntityMetadata.obter(classe);
+            final Object[] valores = new Object[ordinais.length];
+            if (meta.getMapeador() != null) {
+                meta.getMapeador().ler(rs, ordinais, valores);
+            } else {
+                for (PseudoColunaDescritor col : meta.getPseudoColunas()) {
+                    valores[col.getPosicao()] = col.getLeitor().ler(rs, ordinais[col.getPosicao()]);
                 }
             }
-            return obj;
-        } catch (InstantiationException | IllegalAccessException | SecurityException | SQLException ex) {
+            return classe.cast(meta.hidratar(valores));
+        } catch (SQLException ex) {
             throw new MiniException(Constantes.FALHA_POPULAR_OBJETO, ex);
         }
     }
 
-    private Object buscarValor(Field campo, Object dado) throws MiniException {
-        Object retorno = Pooling.QueryCache.obterObjetoExistente(campo.getType(), dado);
+    /**
+     * Resolve, uma única vez por consulta, a posição no ResultSet de cada coluna da entidade através do
+     * {@link ResultSetMetaData}, evitando a busca pelo nome da coluna a cada linha lida. As colunas de BLOB e as
+     * colunas {@link Lob}, que não fazem parte dos selects, ficam com a posição 0.
+     *
+     * @param meta Metadados da entidade
+     * @param rs ResultSet da consulta
+     * @param isUnion true para {@link PseudoTabela}, utilizando o nome de resultado das pseudo colunas
+     * @return posições indexadas pela posição do campo nos metadados
+     * @throws SQLException caso alguma coluna não esteja presente no ResultSet
+     */
+    private int[] resolverOrdinais(EntityMetadata meta, ResultSet rs, boolean isUnion) throws SQLException {
+        final ResultSetMetaData rsmd = rs.getMetaData();
+        final Map<String, Integer> porNome = new HashMap<>();
+        for (int ordinal = rsmd.getColumnCount(); ordinal > 0; ordinal--) {
+            porNome.put(rsmd.getColumnLabel(ordinal).toUpperCase(Locale.ROOT), ordinal);
+        }
+        if (isUnion) {
+            final int[] ordinais = new int[meta.getPseudoColunas().size()];
+            for (PseudoColunaDescritor col : meta.getPseudoColunas()) {
+                ordinais[col.getPosicao()] = resolverOrdinal(porNome, rs, col.getNomeResultado());
+            }
+            return ordinais;
+        }
+        final int[] ordinais = new int[meta.getColunas().size()];
+        for (ColunaDescritor col : meta.getColunas()) {
+            if (!col.isBlob() && !col.isLazy()) {
+                ordinais[col.getPosicao()] = resolverOrdinal(porNome, rs, col.getNome());
+            }
+        }
+        return ordinais;
+    }
+
+    private int resolverOrdinal(Map<String, Integer> porNome, ResultSet rs, String nome) throws SQLException {
+        final Integer ordinal = porNome.get(nome.toUpperCase(Locale.ROOT));
+        return ordinal != null ? ordinal : rs.findColumn(nome);
+    }
+
+    private Object buscarValor(Connection conn, Class<?> tipo, Object dado, Pooling.QueryCache cache)
+            throws MiniException {
+        Object retorno = cache.obterObjetoExistente(tipo, dado);
         try {
             if (retorno == null) {
-                retorno = encontrarSubClasses(campo.getType(), dado.toString());
+                retorno = encontrarSubClasses(conn, tipo, cache, dado.toString());
                 if (retorno != null) {
-                    Pooling.QueryCache.adicionarObjetoNoMapa(retorno, dado);
+                    cache.adicionarObjetoNoMapa(retorno, dado);
                 }
             }
         } catch (Exception ex) {
@@ -599,44 +1429,6 @@ public class Operacoes {
         return retorno;
     }
 
-    private void atribuirVariavel(Object dado, Field campo, Object obj) throws MiniException {
-        try {
-            if (dado != null) {
-                if (String.class.isAssignableFrom(campo.getType())) {
-                    Object aux = dado;
-                    if (java.sql.Clob.class.isAssignableFrom(dado.getClass())) {
-                        aux = Utils.Clobs.clobToString((Clob) dado).trim();
-                    } else {
-                        aux = aux.toString().trim();
-                    }
-                    campo.set(obj, aux);
-                    return;
-                }
-                if (Calendar.class.isAssignableFrom(campo.getType())) {
-                    Calendar cal = Calendar.getInstance();
-                    cal.setTimeInMillis(((Timestamp) dado).getTime());
-                    campo.set(obj, cal);
-                    return;
-                }
-                if (Number.class.isAssignableFrom(campo.getType())) {
-                    campo.set(obj, dado);
-                    return;
-                }
-                if (InputStream.class.isAssignableFrom(campo.getType())) {
-                    try {
-                        campo.set(obj, ((Blob) dado).getBinaryStream());
-                    } catch (SQLException e) {
-                        throw new MiniException(Constantes.FALHA_CAMPO_BLOB, e);
-                    }
-                }
-            } else {
-                campo.set(obj, dado);
-            }
-        } catch (IllegalArgumentException | IllegalAccessException ex) {
-            throw new MiniException(Constantes.FALHA_POPULAR_OBJETO, ex);
-        }
-    }
-
     /**
      * Atribuição dos valores das Pks para o PreparedStatement
      *
@@ -650,152 +1442,325 @@ public class Operacoes {
         }
     }
 
+    /**
+     * Insere o objeto, lendo a PK gerada pelo banco no caso de colunas de identidade
+     *
+     * @param conn
+     * @param obj
+     * @return true caso a persistencia seja bem sucedida
+     * @throws SQLException
+     * @throws MiniException
+     */
+    private boolean inserir(Connection conn, Object obj) throws SQLException, MiniException {
+        final EntityMetadata meta = EntityMetadata.obter(obj.getClass());
+        final String sql = StringCreator.obterInsert(obj);
+        try (PreparedStatement ps = meta.isIdentidade()
+                ? conn.prepareStatement(sql, new String[] { meta.getPk().getNome() })
+                : conn.prepareStatement(sql)) {
+            final boolean persistido = percorrerClasse(conn, ps, obj, obj.getClass(), false);
+            if (meta.isIdentidade()) {
+                lerChaveGerada(ps, meta.getPk(), obj);
+            }
+            return persistido;
+        }
+    }
+
     /**
      * Percorre a classe a fim de validar as anotações e atribuir os valores aos seus respectivos atributos
      *
+     * @param conn Conexão em que o {@link PreparedStatement} foi criado
      * @param ps
      * @param obj
      * @param classe
+     * @param atualizacao true caso o {@link PreparedStatement} seja um UPDATE, false caso seja um INSERT
      * @return true caso a persistencia seja bem sucedida, false caso haja erro
-     * @throws IllegalArgumentException
-     * @throws IllegalAccessException
      * @throws SQLException
-     * @throws FileNotFoundException
-     * @throws MiniException
-     */
-    private boolean percorrerClasse(PreparedStatement ps, Object obj, Class<?> classe) throws MiniException,
-            IllegalAccessException, SQLException {
-        final Connection conn = Connector.getConnection();
-        String PK;
-        List<Field> chavesList = new ArrayList<>();
-        if (classe.isAnnotationPresent(Tabela.class)) {
-            Tabela tbl = classe.getAnnotation(Tabela.class);
-            String tipoTrans = null;
-            Field[] campos = classe.getDeclaredFields();
-            int subIndice = 0;
-            for (int indice = 0; indice < campos.length; indice++) {
-                campos[indice].setAccessible(true);
-                if (campos[indice].isAnnotationPresent(Coluna.class)
-                        && !("U".equals(tipoTrans) && (InputStream.class.isAssignableFrom(campos[indice].getType()) && campos[indice]
-                        .get(obj) == null))) {
-                    Coluna col = campos[indice].getAnnotation(Coluna.class);
-
-                    if (col.isPk() && campos[indice].get(obj) == null) {
-                        PK = KeyGen.getPk(tbl, col);
-                        tipoTrans = "C";
-                        campos[indice].set(obj, PK);
-                    } else if (col.isPk() && campos[indice].get(obj) != null) {
-                        tipoTrans = "U";
-                        chavesList.add(campos[indice]);
+     * @throws MiniException
+     */
+    private boolean percorrerClasse(Connection conn, PreparedStatement ps, Object obj, Class<?> classe,
+            boolean atualizacao) throws MiniException, SQLException {
+        final EntityMetadata meta = EntityMetadata.obter(classe);
+        atribuirParametros(conn, ps, obj, meta, atualizacao, null);
+        ps.execute();
+        RastreadorAlteracoes.registrarAoConfirmar(Sessao.atual(), meta, obj);
+        return true;
+    }
+
+    /**
+     * Atribui os valores do objeto aos parâmetros do INSERT ou UPDATE, gerando a PK caso necessário
+     *
+     * @param conn Conexão em que o {@link PreparedStatement} foi criado
+     * @param ps
+     * @param obj
+     * @param meta
+     * @param atualizacao true caso o {@link PreparedStatement} seja um UPDATE, false caso seja um INSERT
+     * @param alteradas Colunas do UPDATE parcial, conforme {@link StringCreator#obterUpdateParcial}, ou null
+     * @throws SQLException
+     * @throws MiniException
+     */
+    private void atribuirParametros(Connection conn, PreparedStatement ps, Object obj, EntityMetadata meta,
+            boolean atualizacao, BitSet alteradas) throws MiniException, SQLException {
+        if (meta.isTabela()) {
+            if (!atualizacao && meta.getMapeador() != null && !meta.isIdentidade()) {
+                atribuirInsert(conn, ps, obj, meta, meta.getMapeador());
+                return;
+            }
+            int indice = 0;
+            for (ColunaDescritor col : meta.getColunas()) {
+                if (col.isPk()) {
+                    if (atualizacao || meta.isIdentidade()) {
                         continue;
                     }
-                    atribuirValorPreparedStatement(ps, campos[indice], obj, indice - chavesList.size() - subIndice);
-                } else {
-                    subIndice++;
+                    if (col.getAcessor().obter(obj) == null) {
+                        col.getAcessor().atribuir(obj, KeyGen.gerar(meta.getTabela(), col));
+                    }
+                } else if (alteradas != null ? !alteradas.get(col.getPosicao())
+                        : atualizacao && semAlteracao(col, obj)) {
+                    continue;
                 }
+                atribuirValorPreparedStatement(conn, ps, meta, col, obj, indice++);
             }
-            for (int indice = 0; indice < chavesList.size(); indice++) {
-                atribuirValorPreparedStatement(ps, chavesList.get(indice), obj,
-                        campos.length - indice - chavesList.size() - subIndice);
+            if (atualizacao) {
+                for (ColunaDescritor pk : meta.getPks()) {
+                    atribuirValorPreparedStatement(conn, ps, meta, pk, obj, indice++);
+                }
             }
-            ps.execute();
-            ps.close();
-            conn.commit();
-            conn.close();
-            return true;
+            return;
         }
         throw new MiniException(Constantes.FALHA_ANOTACAO_TABELA);
     }
 
+    /**
+     * Atribui os parâmetros do INSERT gerado pelo {@link Mapeador}, que extrai os valores e os atribui em sequência. A
+     * geração da PK, as PKs das FKs e os {@link Lob} permanecem com o framework.
+     *
+     * @param conn Conexão em que o {@link PreparedStatement} foi criado
+     * @param ps PreparedStatement do {@link Mapeador#getInsert()}
+     * @param obj
+     * @param meta
+     * @param mapeador Mapeador da entidade
+     * @throws SQLException
+     * @throws MiniException
+     */
+    @SuppressWarnings("unchecked")
+    private <T> void atribuirInsert(Connection conn, PreparedStatement ps, Object obj, EntityMetadata meta,
+            Mapeador<T> mapeador) throws SQLException, MiniException {
+        for (ColunaDescritor pk : meta.getPks()) {
+            if (pk.getAcessor().obter(obj) == null) {
+                pk.getAcessor().atribuir(obj, KeyGen.gerar(meta.getTabela(), pk));
+            }
+        }
+        final Object[] valores = new Object[meta.getColunas().size()];
+        mapeador.extrair((T) obj, valores);
+        for (ColunaDescritor col : meta.getFks()) {
+            final Object valor = valores[col.getPosicao()];
+            if (valor != null && col.getTipo().isInstance(valor)) {
+                valores[col.getPosicao()] = buscarPk(conn, valor);
+            }
+        }
+        mapeador.atribuirParametros(ps, valores);
+        for (ColunaDescritor col : meta.getLazies()) {
+            atribuirLob(ps, (Lob) valores[col.getPosicao()], col.getPosicao() + 1);
+        }
+    }
+
+    /**
+     * @return true caso o campo não faça parte do UPDATE, por ser um arquivo nulo ou um {@link Lob} sem novo conteúdo,
+     *         conforme {@link StringCreator#obterUpdate}
+     * @throws MiniException
+     */
+    private static boolean semAlteracao(ColunaDescritor col, Object obj) throws MiniException {
+        final Object valor = col.getAcessor().obter(obj);
+        return col.isBlob() && valor == null || col.isLazy() && !Lob.isAlterado(valor);
+    }
+
+    /**
+     * Atribui ao objeto a PK de identidade gerada pelo banco na inserção
+     *
+     * @param ps PreparedStatement do INSERT, já executado
+     * @param pk
+     * @param obj
+     * @throws SQLException
+     * @throws MiniException
+     */
+    private void lerChaveGerada(PreparedStatement ps, ColunaDescritor pk, Object obj)
+            throws SQLException, MiniException {
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            if (rs.next()) {
+                pk.getAcessor().atribuir(obj, pk.getLeitor().ler(rs, 1));
+            }
+        }
+    }
+
+    /**
+     * Atribui aos objetos do lote as PKs de identidade geradas pelo banco, na ordem de inserção
+     *
+     * @param ps PreparedStatement do INSERT, com o lote já executado
+     * @param pk
+     * @param objetos
+     * @param lote Posições dos objetos do lote
+     * @throws SQLException
+     * @throws MiniException
+     */
+    private void lerChavesGeradas(PreparedStatement ps, ColunaDescritor pk, List<?> objetos, List<Integer> lote)
+            throws SQLException, MiniException {
+        try (ResultSet rs = ps.getGeneratedKeys()) {
+            for (int posicao = 0; posicao < lote.size() && rs.next(); posicao++) {
+                pk.getAcessor().atribuir(objetos.get(lote.get(posicao)), pk.getLeitor().ler(rs, 1));
+            }
+        }
+    }
+
     /**
      * Deve-se atribuir valores para os wildcards do PreparedStatement gerado pela string.
      *
+     * @param conn
      * @param ps
-     * @param campo
+     * @param meta
+     * @param col
      * @param obj
      * @param indice
-     * @throws IllegalArgumentException
-     * @throws IllegalAccessException
      * @throws SQLException
-     * @throws FileNotFoundException
      * @throws MiniException
      */
-    private void atribuirValorPreparedStatement(PreparedStatement ps, Field campo, Object obj, int indice)
-            throws IllegalArgumentException, IllegalAccessException, SQLException, MiniException {
-        if (campo.isAnnotationPresent(Coluna.class) && campo.getAnnotation(Coluna.class).isFk()
-                && campo.get(obj) != null) {
-            ps.setObject(indice + 1, buscarPk(campo, obj));
+    private void atribuirValorPreparedStatement(Connection conn, PreparedStatement ps, EntityMetadata meta,
+            ColunaDescritor col, Object obj, int indice) throws SQLException, MiniException {
+        atribuirValor(conn, ps, meta, col, col.getAcessor().obter(obj), indice);
+    }
+
+    /**
+     * Atribui o valor da coluna ao parâmetro. Nas FKs, o valor pode ser a entidade referenciada ou a sua própria PK.
+     */
+    private void atribuirValor(Connection conn, PreparedStatement ps, EntityMetadata meta, ColunaDescritor col,
+            Object valor, int indice) throws SQLException, MiniException {
+        if (col.isFk() && valor != null) {
+            ps.setObject(indice + 1, col.getTipo().isInstance(valor) ? buscarPk(conn, valor) : valor);
+        } else if (col.isLazy()) {
+            atribuirLob(ps, (Lob) valor, indice + 1);
+        } else if (meta.getMapeador() != null) {
+            meta.getMapeador().atribuirParametro(ps, indice + 1, col.getPosicao(), valor);
         } else {
-            atribuirPorCampo(ps, campo, obj, indice + 1);
+            atribuirPorCampo(ps, col, valor, indice + 1);
         }
     }
 
-    private void atribuirPorCampo(PreparedStatement ps, Field campo, Object obj, int indice)
-            throws IllegalArgumentException, SQLException, IllegalAccessException {
-        if (campo.get(obj) != null) {
-            if (String.class.isAssignableFrom(campo.getType())) {
-                if (campo.getAnnotation(Coluna.class).isClob()) {
-                    ps.setClob(indice, new StringReader((String) campo.get(obj)));
+    private void atribuirPorCampo(PreparedStatement ps, ColunaDescritor col, Object valor, int indice)
+            throws SQLException {
+        if (valor != null) {
+            if (String.class.isAssignableFrom(col.getTipo())) {
+                if (col.isClob()) {
+                    atribuirTexto(ps, (String) valor, indice);
                 } else {
-                    ps.setString(indice, (String) campo.get(obj));
+                    ps.setString(indice, (String) valor);
                 }
                 return;
             }
-            if (Calendar.class.isAssignableFrom(campo.getType())) {
-                ps.setTimestamp(indice, new Timestamp(((Calendar) campo.get(obj)).getTimeInMillis()));
+            if (Calendar.class.isAssignableFrom(col.getTipo())) {
+                ps.setTimestamp(indice, new Timestamp(((Calendar) valor).getTimeInMillis()));
+                return;
+            }
+            if (valor instanceof BigDecimal) {
+                ps.setBigDecimal(indice, (BigDecimal) valor);
                 return;
             }
-            if (Number.class.isAssignableFrom(campo.getType())) {
-                ps.setBigDecimal(indice, (BigDecimal) campo.get(obj));
+            if (col.isBlob()) {
+                atribuirArquivo(ps, (InputStream) valor, indice);
+                return;
+            }
+        }
+        ps.setObject(indice, valor);
+    }
+
+    /**
+     * Atribui o texto ao parâmetro CLOB informando o tamanho ao driver, que pode enviá-lo sem a criação de um CLOB
+     * temporário para o conteúdo
+     */
+    private static void atribuirTexto(PreparedStatement ps, String texto, int indice) throws SQLException {
+        ps.setCharacterStream(indice, new StringReader(texto), texto.length());
+    }
+
+    /**
+     * Atribui o conteúdo do {@link Lob} ao parâmetro. Uma referência a um BLOB existente só é gravada na inserção de
+     * uma cópia do objeto, sendo lida para a memória antes, já que a leitura ocupa a conexão de leitura da sessão.
+     */
+    private void atribuirLob(PreparedStatement ps, Lob lob, int indice) throws SQLException, MiniException {
+        if (lob == null) {
+            ps.setObject(indice, null);
+        } else if (lob.isClob()) {
+            final String texto = lob.getTexto();
+            if (texto != null) {
+                atribuirTexto(ps, texto, indice);
+            } else {
+                ps.setObject(indice, null);
+            }
+        } else if (Lob.isAlterado(lob)) {
+            atribuirLob(ps, lob.abrir(), indice);
+        } else {
+            try (InputStream arquivo = lob.abrir()) {
+                atribuirLob(ps, arquivo != null ? new ByteArrayInputStream(lerTudo(arquivo)) : null, indice);
+            } catch (IOException ex) {
+                throw new MiniException(Constantes.FALHA_TRANSFERIR_ARQUIVO, ex);
+            }
+        }
+    }
+
+    private void atribuirLob(PreparedStatement ps, InputStream arquivo, int indice) throws SQLException {
+        if (arquivo != null) {
+            atribuirArquivo(ps, arquivo, indice);
+        } else {
+            ps.setObject(indice, null);
+        }
+    }
+
+    private static byte[] lerTudo(InputStream arquivo) throws IOException {
+        final ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[TAMANHO_BUFFER_ARQUIVO];
+        int lidos;
+        while ((lidos = arquivo.read(buffer)) != -1) {
+            saida.write(buffer, 0, lidos);
+        }
+        return saida.toByteArray();
+    }
+
+    /**
+     * Atribui o arquivo ao parâmetro. Quando o tamanho do stream é conhecido, como em arquivos locais e arrays em
+     * memória, o mesmo é informado ao driver, que pode enviar o conteúdo sem copiá-lo antes para a memória.
+     */
+    private void atribuirArquivo(PreparedStatement ps, InputStream arquivo, int indice) throws SQLException {
+        try {
+            if (arquivo instanceof FileInputStream) {
+                final FileChannel canal = ((FileInputStream) arquivo).getChannel();
+                ps.setBinaryStream(indice, arquivo, canal.size() - canal.position());
                 return;
             }
-            if (InputStream.class.isAssignableFrom(campo.getType())) {
-                ps.setBlob(indice, (InputStream) campo.get(obj));
+            if (arquivo instanceof ByteArrayInputStream) {
+                ps.setBinaryStream(indice, arquivo, arquivo.available());
                 return;
             }
+        } catch (IOException ex) {
+            throw new SQLException(ex);
         }
-        ps.setObject(indice, null);
+        ps.setBlob(indice, arquivo);
     }
 
     /**
      * Busca da PK dentro do objeto filho da entidade que está sendo persistida
      *
-     * @param campo Campo a ser percorrido
-     * @param obj Objeto para obter o valor do campo
-     * @return Novo objeto através da PK
-     * @throws IllegalArgumentException
-     * @throws IllegalAccessException
+     * @param conn Conexão da operação
+     * @param sub Objeto filho referenciado pela FK
+     * @return PK do objeto filho, persistindo-o caso ainda não possua PK
      * @throws SQLException
-     * @throws FileNotFoundException
      * @throws MiniException
      */
-    private Object buscarPk(Field campo, Object obj) throws IllegalArgumentException, IllegalAccessException,
-            SQLException, MiniException {
-        final Connection conn = Connector.getConnection();
-        final Object sub = campo.get(obj);
+    private Object buscarPk(Connection conn, Object sub) throws SQLException, MiniException {
         final Class<?> classe = sub.getClass();
-        for (Field f : classe.getDeclaredFields()) {
-            if (f.isAnnotationPresent(Coluna.class) && f.getAnnotation(Coluna.class).isPk()) {
-                f.setAccessible(true);
-                if (f.get(sub) == null) {
-                    StringBuilder strInsert = StringCreator.criaInsert(obj);
-                    PreparedStatement pStmt = conn.prepareStatement(strInsert.toString());
-                    percorrerClasse(pStmt, sub, classe);
-                }
-                return f.get(sub);
+        final ColunaDescritor pk = EntityMetadata.obter(classe).getPk();
+        if (pk != null) {
+            if (pk.getAcessor().obter(sub) == null) {
+                inserir(conn, sub);
             }
+            return pk.getAcessor().obter(sub);
         }
         return null;
     }
-
-    private void closeConnException(final Connection conn) throws MiniException {
-        try {
-            if (!conn.isClosed()) {
-                conn.rollback();
-            }
-            conn.close();
-        } catch (SQLException sqlE) {
-            throw new MiniException(Constantes.FALHA_FECHAR_CONEXAO, sqlE);
-        }
-    }
 }
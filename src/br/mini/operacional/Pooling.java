@@ -1,13 +1,13 @@
 package br.mini.operacional;
 
-import java.lang.reflect.Field;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import br.mini.Acessor;
 import br.mini.Constantes;
-import br.mini.Utils;
-import br.mini.annotations.Tabela;
+import br.mini.EntityMetadata;
 import br.mini.exception.MiniException;
 import br.mini.exception.MiniRuntimeException;
 
@@ -34,9 +34,10 @@ final class Pooling {
     static final class EntityCache {
 
         /**
-         * Mapa contendo as listas cacheadas. Como key, utiliza a própria classe
+         * Mapa contendo as listas cacheadas. Como key, utiliza a própria classe. Concorrente, já que pode ser populado
+         * em paralelo pelo {@link MiniBootstrap}
          */
-        private static final Map<Class<?>, List> MAPA_OBJ_CLASSES = new HashMap<>();
+        private static final Map<Class<?>, List> MAPA_OBJ_CLASSES = new ConcurrentHashMap<>();
 
         /**
          * Adiciona uma lista de valores no {@link #MAPA_OBJ_CLASSES}
@@ -46,7 +47,7 @@ final class Pooling {
          * @param valores
          */
         static <V> void adicionarListaCache(final Class<V> classe, final List<V> valores) {
-            if (classe.getAnnotation(Tabela.class).cacheable()) {
+            if (EntityMetadata.obter(classe).getTabela().cacheable()) {
                 MAPA_OBJ_CLASSES.put(classe, valores);
             }
         }
@@ -61,6 +62,16 @@ final class Pooling {
             return MAPA_OBJ_CLASSES.containsKey(classe);
         }
 
+        /**
+         * Remove a lista da classe do {@link #MAPA_OBJ_CLASSES}, fazendo com que seja recarregada do banco no próximo
+         * acesso
+         *
+         * @param classe
+         */
+        static void invalidar(final Class<?> classe) {
+            MAPA_OBJ_CLASSES.remove(classe);
+        }
+
         /**
          * Obtém a lista no {@link #MAPA_OBJ_CLASSES} através da classe
          *
@@ -83,23 +94,19 @@ final class Pooling {
          */
         static <V> V obterValorPorPk(final Class<V> classe, final String pk) throws MiniException {
             final List<V> valores = (List<V>) MAPA_OBJ_CLASSES.get(classe);
-            try {
-                for (V valor : valores) {
-                    final Field campo = Utils.encontrarCampoPk(classe);
-                    campo.setAccessible(true);
-                    if (campo.get(valor).equals(pk)) {
-                        return valor;
-                    }
+            final Acessor acessor = EntityMetadata.obter(classe).getPk().getAcessor();
+            for (V valor : valores) {
+                if (acessor.obter(valor).equals(pk)) {
+                    return valor;
                 }
-            } catch (SecurityException | IllegalArgumentException | IllegalAccessException ex) {
-                throw new MiniException(Constantes.FALHA_OBTER_CAMPO, ex);
             }
             throw new MiniRuntimeException(Constantes.VALOR_INEXISTENTE + classe.getName());
         }
     }
 
     /**
-     * Classe responsável pelo gerenciamento de objetos cacheados para a requisição
+     * Classe responsável pelo gerenciamento de objetos cacheados para a operação. Cada consulta cria a sua própria
+     * instância, descartada ao final, de forma que consultas concorrentes não compartilham o cache das FKs.
      *
      * @author figueiredo-lucas
      *
@@ -109,34 +116,27 @@ final class Pooling {
         /**
          * Mapa dos objetos cacheados. Como key utiliza a concatenação do nome da classe + a PK
          */
-        private static final Map<String, Object> MAPA_OBJ_EXISTENTES = new HashMap<>();
+        private final Map<String, Object> mapaObjExistentes = new HashMap<>();
 
         /**
-         * Adiciona objeto no {@link #MAPA_OBJ_EXISTENTES}
+         * Adiciona objeto no {@link #mapaObjExistentes}
          *
          * @param valor
          * @param PK
          */
-        static void adicionarObjetoNoMapa(final Object valor, final Object PK) {
-            MAPA_OBJ_EXISTENTES.put(valor.getClass().getName() + PK.toString(), valor);
-        }
-
-        /**
-         * Limpa o {@link #MAPA_OBJ_EXISTENTES} após a utilização
-         */
-        static void limparMapa() {
-            MAPA_OBJ_EXISTENTES.clear();
+        void adicionarObjetoNoMapa(final Object valor, final Object PK) {
+            mapaObjExistentes.put(valor.getClass().getName() + PK.toString(), valor);
         }
 
         /**
-         * Obtém objeto do {@link #MAPA_OBJ_EXISTENTES} através da sua key
+         * Obtém objeto do {@link #mapaObjExistentes} através da sua key
          *
          * @param classe
          * @param PK
          * @return objeto obtido ou null caso o objeto não exista
          */
-        static Object obterObjetoExistente(final Class<?> classe, final Object PK) {
-            return MAPA_OBJ_EXISTENTES.get(classe.getName() + PK.toString());
+        Object obterObjetoExistente(final Class<?> classe, final Object PK) {
+            return mapaObjExistentes.get(classe.getName() + PK.toString());
         }
 
     }
@@ -0,0 +1,245 @@
+package br.mini.operacional;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import br.mini.EntityMetadata;
+import br.mini.EntityMetadata.ColunaDescritor;
+import br.mini.annotations.Tabela;
+import br.mini.exception.MiniException;
+
+/**
+ * Classe responsável pelo rastreamento das alterações dos objetos das tabelas com
+ * {@link Tabela#rastrearAlteracoes()}.
+ * <br>
+ * Na carga e após cada persistência confirmada, os valores das colunas do objeto são copiados para um retrato. No
+ * UPDATE, somente as colunas que diferem do retrato são enviadas ao banco. Os retratos são mantidos por referência
+ * fraca à identidade do objeto, sendo descartados junto com ele, e agrupados pela classe do objeto, de forma que os
+ * retratos de uma classe são descartados de uma só vez.
+ * <br>
+ * As FKs são comparadas pela PK da entidade referenciada, e os valores mutáveis ({@link Calendar}, {@link Date} e
+ * <code>byte[]</code>) são copiados, de forma que alterações feitas no próprio valor também sejam detectadas.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+final class RastreadorAlteracoes {
+
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<Referencia, Object[]>> RETRATOS =
+            new ConcurrentHashMap<>();
+    private static final ReferenceQueue<Object> DESCARTADOS = new ReferenceQueue<>();
+
+    private RastreadorAlteracoes() {
+    }
+
+    /**
+     * @param meta
+     * @return true caso as alterações dos objetos da classe sejam rastreadas
+     */
+    static boolean isRastreada(final EntityMetadata meta) {
+        return meta.isTabela() && meta.getTabela().rastrearAlteracoes();
+    }
+
+    /**
+     * Registra o retrato do objeto recém carregado, caso sua classe seja rastreada
+     *
+     * @param meta
+     * @param obj
+     * @throws MiniException
+     */
+    static void registrar(final EntityMetadata meta, final Object obj) throws MiniException {
+        if (isRastreada(meta)) {
+            guardar(obj, capturar(meta, obj));
+        }
+    }
+
+    /**
+     * Registra o retrato do objeto recém persistido na sessão, somente quando o trabalho for confirmado. Caso seja
+     * desfeito, o retrato anterior é mantido.
+     *
+     * @param sessao
+     * @param meta
+     * @param obj
+     * @throws MiniException
+     */
+    static void registrarAoConfirmar(final Sessao sessao, final EntityMetadata meta, final Object obj)
+            throws MiniException {
+        if (!isRastreada(meta)) {
+            return;
+        }
+        final Object[] valores = capturar(meta, obj);
+        sessao.aoConfirmar(new Runnable() {
+
+            @Override
+            public void run() {
+                guardar(obj, valores);
+            }
+        });
+    }
+
+    /**
+     * Obtém as colunas alteradas desde o último retrato do objeto. Os campos de arquivo nulos e os campos {@link Lob}
+     * sem novo conteúdo nunca são considerados alterados, já que não são atualizados.
+     *
+     * @param meta
+     * @param obj
+     * @return posições das colunas alteradas, vazio caso nenhuma tenha sido alterada, ou null caso o objeto não seja
+     *         rastreado ou não possua retrato
+     * @throws MiniException
+     */
+    static BitSet alteradas(final EntityMetadata meta, final Object obj) throws MiniException {
+        if (!isRastreada(meta)) {
+            return null;
+        }
+        final ConcurrentMap<Referencia, Object[]> retratos = RETRATOS.get(obj.getClass());
+        final Object[] retrato = retratos != null ? retratos.get(new Referencia(obj, null)) : null;
+        if (retrato == null) {
+            return null;
+        }
+        final BitSet alteradas = new BitSet(retrato.length);
+        for (ColunaDescritor col : meta.getColunas()) {
+            if (col.isPk()) {
+                continue;
+            }
+            final Object valor = col.getAcessor().obter(obj);
+            if (col.isBlob() && valor == null || col.isLazy() && !Lob.isAlterado(valor)) {
+                continue;
+            }
+            if (!iguais(retrato[col.getPosicao()], comparavel(col, valor))) {
+                alteradas.set(col.getPosicao());
+            }
+        }
+        return alteradas;
+    }
+
+    /**
+     * Descarta o retrato do objeto, fazendo com que o próximo UPDATE contenha todas as colunas
+     *
+     * @param obj
+     */
+    static void descartar(final Object obj) {
+        final ConcurrentMap<Referencia, Object[]> retratos = RETRATOS.get(obj.getClass());
+        if (retratos != null) {
+            retratos.remove(new Referencia(obj, null));
+        }
+    }
+
+    /**
+     * Descarta os retratos de todos os objetos da classe, após uma alteração feita diretamente no banco que os torna
+     * desatualizados
+     *
+     * @param classe
+     */
+    static void descartar(final Class<?> classe) {
+        RETRATOS.remove(classe);
+    }
+
+    private static Object[] capturar(final EntityMetadata meta, final Object obj) throws MiniException {
+        final List<ColunaDescritor> colunas = meta.getColunas();
+        final Object[] valores = new Object[colunas.size()];
+        for (ColunaDescritor col : colunas) {
+            valores[col.getPosicao()] = comparavel(col, col.getAcessor().obter(obj));
+        }
+        return valores;
+    }
+
+    private static void guardar(final Object obj, final Object[] valores) {
+        Referencia descartada;
+        while ((descartada = (Referencia) DESCARTADOS.poll()) != null) {
+            final ConcurrentMap<Referencia, Object[]> retratos = RETRATOS.get(descartada.classe);
+            if (retratos != null) {
+                retratos.remove(descartada);
+            }
+        }
+        ConcurrentMap<Referencia, Object[]> retratos = RETRATOS.get(obj.getClass());
+        if (retratos == null) {
+            final ConcurrentMap<Referencia, Object[]> novos = new ConcurrentHashMap<>();
+            retratos = RETRATOS.putIfAbsent(obj.getClass(), novos);
+            if (retratos == null) {
+                retratos = novos;
+            }
+        }
+        retratos.put(new Referencia(obj, DESCARTADOS), valores);
+    }
+
+    /**
+     * Converte o valor da coluna para a forma guardada no retrato
+     */
+    private static Object comparavel(final ColunaDescritor col, final Object valor) throws MiniException {
+        if (valor == null) {
+            return null;
+        }
+        if (col.isFk()) {
+            final ColunaDescritor pk = EntityMetadata.obter(valor.getClass()).getPk();
+            final Object chave = pk != null ? pk.getAcessor().obter(valor) : null;
+            return chave != null ? chave : valor;
+        }
+        if (valor instanceof Calendar) {
+            return ((Calendar) valor).clone();
+        }
+        if (valor instanceof Date) {
+            return ((Date) valor).clone();
+        }
+        if (valor instanceof byte[]) {
+            return ((byte[]) valor).clone();
+        }
+        return valor;
+    }
+
+    private static boolean iguais(final Object anterior, final Object atual) {
+        if (anterior == atual) {
+            return true;
+        }
+        if (anterior == null || atual == null) {
+            return false;
+        }
+        if (anterior instanceof BigDecimal && atual instanceof BigDecimal) {
+            return ((BigDecimal) anterior).compareTo((BigDecimal) atual) == 0;
+        }
+        if (anterior instanceof byte[] && atual instanceof byte[]) {
+            return Arrays.equals((byte[]) anterior, (byte[]) atual);
+        }
+        return anterior.equals(atual);
+    }
+
+    /**
+     * Referência fraca comparada pela identidade do objeto. Mantém a classe do objeto para localizar os retratos da
+     * classe após a coleta do mesmo.
+     */
+    private static final class Referencia extends WeakReference<Object> {
+
+        private final Class<?> classe;
+        private final int hash;
+
+        Referencia(final Object obj, final ReferenceQueue<Object> fila) {
+            super(obj, fila);
+            this.classe = obj.getClass();
+            this.hash = System.identityHashCode(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object outro) {
+            if (this == outro) {
+                return true;
+            }
+            if (!(outro instanceof Referencia)) {
+                return false;
+            }
+            final Object obj = get();
+            return obj != null && obj == ((Referencia) outro).get();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package br.mini.operacional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resultado da persistência de uma lista <b>N:M</b> por {@link Operacoes#salvarRelacionamento(Collection)} ou
+ * {@link Operacoes#removerRelacionamento(Collection)}, com a situação de cada elemento na ordem da lista.
+ *
+ * @author figueiredo-lucas
+ *
+ * @param <Z> Tipo dos elementos
+ */
+public final class ResultadoRelacionamento<Z> {
+
+    /**
+     * Situação de um elemento após a persistência
+     */
+    public enum Situacao {
+        INSERIDO, ATUALIZADO, EXCLUIDO, NAO_ENCONTRADO;
+    }
+
+    private final List<Z> elementos;
+    private final Situacao[] situacoes;
+
+    ResultadoRelacionamento(final Collection<Z> elementos) {
+        this.elementos = Collections.unmodifiableList(new ArrayList<>(elementos));
+        this.situacoes = new Situacao[elementos.size()];
+    }
+
+    void registrar(final int indice, final Situacao situacao) {
+        situacoes[indice] = situacao;
+    }
+
+    /**
+     * @return elementos, na ordem da lista persistida
+     */
+    public List<Z> getElementos() {
+        return elementos;
+    }
+
+    /**
+     * @param indice Posição do elemento na lista persistida
+     * @return situação do elemento
+     */
+    public Situacao getSituacao(final int indice) {
+        return situacoes[indice];
+    }
+
+    /**
+     * @return situações dos elementos, na ordem da lista persistida
+     */
+    public List<Situacao> getSituacoes() {
+        return Collections.unmodifiableList(Arrays.asList(situacoes));
+    }
+
+    /**
+     * @param situacao
+     * @return quantidade de elementos na situação informada
+     */
+    public int getQuantidade(final Situacao situacao) {
+        int quantidade = 0;
+        for (Situacao atual : situacoes) {
+            if (atual == situacao) {
+                quantidade++;
+            }
+        }
+        return quantidade;
+    }
+
+    /**
+     * @return true caso todos os elementos tenham sido encontrados e persistidos
+     */
+    public boolean isSucesso() {
+        return getQuantidade(Situacao.NAO_ENCONTRADO) == 0;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for (Situacao situacao : Situacao.values()) {
+            final int quantidade = getQuantidade(situacao);
+            if (quantidade > 0) {
+                sb.append(sb.length() > 0 ? ", " : "").append(situacao).append('=').append(quantidade);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,355 @@
+package br.mini.operacional;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import br.mini.Constantes;
+import br.mini.database.Connector;
+import br.mini.exception.MiniException;
+
+/**
+ * Sessão de trabalho que vincula uma única conexão a toda a árvore de chamadas de uma operação lógica, incluindo a
+ * geração de chaves pelo {@link KeyGen} e a carga das FKs.
+ * <br>
+ * A sessão é associada à thread corrente. As operações de {@link Operacoes} participam da sessão aberta, caso exista,
+ * ou abrem uma própria, encerrada ao final da operação. Para que várias operações compartilhem a mesma conexão, basta
+ * abrir a sessão explicitamente:
+ *
+ * <pre>
+ * try (Sessao sessao = Sessao.abrir()) {
+ *     operacoes.salvar(pedido);
+ *     operacoes.salvar(item);
+ * }
+ * </pre>
+ *
+ * A conexão é obtida somente no primeiro uso e liberada deterministicamente no {@link #close()} da sessão mais
+ * externa, desfazendo o que não tenha sido confirmado. Cada operação de escrita confirma o seu próprio trabalho, a
+ * menos que uma {@link Transacao} esteja aberta.
+ * <br>
+ * Enquanto vinculada à sessão, a conexão do primário é utilizada sem auto commit, independentemente da configuração
+ * do DataSource, para que o trabalho de uma transação possa ser desfeito. O valor original é restaurado no
+ * {@link #close()}.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public final class Sessao implements AutoCloseable {
+
+    private static final ThreadLocal<Sessao> ATUAL = new ThreadLocal<>();
+
+    private static final AtomicLong TOTAL_CHECKOUTS = new AtomicLong();
+    private static final AtomicInteger CONEXOES_ABERTAS = new AtomicInteger();
+
+    private Connection conexao;
+    /**
+     * Auto commit da conexão do primário antes de ser vinculada à sessão
+     */
+    private boolean autoCommitOriginal;
+    private Connection conexaoLeitura;
+    private Connector.Replica replica;
+    /**
+     * Quantidade de participantes da sessão. A conexão é liberada quando o último participante a encerra
+     */
+    private int participantes = 1;
+    private int checkouts;
+    /**
+     * Quantidade de {@link Transacao} abertas na sessão. Enquanto houver alguma, a confirmação é adiada para o término
+     * da mais externa
+     */
+    private int transacoes;
+    private boolean somenteDesfazer;
+    /**
+     * Ações executadas após a confirmação do trabalho pendente, descartadas caso o mesmo seja desfeito
+     */
+    private List<Runnable> aoConfirmar;
+
+    private Sessao() {
+    }
+
+    /**
+     * Abre uma sessão na thread corrente ou participa da sessão já aberta
+     *
+     * @return sessão da thread corrente
+     */
+    public static Sessao abrir() {
+        final Sessao atual = ATUAL.get();
+        if (atual != null) {
+            atual.participantes++;
+            return atual;
+        }
+        final Sessao sessao = new Sessao();
+        ATUAL.set(sessao);
+        return sessao;
+    }
+
+    /**
+     * @return sessão aberta na thread corrente ou null caso não exista
+     */
+    public static Sessao atual() {
+        return ATUAL.get();
+    }
+
+    /**
+     * Obtém a conexão da sessão, realizando o checkout no primeiro uso. A conexão é colocada sem auto commit até o
+     * encerramento da sessão.
+     *
+     * @return conexão da sessão
+     * @throws MiniException
+     */
+    public Connection getConexao() throws MiniException {
+        if (participantes == 0) {
+            throw new MiniException(Constantes.SESSAO_ENCERRADA);
+        }
+        if (conexao == null) {
+            final Connection conn = Connector.getConnection();
+            try {
+                autoCommitOriginal = conn.getAutoCommit();
+                if (autoCommitOriginal) {
+                    conn.setAutoCommit(false);
+                }
+            } catch (SQLException ex) {
+                fechar(conn);
+                throw new MiniException(Constantes.FALHA_CONEXAO, ex);
+            }
+            conexao = conn;
+            checkouts++;
+            TOTAL_CHECKOUTS.incrementAndGet();
+            CONEXOES_ABERTAS.incrementAndGet();
+        }
+        return conexao;
+    }
+
+    /**
+     * Obtém a conexão para uma leitura. Caso haja réplicas configuradas, a leitura é feita em uma réplica, exceto
+     * quando {@link Connector#leituraPropria} está ativa e a sessão já utilizou o primário ou está em uma
+     * {@link Transacao}, inclusive se a sessão já tiver lido da réplica antes da escrita.
+     *
+     * @return conexão para a leitura
+     * @throws MiniException
+     */
+    public Connection getConexaoLeitura() throws MiniException {
+        if (participantes == 0) {
+            throw new MiniException(Constantes.SESSAO_ENCERRADA);
+        }
+        if (Connector.leituraPropria && (conexao != null || transacoes > 0)) {
+            // A réplica já obtida permanece aberta até o close(), já que pode haver leituras em andamento nela
+            return getConexao();
+        }
+        if (conexaoLeitura != null) {
+            return conexaoLeitura;
+        }
+        final Connector.Replica selecionada = Connector.selecionarReplica();
+        if (selecionada == null) {
+            return getConexao();
+        }
+        conexaoLeitura = selecionada.conectar();
+        replica = selecionada;
+        checkouts++;
+        TOTAL_CHECKOUTS.incrementAndGet();
+        CONEXOES_ABERTAS.incrementAndGet();
+        return conexaoLeitura;
+    }
+
+    /**
+     * Confirma o trabalho realizado pela operação. Caso haja uma {@link Transacao} aberta, a confirmação é adiada para
+     * o seu término.
+     *
+     * @throws MiniException
+     */
+    public void confirmar() throws MiniException {
+        if (transacoes > 0 || conexao == null) {
+            return;
+        }
+        try {
+            conexao.commit();
+        } catch (SQLException ex) {
+            throw new MiniException(Constantes.FALHA_CONFIRMAR_TRANSACAO, ex);
+        }
+        if (aoConfirmar != null) {
+            final List<Runnable> acoes = aoConfirmar;
+            aoConfirmar = null;
+            for (Runnable acao : acoes) {
+                acao.run();
+            }
+        }
+    }
+
+    /**
+     * Agenda uma ação para ser executada após a confirmação do trabalho pendente na sessão. Caso o trabalho seja
+     * desfeito, a ação é descartada.
+     *
+     * @param acao
+     */
+    void aoConfirmar(final Runnable acao) {
+        if (aoConfirmar == null) {
+            aoConfirmar = new ArrayList<>();
+        }
+        aoConfirmar.add(acao);
+    }
+
+    /**
+     * @return true caso haja uma {@link Transacao} aberta na sessão
+     */
+    public boolean isEmTransacao() {
+        return transacoes > 0;
+    }
+
+    void iniciarTransacao() {
+        transacoes++;
+    }
+
+    /**
+     * Encerra uma transação. A mais externa confirma ou desfaz o trabalho; as internas somente marcam a sessão para ser
+     * desfeita caso não tenham sido confirmadas.
+     *
+     * @param confirmar true para confirmar a transação
+     * @throws MiniException caso a confirmação falhe ou a transação tenha sido marcada para ser desfeita
+     */
+    void encerrarTransacao(final boolean confirmar) throws MiniException {
+        if (!confirmar) {
+            somenteDesfazer = true;
+        }
+        if (--transacoes > 0) {
+            return;
+        }
+        final boolean desfazer = somenteDesfazer;
+        somenteDesfazer = false;
+        if (desfazer) {
+            desfazer();
+            if (confirmar) {
+                throw new MiniException(Constantes.TRANSACAO_DESFEITA);
+            }
+        } else {
+            confirmar();
+        }
+    }
+
+    /**
+     * Desfaz o que não foi confirmado na conexão da sessão, mantendo-a aberta para os demais participantes. Dentro de
+     * uma {@link Transacao}, a transação também é marcada para ser desfeita ao seu término.
+     *
+     * @throws MiniException caso o rollback falhe ou o auto commit da conexão tenha sido reativado fora da sessão,
+     *         quando o trabalho já confirmado pelo banco não pode ser desfeito
+     */
+    public void desfazer() throws MiniException {
+        if (transacoes > 0) {
+            somenteDesfazer = true;
+        }
+        aoConfirmar = null;
+        if (conexao == null) {
+            return;
+        }
+        final boolean autoCommit;
+        try {
+            if (conexao.isClosed()) {
+                return;
+            }
+            autoCommit = conexao.getAutoCommit();
+            if (!autoCommit) {
+                conexao.rollback();
+            }
+        } catch (SQLException ex) {
+            throw new MiniException(Constantes.FALHA_FECHAR_CONEXAO, ex);
+        }
+        if (autoCommit) {
+            throw new MiniException(Constantes.DESFAZER_AUTO_COMMIT);
+        }
+    }
+
+    /**
+     * @return quantidade de conexões obtidas por esta sessão
+     */
+    public int getCheckouts() {
+        return checkouts;
+    }
+
+    /**
+     * @return quantidade total de conexões obtidas pelas sessões desde a inicialização
+     */
+    public static long getTotalCheckouts() {
+        return TOTAL_CHECKOUTS.get();
+    }
+
+    /**
+     * @return quantidade de conexões atualmente vinculadas a sessões abertas
+     */
+    public static int getConexoesAbertas() {
+        return CONEXOES_ABERTAS.get();
+    }
+
+    /**
+     * Encerra a participação na sessão. O último participante desfaz o que não foi confirmado, fecha a conexão e
+     * desvincula a sessão da thread.
+     *
+     * @throws MiniException
+     */
+    @Override
+    public void close() throws MiniException {
+        if (participantes == 0 || --participantes > 0) {
+            return;
+        }
+        ATUAL.remove();
+        try {
+            fecharLeitura();
+        } finally {
+            if (conexao != null) {
+                try {
+                    desfazer();
+                } finally {
+                    final Connection conn = conexao;
+                    conexao = null;
+                    CONEXOES_ABERTAS.decrementAndGet();
+                    restaurarAutoCommit(conn);
+                    fechar(conn);
+                }
+            }
+        }
+    }
+
+    /**
+     * Encerra a transação de leitura e devolve a conexão da réplica
+     */
+    private void fecharLeitura() throws MiniException {
+        if (conexaoLeitura == null) {
+            return;
+        }
+        final Connection conn = conexaoLeitura;
+        conexaoLeitura = null;
+        CONEXOES_ABERTAS.decrementAndGet();
+        try {
+            if (!conn.isClosed() && !conn.getAutoCommit()) {
+                conn.rollback();
+            }
+        } catch (SQLException ex) {
+            // a conexão é descartada ou validada pelo pool da réplica
+        } finally {
+            replica.liberar(conn);
+            replica = null;
+        }
+    }
+
+    /**
+     * Restaura o auto commit original da conexão antes de devolvê-la
+     */
+    private void restaurarAutoCommit(final Connection conn) {
+        try {
+            if (autoCommitOriginal && !conn.isClosed() && !conn.getAutoCommit()) {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            // a conexão é descartada ou validada pelo pool ao ser devolvida
+        }
+    }
+
+    private static void fechar(final Connection conn) throws MiniException {
+        try {
+            conn.close();
+        } catch (SQLException ex) {
+            throw new MiniException(Constantes.FALHA_FECHAR_CONEXAO, ex);
+        }
+    }
+}
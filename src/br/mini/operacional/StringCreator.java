@@ -1,46 +1,458 @@
 package br.mini.operacional;
 
-import java.io.InputStream;
-import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import br.mini.Constantes.Sql;
-import br.mini.Utils;
-import br.mini.annotations.Coluna;
-import br.mini.annotations.PseudoColuna;
+import br.mini.EntityMetadata;
+import br.mini.EntityMetadata.ColunaDescritor;
+import br.mini.EntityMetadata.PseudoColunaDescritor;
+import br.mini.Mapeador;
 import br.mini.annotations.PseudoTabela;
-import br.mini.annotations.Tabela;
+import br.mini.criterio.Criterio;
+import br.mini.exception.MiniException;
 
 public final class StringCreator {
 
+    /**
+     * Mapa com os templates de SQL já gerados. Como key, utiliza a classe, o tipo do SQL e sua variante
+     */
+    private static final ConcurrentMap<Template, String> TEMPLATES = new ConcurrentHashMap<>();
+
     private StringCreator() {
     }
 
     /**
-     * Cria-se um insert genérico a partir dos parâmetros de tabela e colunas do Objeto
+     * Tipos de SQL mantidos em {@link #TEMPLATES}
+     */
+    private enum TipoSql {
+
+        INSERT, UPDATE, UPDATE_PARCIAL, DELETE, DELETE_LOTE, SELECT, SELECT_CLOB, SELECT_PK, SELECT_PKS_LOTE,
+        SELECT_LOB, SELECT_LOBS_LOTE, COUNT, UNION;
+    }
+
+    /**
+     * Chave de {@link #TEMPLATES}
+     *
+     * @author figueiredo-lucas
+     *
+     */
+    private static final class Template {
+
+        private final Class<?> classe;
+        private final TipoSql tipo;
+        private final int variante;
+        /**
+         * Colunas do UPDATE parcial, campos de arquivo atualizados do UPDATE ou null para os demais tipos
+         */
+        private final BitSet colunas;
+
+        Template(final Class<?> classe, final TipoSql tipo, final int variante) {
+            this(classe, tipo, variante, null);
+        }
+
+        Template(final Class<?> classe, final TipoSql tipo, final int variante, final BitSet colunas) {
+            this.classe = classe;
+            this.tipo = tipo;
+            this.variante = variante;
+            this.colunas = colunas;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((classe.hashCode() * 31 + tipo.hashCode()) * 31 + variante) * 31
+                    + (colunas != null ? colunas.hashCode() : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Template)) {
+                return false;
+            }
+            final Template outro = (Template) obj;
+            return classe == outro.classe && tipo == outro.tipo && variante == outro.variante
+                    && (colunas == null ? outro.colunas == null : colunas.equals(outro.colunas));
+        }
+    }
+
+    /**
+     * Obtém o INSERT da classe do objeto, gerando-o apenas no primeiro acesso
      *
      * @param obj
+     * @return INSERT da classe
+     */
+    static String obterInsert(Object obj) {
+        return obterInsert(obj.getClass());
+    }
+
+    private static String obterInsert(Class<?> classe) {
+        final Template chave = new Template(classe, TipoSql.INSERT, 0);
+        final String sql = TEMPLATES.get(chave);
+        if (sql != null) {
+            return sql;
+        }
+        final EntityMetadata meta = EntityMetadata.obter(classe);
+        final Mapeador<?> mapeador = meta.getMapeador();
+        if (mapeador != null && mapeador.getInsert() != null && !meta.isIdentidade()) {
+            return registrar(chave, new StringBuilder(mapeador.getInsert()));
+        }
+        return registrar(chave, criaInsert(classe));
+    }
+
+    /**
+     * Obtém o UPDATE da classe do objeto. Cada combinação de campos de arquivo nulos gera uma variante própria, já
+     * que os mesmos não são atualizados.
+     *
+     * @param obj
+     * @return UPDATE da classe
+     * @throws MiniException
+     */
+    static String obterUpdate(Object obj) throws MiniException {
+        final EntityMetadata meta = EntityMetadata.obter(obj.getClass());
+        final Template chave = new Template(obj.getClass(), TipoSql.UPDATE, 0, varianteBlobs(meta, obj));
+        final String sql = TEMPLATES.get(chave);
+        return sql != null ? sql : registrar(chave, criaUpdate(meta, chave.colunas));
+    }
+
+    /**
+     * Obtém o UPDATE somente das colunas informadas, gerando-o apenas no primeiro acesso para cada combinação de
+     * colunas
+     *
+     * @param meta
+     * @param colunas Posições das colunas alteradas, conforme {@link ColunaDescritor#getPosicao()}
+     * @return UPDATE das colunas
+     */
+    static String obterUpdateParcial(EntityMetadata meta, BitSet colunas) {
+        final Template chave = new Template(meta.getClasse(), TipoSql.UPDATE_PARCIAL, 0, colunas);
+        final String sql = TEMPLATES.get(chave);
+        if (sql != null) {
+            return sql;
+        }
+        final StringBuilder sb = new StringBuilder("UPDATE ").append(meta.getNomeTabela()).append(" SET ");
+        boolean primeiro = true;
+        for (ColunaDescritor col : meta.getColunas()) {
+            if (!col.isPk() && colunas.get(col.getPosicao())) {
+                if (!primeiro) {
+                    sb.append(Sql.VIRGULA + Sql.ESPACO);
+                }
+                sb.append(col.getNome()).append(" = ?");
+                primeiro = false;
+            }
+        }
+        adicionarWherePk(sb, meta);
+        return registrar(new Template(meta.getClasse(), TipoSql.UPDATE_PARCIAL, 0, (BitSet) colunas.clone()), sb);
+    }
+
+    /**
+     * Obtém o DELETE da classe do objeto, gerando-o apenas no primeiro acesso
+     *
+     * @param obj
+     * @return DELETE da classe
+     */
+    static String obterDelete(Object obj) {
+        return obterDelete(obj.getClass());
+    }
+
+    private static String obterDelete(Class<?> classe) {
+        final Template chave = new Template(classe, TipoSql.DELETE, 0);
+        final String sql = TEMPLATES.get(chave);
+        if (sql != null) {
+            return sql;
+        }
+        final Mapeador<?> mapeador = EntityMetadata.obter(classe).getMapeador();
+        if (mapeador != null && mapeador.getDelete() != null) {
+            return registrar(chave, new StringBuilder(mapeador.getDelete()));
+        }
+        return registrar(chave, criaDelete(classe));
+    }
+
+    /**
+     * Arredonda a quantidade de linhas de um comando em lote por PK para a próxima potência de 2, limitada ao maior
+     * bloco da classe ({@link Operacoes#TAMANHO_IN} parâmetros). Desta forma, cada classe possui poucos formatos de
+     * SQL em {@link #TEMPLATES} e no cache de statements. As linhas excedentes devem ser preenchidas repetindo a PK da
+     * última linha do bloco.
+     *
+     * @param meta
+     * @param quantidade Quantidade de linhas do bloco
+     * @return quantidade de linhas do SQL
+     */
+    static int arredondarLote(EntityMetadata meta, int quantidade) {
+        final int maximo = Operacoes.TAMANHO_IN / meta.getPks().size();
+        final int potencia = quantidade <= 1 ? 1 : Integer.highestOneBit(quantidade - 1) << 1;
+        return Math.min(potencia, Math.max(maximo, quantidade));
+    }
+
+    /**
+     * Obtém o DELETE de uma quantidade de linhas da classe pelas suas PKs, arredondada por
+     * {@link #arredondarLote(EntityMetadata, int)} e gerado apenas no primeiro acesso para cada quantidade arredondada
+     *
+     * @param classe
+     * @param quantidade Quantidade de linhas
+     * @return DELETE das linhas
+     */
+    static String obterDeleteEmLote(Class<?> classe, int quantidade) {
+        final EntityMetadata meta = EntityMetadata.obter(classe);
+        final int linhas = arredondarLote(meta, quantidade);
+        final Template chave = new Template(classe, TipoSql.DELETE_LOTE, linhas);
+        final String sql = TEMPLATES.get(chave);
+        if (sql != null) {
+            return sql;
+        }
+        final StringBuilder strDelete = new StringBuilder("DELETE FROM ").append(meta.getNomeTabela());
+        adicionarWherePks(strDelete, meta, linhas);
+        return registrar(chave, strDelete);
+    }
+
+    /**
+     * Obtém o SELECT das PKs existentes dentre uma quantidade de linhas da classe, arredondada por
+     * {@link #arredondarLote(EntityMetadata, int)} e gerado apenas no primeiro acesso para cada quantidade arredondada
+     *
+     * @param classe
+     * @param quantidade Quantidade de linhas
+     * @return SELECT das PKs
+     */
+    static String obterSelectPksEmLote(Class<?> classe, int quantidade) {
+        final EntityMetadata meta = EntityMetadata.obter(classe);
+        final int linhas = arredondarLote(meta, quantidade);
+        final Template chave = new Template(classe, TipoSql.SELECT_PKS_LOTE, linhas);
+        final String sql = TEMPLATES.get(chave);
+        if (sql != null) {
+            return sql;
+        }
+        final StringBuilder strSelect = new StringBuilder("SELECT ");
+        boolean primeiro = true;
+        for (ColunaDescritor pk : meta.getPks()) {
+            if (!primeiro) {
+                strSelect.append(Sql.VIRGULA + Sql.ESPACO);
+            }
+            strSelect.append(pk.getNome());
+            primeiro = false;
+        }
+        strSelect.append(" FROM ").append(meta.getNomeTabela());
+        adicionarWherePks(strSelect, meta, linhas);
+        return registrar(chave, strSelect);
+    }
+
+    /**
+     * Obtém o select de uma coluna {@link Lob} pela PK, gerando-o apenas no primeiro acesso
+     *
+     * @param meta
+     * @param col
+     * @return select da coluna
+     */
+    static String obterSelectLob(EntityMetadata meta, ColunaDescritor col) {
+        final Template chave = new Template(meta.getClasse(), TipoSql.SELECT_LOB, col.getPosicao());
+        final String sql = TEMPLATES.get(chave);
+        if (sql != null) {
+            return sql;
+        }
+        final StringBuilder strSelect = new StringBuilder("SELECT ").append(col.getNome()).append(" FROM ")
+                .append(meta.getNomeTabela());
+        adicionarWherePk(strSelect, meta);
+        return registrar(chave, strSelect);
+    }
+
+    /**
+     * Obtém o select das PKs e das colunas {@link Lob} de CLOB de uma quantidade de linhas da classe, arredondada por
+     * {@link #arredondarLote(EntityMetadata, int)} e gerado apenas no primeiro acesso para cada quantidade arredondada
+     *
+     * @param meta
+     * @param quantidade Quantidade de linhas
+     * @return select das linhas
+     */
+    static String obterSelectLobsEmLote(EntityMetadata meta, int quantidade) {
+        final int linhas = arredondarLote(meta, quantidade);
+        final Template chave = new Template(meta.getClasse(), TipoSql.SELECT_LOBS_LOTE, linhas);
+        final String sql = TEMPLATES.get(chave);
+        if (sql != null) {
+            return sql;
+        }
+        final StringBuilder strSelect = new StringBuilder("SELECT ");
+        boolean primeiro = true;
+        for (ColunaDescritor col : meta.getColunas()) {
+            if (col.isPk() || col.isLazy() && col.isClob()) {
+                if (!primeiro) {
+                    strSelect.append(Sql.VIRGULA + Sql.ESPACO);
+                }
+                strSelect.append(col.getNome());
+                primeiro = false;
+            }
+        }
+        strSelect.append(" FROM ").append(meta.getNomeTabela());
+        adicionarWherePks(strSelect, meta, linhas);
+        return registrar(chave, strSelect);
+    }
+
+    /**
+     * Gera antecipadamente os SQLs da classe que não dependem dos valores do objeto, além do UPDATE sem e com todos
+     * os campos de arquivo. Utilizado na inicialização pelo {@link MiniBootstrap}.
+     *
+     * @param classe
+     */
+    static void preparar(Class<?> classe) {
+        final EntityMetadata meta = EntityMetadata.obter(classe);
+        if (meta.isPseudoTabela()) {
+            obterSelectUnion(classe);
+            return;
+        }
+        obterInsert(classe);
+        obterDelete(classe);
+        obterSelect(classe);
+        obterSelectComClob(classe);
+        obterSelectComPk(classe);
+        obterCount(classe);
+        final BitSet todos = new BitSet();
+        for (ColunaDescritor col : meta.getBlobs()) {
+            todos.set(col.getPosicao());
+        }
+        for (ColunaDescritor col : meta.getLazies()) {
+            todos.set(col.getPosicao());
+        }
+        for (BitSet variante : new BitSet[] {new BitSet(), todos}) {
+            final Template chave = new Template(classe, TipoSql.UPDATE, 0, variante);
+            if (!TEMPLATES.containsKey(chave)) {
+                registrar(chave, criaUpdate(meta, variante));
+            }
+        }
+    }
+
+    /**
+     * Obtém o select genérico da classe, gerando-o apenas no primeiro acesso
+     *
+     * @param classe
+     * @return select da classe
+     */
+    static String obterSelect(Class<?> classe) {
+        final Template chave = new Template(classe, TipoSql.SELECT, 0);
+        final String sql = TEMPLATES.get(chave);
+        return sql != null ? sql : registrar(chave, criaSelect(classe));
+    }
+
+    /**
+     * Obtém o select genérico da classe já acoplado ao select de CLOBs quando a classe os possui
+     *
+     * @param classe
+     * @return select da classe com os campos CLOB
+     */
+    static String obterSelectComClob(Class<?> classe) {
+        final Template chave = new Template(classe, TipoSql.SELECT_CLOB, 0);
+        final String sql = TEMPLATES.get(chave);
+        if (sql != null) {
+            return sql;
+        }
+        final StringBuilder strSelect = criaSelect(classe);
+        return registrar(chave, EntityMetadata.obter(classe).existeClob() ? criaSelectClob(classe, strSelect)
+                : strSelect);
+    }
+
+    /**
+     * Obtém o select por PK da classe, gerando-o apenas no primeiro acesso
+     *
+     * @param classe
+     * @return select por PK da classe
+     */
+    static String obterSelectComPk(Class<?> classe) {
+        final Template chave = new Template(classe, TipoSql.SELECT_PK, 0);
+        final String sql = TEMPLATES.get(chave);
+        if (sql != null) {
+            return sql;
+        }
+        final Mapeador<?> mapeador = EntityMetadata.obter(classe).getMapeador();
+        if (mapeador != null && mapeador.getSelectComPk() != null) {
+            return registrar(chave, new StringBuilder(mapeador.getSelectComPk()));
+        }
+        return registrar(chave, criaSelectComPk(classe));
+    }
+
+    /**
+     * Obtém o count da classe, gerando-o apenas no primeiro acesso
+     *
+     * @param classe
+     * @return count da classe
+     */
+    static String obterCount(Class<?> classe) {
+        final Template chave = new Template(classe, TipoSql.COUNT, 0);
+        final String sql = TEMPLATES.get(chave);
+        return sql != null ? sql : registrar(chave, criaCount(classe));
+    }
+
+    /**
+     * Obtém o select da {@link PseudoTabela}, gerando-o apenas no primeiro acesso
+     *
+     * @param classe
+     * @return select com os UNIONs da classe
+     */
+    static String obterSelectUnion(Class<?> classe) {
+        final Template chave = new Template(classe, TipoSql.UNION, 0);
+        final String sql = TEMPLATES.get(chave);
+        return sql != null ? sql : registrar(chave, criaSelectUnion(classe));
+    }
+
+    /**
+     * Registra o SQL gerado em {@link #TEMPLATES}. Caso outra thread já o tenha registrado, retorna a instância
+     * existente para que o mesmo SQL seja sempre a mesma String.
+     *
+     * @param chave
+     * @param sb
+     * @return SQL registrado
+     */
+    private static String registrar(Template chave, StringBuilder sb) {
+        final String sql = sb.toString();
+        final String existente = TEMPLATES.putIfAbsent(chave, sql);
+        return existente != null ? existente : sql;
+    }
+
+    /**
+     * Calcula a variante do UPDATE a partir dos campos de arquivo preenchidos e dos campos {@link Lob} com novo
+     * conteúdo. Assim como no UPDATE parcial, os campos são identificados pela sua posição nos metadados, sem limite
+     * na quantidade de colunas.
+     *
+     * @param meta
+     * @param obj
+     * @return posições dos campos de arquivo atualizados, conforme {@link ColunaDescritor#getPosicao()}
+     * @throws MiniException
+     */
+    static BitSet varianteBlobs(EntityMetadata meta, Object obj) throws MiniException {
+        final BitSet arquivos = new BitSet();
+        for (ColunaDescritor col : meta.getBlobs()) {
+            if (col.getAcessor().obter(obj) != null) {
+                arquivos.set(col.getPosicao());
+            }
+        }
+        for (ColunaDescritor col : meta.getLazies()) {
+            if (Lob.isAlterado(col.getAcessor().obter(obj))) {
+                arquivos.set(col.getPosicao());
+            }
+        }
+        return arquivos;
+    }
+
+    /**
+     * Cria-se um insert genérico a partir dos parâmetros de tabela e colunas do Objeto. PKs de identidade são omitidas,
+     * sendo geradas pelo banco.
+     *
+     * @param classe
      * @return
      */
-    static StringBuilder criaInsert(Object obj) {
+    static StringBuilder criaInsert(Class<?> classe) {
         StringBuilder str = new StringBuilder("INSERT INTO ");
-        StringBuilder interrogs = new StringBuilder();
-        Class<?> classe = obj.getClass();
-        if (classe.isAnnotationPresent(Tabela.class)) {
-            str.append(classe.getAnnotation(Tabela.class).nome());
+        EntityMetadata meta = EntityMetadata.obter(classe);
+        if (meta.isTabela()) {
+            StringBuilder interrogs = new StringBuilder();
+            str.append(meta.getNomeTabela());
             str.append(" (");
-            Field[] campos = classe.getDeclaredFields();
-            for (int indice = 0; indice < campos.length; indice++) {
-                if (campos[indice].isAnnotationPresent(Coluna.class)) {
-                    str.append(campos[indice].getAnnotation(Coluna.class).nome());
-                    interrogs.append(Sql.PARAM);
-                    if (indice < campos.length - 1 && campos[indice + 1].isAnnotationPresent(Coluna.class)) {
-                        str.append(Sql.VIRGULA + Sql.ESPACO);
-                        interrogs.append(Sql.VIRGULA + Sql.ESPACO);
-                    }
+            for (ColunaDescritor col : meta.getColunas()) {
+                if (col.isPk() && meta.isIdentidade()) {
+                    continue;
                 }
+                if (interrogs.length() > 0) {
+                    str.append(Sql.VIRGULA + Sql.ESPACO);
+                    interrogs.append(Sql.VIRGULA + Sql.ESPACO);
+                }
+                str.append(col.getNome());
+                interrogs.append(Sql.PARAM);
             }
             str.append(") VALUES (").append(interrogs).append(")");
         }
@@ -48,45 +460,41 @@ public final class StringCreator {
     }
 
     /**
-     * Cria um update genérico a partir dos parametros de tabela e colunas do Objeto
+     * Cria um update genérico a partir dos parametros de tabela e colunas do Objeto. Campos de arquivo nulos não são
+     * atualizados.
      *
      * @param obj
      * @return
-     * @throws IllegalAccessException
-     * @throws IllegalArgumentException
+     * @throws MiniException
      */
-    static StringBuilder criaUpdate(Object obj) throws IllegalArgumentException, IllegalAccessException {
+    static StringBuilder criaUpdate(Object obj) throws MiniException {
+        EntityMetadata meta = EntityMetadata.obter(obj.getClass());
+        return criaUpdate(meta, varianteBlobs(meta, obj));
+    }
+
+    /**
+     * Cria um update genérico para a variante de campos de arquivo informada
+     *
+     * @param meta
+     * @param arquivos Campos de arquivo preenchidos, conforme {@link #varianteBlobs(EntityMetadata, Object)}
+     * @return
+     */
+    private static StringBuilder criaUpdate(EntityMetadata meta, BitSet arquivos) {
         StringBuilder strUpdate = new StringBuilder("UPDATE ");
-        StringBuilder strWhere = new StringBuilder();
-        Class<?> classe = obj.getClass();
-        boolean isInputStream;
-        if (classe.isAnnotationPresent(Tabela.class)) {
-            strUpdate.append(classe.getAnnotation(Tabela.class).nome());
+        if (meta.isTabela()) {
+            strUpdate.append(meta.getNomeTabela());
             strUpdate.append(" SET ");
-            Field[] campos = classe.getDeclaredFields();
-            for (int indice = 0; indice < campos.length; indice++) {
-                campos[indice].setAccessible(true);
-                if (campos[indice].isAnnotationPresent(Coluna.class)
-                        && (!InputStream.class.isAssignableFrom(campos[indice].getType()) || campos[indice].get(obj) != null)) {
-                    if (!campos[indice].getAnnotation(Coluna.class).isPk()) {
-                        strUpdate.append(campos[indice].getAnnotation(Coluna.class).nome()).append(" = ?");
-                        if (indice < campos.length - 1 && campos[indice + 1].isAnnotationPresent(Coluna.class)) {
-                            campos[indice + 1].setAccessible(true);
-                            isInputStream = InputStream.class.isAssignableFrom(campos[indice + 1].getType());
-                            if (!isInputStream || (isInputStream && campos[indice + 1].get(obj) != null)
-                                    || !(indice + 1 == campos.length - 1)) {
-                                strUpdate.append(Sql.VIRGULA + Sql.ESPACO);
-                            }
-                        }
-                    } else {
-                        if (!strWhere.toString().equals("")) {
-                            strWhere.append(" AND ");
-                        }
-                        strWhere.append(" WHERE ").append(campos[indice].getAnnotation(Coluna.class).nome()).append(" = ?");
+            boolean primeiro = true;
+            for (ColunaDescritor col : meta.getColunas()) {
+                if (!col.isPk() && (!col.isBlob() && !col.isLazy() || arquivos.get(col.getPosicao()))) {
+                    if (!primeiro) {
+                        strUpdate.append(Sql.VIRGULA + Sql.ESPACO);
                     }
+                    strUpdate.append(col.getNome()).append(" = ?");
+                    primeiro = false;
                 }
             }
-            strUpdate.append(strWhere);
+            adicionarWherePk(strUpdate, meta);
         }
         return strUpdate;
     }
@@ -94,26 +502,47 @@ public final class StringCreator {
     /**
      * Cria um delete genérico a partir dos parametros de tabela e colunas do Objeto
      *
-     * @param obj
+     * @param classe
      * @return
      */
-    static StringBuilder criaDelete(Object obj) {
+    static StringBuilder criaDelete(Class<?> classe) {
         StringBuilder strUpdate = new StringBuilder("DELETE FROM ");
-        StringBuilder strWhere = new StringBuilder();
-        Class<?> classe = obj.getClass();
-        if (classe.isAnnotationPresent(Tabela.class)) {
-            strUpdate.append(classe.getAnnotation(Tabela.class).nome());
-            for (Field campo : classe.getDeclaredFields()) {
-                if (campo.isAnnotationPresent(Coluna.class)) {
-                    if (campo.getAnnotation(Coluna.class).isPk()) {
-                        if (!strWhere.toString().equals("")) {
-                            strWhere.append(" AND ");
-                        }
-                        strWhere.append(" WHERE ").append(campo.getAnnotation(Coluna.class).nome()).append(" = ?");
-                    }
-                }
+        EntityMetadata meta = EntityMetadata.obter(classe);
+        if (meta.isTabela()) {
+            strUpdate.append(meta.getNomeTabela());
+            adicionarWherePk(strUpdate, meta);
+        }
+        return strUpdate;
+    }
+
+    /**
+     * Cria o início de um DELETE em lote da tabela, sem condição, a ser complementado por
+     * {@link Criterio#construirCriterioEmLote(StringBuilder, Class)}
+     *
+     * @param meta
+     * @return DELETE da tabela
+     */
+    static StringBuilder criaDeleteCriterio(EntityMetadata meta) {
+        return new StringBuilder("DELETE FROM ").append(meta.getNomeTabela());
+    }
+
+    /**
+     * Cria o início de um UPDATE em lote das colunas informadas, sem condição, a ser complementado por
+     * {@link Criterio#construirCriterioEmLote(StringBuilder, Class)}
+     *
+     * @param meta
+     * @param colunas Colunas atualizadas, na ordem dos parâmetros
+     * @return UPDATE das colunas
+     */
+    static StringBuilder criaUpdateCriterio(EntityMetadata meta, List<ColunaDescritor> colunas) {
+        final StringBuilder strUpdate = new StringBuilder("UPDATE ").append(meta.getNomeTabela()).append(" SET ");
+        boolean primeiro = true;
+        for (ColunaDescritor col : colunas) {
+            if (!primeiro) {
+                strUpdate.append(Sql.VIRGULA + Sql.ESPACO);
             }
-            strUpdate.append(strWhere);
+            strUpdate.append(col.getNome()).append(" = ?");
+            primeiro = false;
         }
         return strUpdate;
     }
@@ -126,26 +555,20 @@ public final class StringCreator {
      */
     static StringBuilder criaSelect(Class<?> classe) {
         StringBuilder strSelect = new StringBuilder("SELECT DISTINCT ");
-        if (classe.isAnnotationPresent(Tabela.class)) {
-            String alias = Utils.Strings.descapitalizaTabela(classe.getAnnotation(Tabela.class).nome()) + "1";
-            Field[] campos = classe.getDeclaredFields();
-            for (int indice = 0; indice < campos.length; indice++) {
-                if (campos[indice].isAnnotationPresent(Coluna.class)
-                        && !InputStream.class.isAssignableFrom(campos[indice].getType())
-                        && !campos[indice].getAnnotation(Coluna.class).isClob()) {
-                    strSelect.append(alias).append(Sql.PONTO).append(campos[indice].getAnnotation(Coluna.class).nome());
-                    if (indice < campos.length - 1 && campos[indice + 1].isAnnotationPresent(Coluna.class)
-                            && !InputStream.class.isAssignableFrom(campos[indice + 1].getType())
-                            && !campos[indice + 1].getAnnotation(Coluna.class).isClob()) {
+        EntityMetadata meta = EntityMetadata.obter(classe);
+        if (meta.isTabela()) {
+            String alias = meta.getAliasTabela() + "1";
+            boolean primeiro = true;
+            for (ColunaDescritor col : meta.getColunas()) {
+                if (!col.isBlob() && !col.isClob() && !col.isLazy()) {
+                    if (!primeiro) {
                         strSelect.append(Sql.VIRGULA + Sql.ESPACO);
                     }
-                } else if (campos[indice].isAnnotationPresent(Coluna.class) && indice < campos.length - 1
-                        && campos[indice + 1].isAnnotationPresent(Coluna.class)
-                        && !campos[indice + 1].getAnnotation(Coluna.class).isClob()) {
-                    strSelect.append(Sql.VIRGULA + Sql.ESPACO);
+                    strSelect.append(alias).append(Sql.PONTO).append(col.getNome());
+                    primeiro = false;
                 }
             }
-            strSelect.append(" FROM ").append(classe.getAnnotation(Tabela.class).nome()).append(Sql.ESPACO).append(alias);
+            strSelect.append(" FROM ").append(meta.getNomeTabela()).append(Sql.ESPACO).append(alias);
         }
         return strSelect;
     }
@@ -158,29 +581,20 @@ public final class StringCreator {
      */
     static StringBuilder criaSelectComPk(Class<?> classe) {
         StringBuilder strSelect = new StringBuilder("SELECT ");
-        StringBuilder strWhere = new StringBuilder();
-        if (classe.isAnnotationPresent(Tabela.class)) {
-            Field[] campos = classe.getDeclaredFields();
-            for (int indice = 0; indice < campos.length; indice++) {
-                if (campos[indice].isAnnotationPresent(Coluna.class)
-                        && !InputStream.class.isAssignableFrom(campos[indice].getType())) {
-                    strSelect.append(campos[indice].getAnnotation(Coluna.class).nome());
-                    if (indice < campos.length - 1 && campos[indice + 1].isAnnotationPresent(Coluna.class)
-                            && !InputStream.class.isAssignableFrom(campos[indice + 1].getType())) {
+        EntityMetadata meta = EntityMetadata.obter(classe);
+        if (meta.isTabela()) {
+            boolean primeiro = true;
+            for (ColunaDescritor col : meta.getColunas()) {
+                if (!col.isBlob() && !col.isLazy()) {
+                    if (!primeiro) {
                         strSelect.append(Sql.VIRGULA + Sql.ESPACO);
                     }
-                    if (campos[indice].getAnnotation(Coluna.class).isPk()) {
-                        if (!strWhere.toString().equals("")) {
-                            strWhere.append(" AND ");
-                        }
-                        strWhere.append(" WHERE ").append(campos[indice].getAnnotation(Coluna.class).nome()).append(" = ?");
-                    }
-                } else if (campos[indice].isAnnotationPresent(Coluna.class) && indice < campos.length - 1
-                        && campos[indice + 1].isAnnotationPresent(Coluna.class)) {
-                    strSelect.append(Sql.VIRGULA + Sql.ESPACO);
+                    strSelect.append(col.getNome());
+                    primeiro = false;
                 }
             }
-            strSelect.append(" FROM ").append(classe.getAnnotation(Tabela.class).nome()).append(strWhere.toString());
+            strSelect.append(" FROM ").append(meta.getNomeTabela());
+            adicionarWherePk(strSelect, meta);
         }
         return strSelect;
     }
@@ -195,20 +609,35 @@ public final class StringCreator {
      */
     static StringBuilder criaSelectPkArquivo(Class<?> classe, String nomeCampo) {
         StringBuilder strSelect = new StringBuilder("SELECT " + nomeCampo);
-        StringBuilder strWhere = new StringBuilder();
-        if (classe.isAnnotationPresent(Tabela.class)) {
-            Field[] campos = classe.getDeclaredFields();
-            for (Field campo : campos) {
-                if (campo.isAnnotationPresent(Coluna.class) && campo.getAnnotation(Coluna.class).isPk()) {
-                    strWhere.append(" WHERE ").append(campo.getAnnotation(Coluna.class).nome()).append(" = ?");
-                    break;
-                }
+        EntityMetadata meta = EntityMetadata.obter(classe);
+        if (meta.isTabela()) {
+            strSelect.append(" FROM ").append(meta.getNomeTabela());
+            if (meta.getPk() != null) {
+                strSelect.append(" WHERE ").append(meta.getPk().getNome()).append(" = ?");
             }
-            strSelect.append(" FROM ").append(classe.getAnnotation(Tabela.class).nome()).append(strWhere.toString());
         }
         return strSelect;
     }
 
+    /**
+     * Cria um update do campo que contém os dados de um arquivo, a partir da pk da classe
+     *
+     * @param classe
+     * @param nomeCampo
+     * @return String com update criado
+     */
+    static StringBuilder criaUpdatePkArquivo(Class<?> classe, String nomeCampo) {
+        StringBuilder strUpdate = new StringBuilder("UPDATE ");
+        EntityMetadata meta = EntityMetadata.obter(classe);
+        if (meta.isTabela()) {
+            strUpdate.append(meta.getNomeTabela()).append(" SET ").append(nomeCampo).append(" = ?");
+            if (meta.getPk() != null) {
+                strUpdate.append(" WHERE ").append(meta.getPk().getNome()).append(" = ?");
+            }
+        }
+        return strUpdate;
+    }
+
     /**
      * Método para tratar o select existente para trazer o campo do CLOB também. Utilizado pois campos CLOB não aceitam
      * a clausula DISTINCT
@@ -219,27 +648,21 @@ public final class StringCreator {
      */
     public static StringBuilder criaSelectClob(Class<?> classe, StringBuilder subString) {
         StringBuilder strSelect = new StringBuilder("SELECT ");
-        if (classe.isAnnotationPresent(Tabela.class)) {
-            String alias = Utils.Strings.descapitalizaTabela(classe.getAnnotation(Tabela.class).nome()) + "_sup";
-            Field[] campos = classe.getDeclaredFields();
-            String PK = "";
-            for (int indice = 0; indice < campos.length; indice++) {
-                if (campos[indice].isAnnotationPresent(Coluna.class)
-                        && campos[indice].getAnnotation(Coluna.class).isPk()) {
-                    PK = campos[indice].getAnnotation(Coluna.class).nome();
-                }
-                if (campos[indice].isAnnotationPresent(Coluna.class)
-                        && campos[indice].getAnnotation(Coluna.class).isClob()) {
-                    strSelect.append(alias).append(Sql.PONTO).append(campos[indice].getAnnotation(Coluna.class).nome());
-                    if (indice < campos.length - 1 && campos[indice + 1].isAnnotationPresent(Coluna.class)
-                            && campos[indice + 1].getAnnotation(Coluna.class).isClob()) {
-                        strSelect.append(Sql.VIRGULA).append(Sql.ESPACO);
-                    }
+        EntityMetadata meta = EntityMetadata.obter(classe);
+        if (meta.isTabela()) {
+            String alias = meta.getAliasTabela() + "_sup";
+            String PK = meta.getPk() != null ? meta.getPk().getNome() : "";
+            boolean primeiro = true;
+            for (ColunaDescritor col : meta.getClobs()) {
+                if (!primeiro) {
+                    strSelect.append(Sql.VIRGULA).append(Sql.ESPACO);
                 }
+                strSelect.append(alias).append(Sql.PONTO).append(col.getNome());
+                primeiro = false;
             }
             strSelect.append(", sub.* FROM (").append(subString).append(") sub ");
-            strSelect.append("INNER JOIN ").append(classe.getAnnotation(Tabela.class).nome()).append(Sql.ESPACO).append(alias);
-            strSelect.append(" ON (sub.").append(PK).append(" = ").append(alias).append(Sql.PONTO).append(PK ).append(")");
+            strSelect.append("INNER JOIN ").append(meta.getNomeTabela()).append(Sql.ESPACO).append(alias);
+            strSelect.append(" ON (sub.").append(PK).append(" = ").append(alias).append(Sql.PONTO).append(PK).append(")");
         }
         return strSelect;
     }
@@ -252,34 +675,27 @@ public final class StringCreator {
      */
     static StringBuilder criaSelectUnion(Class<?> classe) {
         StringBuilder strSelect = new StringBuilder("");
-        if (classe.isAnnotationPresent(PseudoTabela.class)) {
-            String[] tabelas = classe.getAnnotation(PseudoTabela.class).tabelas();
+        EntityMetadata meta = EntityMetadata.obter(classe);
+        if (meta.isPseudoTabela()) {
+            String[] tabelas = meta.getPseudoTabela().tabelas();
             for (int indice = 0; indice < tabelas.length; indice++) {
                 strSelect.append(" SELECT ");
-                Field[] campos = classe.getDeclaredFields();
-                if (classe.getSuperclass() != null && classe.getSuperclass() != Object.class) {
-                    List<Field> camposList = new ArrayList<>();
-                    camposList.addAll(Arrays.asList(classe.getSuperclass().getDeclaredFields()));
-                    camposList.addAll(Arrays.asList(campos));
-                    campos = new Field[camposList.size()];
-                    camposList.toArray(campos);
-                }
-                for (int indCampo = 0; indCampo < campos.length; indCampo++) {
-                    if (campos[indCampo].isAnnotationPresent(PseudoColuna.class)) {
-                        strSelect.append(campos[indCampo].getAnnotation(PseudoColuna.class).colunas()[indice]);
-                        strSelect.append(" AS ").append(campos[indCampo].getAnnotation(PseudoColuna.class).alias());
-                        if (indCampo + 1 < campos.length) {
-                            strSelect.append(Sql.VIRGULA + Sql.ESPACO);
-                        }
+                boolean primeiro = true;
+                for (PseudoColunaDescritor col : meta.getPseudoColunas()) {
+                    if (!primeiro) {
+                        strSelect.append(Sql.VIRGULA + Sql.ESPACO);
                     }
+                    strSelect.append(col.getColuna(indice));
+                    strSelect.append(" AS ").append(col.getAlias());
+                    primeiro = false;
                 }
                 strSelect.append(" FROM ").append(tabelas[indice]);
                 if (indice + 1 < tabelas.length) {
                     strSelect.append(" UNION ");
                 }
             }
-            criaSelectPaiUnion(strSelect, classe);
-            criaJoinUnion(strSelect, classe);
+            criaSelectPaiUnion(strSelect, meta);
+            criaJoinUnion(strSelect, meta);
         }
         return strSelect;
     }
@@ -290,69 +706,54 @@ public final class StringCreator {
      *
      *
      * @param strSelect
-     * @param classe
+     * @param meta
      */
-    private static void criaSelectPaiUnion(StringBuilder strSelect, Class<?> classe) {
+    private static void criaSelectPaiUnion(StringBuilder strSelect, EntityMetadata meta) {
         String nomeTabela;
         StringBuilder sup = new StringBuilder(" SELECT ");
-        Field[] campos = classe.getDeclaredFields();
-        if (classe.getSuperclass() != null && classe.getSuperclass() != Object.class) {
-            List<Field> camposList = new ArrayList<>();
-            camposList.addAll(Arrays.asList(classe.getSuperclass().getDeclaredFields()));
-            camposList.addAll(Arrays.asList(campos));
-            campos = new Field[camposList.size()];
-            camposList.toArray(campos);
-        }
-        for (int indCampo = 0; indCampo < campos.length; indCampo++) {
-            if (campos[indCampo].isAnnotationPresent(PseudoColuna.class)) {
-                nomeTabela = classe.getAnnotation(PseudoTabela.class).alias();
-                PseudoColuna pseudoCol = campos[indCampo].getAnnotation(PseudoColuna.class);
-                if (pseudoCol.referencia() == Object.class) {
-                    sup.append(nomeTabela).append(Sql.PONTO).append(pseudoCol.alias());
-                } else {
-                    nomeTabela = Utils.Strings.descapitalizaTabela(pseudoCol.referencia().getAnnotation(Tabela.class)
-                            .nome())
-                            + "1";
-                    sup.append(nomeTabela).append(Sql.PONTO).append(pseudoCol.campoReferencia());
-                }
-                if (indCampo + 1 < campos.length) {
-                    sup.append(Sql.VIRGULA).append(Sql.ESPACO);
-                }
+        boolean primeiro = true;
+        for (PseudoColunaDescritor col : meta.getPseudoColunas()) {
+            if (!primeiro) {
+                sup.append(Sql.VIRGULA).append(Sql.ESPACO);
             }
+            if (!col.isReferenciada()) {
+                sup.append(meta.getNomeTabela()).append(Sql.PONTO).append(col.getAlias());
+            } else {
+                nomeTabela = EntityMetadata.obter(col.getReferencia()).getAliasTabela() + "1";
+                sup.append(nomeTabela).append(Sql.PONTO).append(col.getCampoReferencia());
+            }
+            primeiro = false;
         }
         sup.append(" FROM (");
         strSelect.insert(0, sup);
-        strSelect.append(" ) ").append(classe.getAnnotation(PseudoTabela.class).alias());
+        strSelect.append(" ) ").append(meta.getNomeTabela());
     }
 
     /**
      * Adição do join que utilizando os dados gerados do select passado por parâmetro. Método privado utilizado apenas
      * {@link #criaSelectUnion(Class)}. A junção é feita a partir do select externo criado pelo método
-     * {@link #criaSelectPaiUnion(StringBuilder, Class)}
+     * {@link #criaSelectPaiUnion(StringBuilder, EntityMetadata)}
      *
      * @param strSelect
-     * @param classe
+     * @param meta
      */
-    private static void criaJoinUnion(StringBuilder strSelect, Class<?> classe) {
+    private static void criaJoinUnion(StringBuilder strSelect, EntityMetadata meta) {
         StringBuilder sbJoin = new StringBuilder("");
         String nomeTabela;
-        Field[] campos = classe.getDeclaredFields();
-        for (Field campo : campos) {
-            if (campo.isAnnotationPresent(PseudoColuna.class) && campo.getAnnotation(PseudoColuna.class).referencia() != Object.class) {
-                PseudoColuna pseudoCol = campo.getAnnotation(PseudoColuna.class);
-                nomeTabela = Utils.Strings.descapitalizaTabela(pseudoCol.referencia().getAnnotation(Tabela.class)
-                        .nome())
-                        + "1";
+        for (PseudoColunaDescritor col : meta.getPseudoColunas()) {
+            if (col.isReferenciada()) {
+                EntityMetadata metaRef = EntityMetadata.obter(col.getReferencia());
+                nomeTabela = metaRef.getAliasTabela() + "1";
                 if (sbJoin.indexOf(nomeTabela) < 0) {
                     sbJoin.append(" LEFT OUTER JOIN ");
-                    sbJoin.append(pseudoCol.referencia().getAnnotation(Tabela.class).nome()).append(Sql.ESPACO).append(nomeTabela);
+                    sbJoin.append(metaRef.getNomeTabela()).append(Sql.ESPACO).append(nomeTabela);
                     sbJoin.append(" ON (");
-                    sbJoin.append(classe.getAnnotation(PseudoTabela.class).alias()).append(Sql.PONTO).append(pseudoCol.alias());
+                    sbJoin.append(meta.getNomeTabela()).append(Sql.PONTO).append(col.getAlias());
                     sbJoin.append(" = ");
                     sbJoin.append(nomeTabela).append(Sql.PONTO)
-                            .append((pseudoCol.campoVinculo().equals("")
-                                    ? Utils.capturaNomePk(pseudoCol.referencia())
-                                    : pseudoCol.campoVinculo()))
+                            .append((col.getCampoVinculo().equals("")
+                                    ? metaRef.getPk().getNome()
+                                    : col.getCampoVinculo()))
                             .append(") ");
                 }
             }
@@ -368,20 +769,61 @@ public final class StringCreator {
      */
     static StringBuilder criaCount(Class<?> classe) {
         StringBuilder strSelect = new StringBuilder("SELECT COUNT(DISTINCT ");
-        if (classe.isAnnotationPresent(Tabela.class)) {
-            String alias = Utils.Strings.descapitalizaTabela(classe.getAnnotation(Tabela.class).nome()) + "1";
-            Field[] campos = classe.getDeclaredFields();
-            for (Field campo : campos) {
-                if (campo.isAnnotationPresent(Coluna.class) && campo.getAnnotation(Coluna.class).isPk()) {
-                    strSelect.append(alias).append(Sql.PONTO).append(campo.getAnnotation(Coluna.class).nome());
-                    break;
-                }
+        EntityMetadata meta = EntityMetadata.obter(classe);
+        if (meta.isTabela()) {
+            String alias = meta.getAliasTabela() + "1";
+            if (meta.getPk() != null) {
+                strSelect.append(alias).append(Sql.PONTO).append(meta.getPk().getNome());
             }
-            strSelect.append(") as TOTAL FROM ").append(classe.getAnnotation(Tabela.class).nome()).append(Sql.ESPACO).append(alias);
+            strSelect.append(") as TOTAL FROM ").append(meta.getNomeTabela()).append(Sql.ESPACO).append(alias);
         }
         return strSelect;
     }
 
+    /**
+     * Adiciona a cláusula WHERE com todas as colunas de PK da classe
+     *
+     * @param sb String a ser concatenada
+     * @param meta Metadados da classe
+     */
+    private static void adicionarWherePk(StringBuilder sb, EntityMetadata meta) {
+        boolean primeiro = true;
+        for (ColunaDescritor pk : meta.getPks()) {
+            sb.append(primeiro ? " WHERE " : " AND ").append(pk.getNome()).append(" = ?");
+            primeiro = false;
+        }
+    }
+
+    /**
+     * Adiciona o WHERE de várias linhas pelas PKs: <code>PK IN (?, ?)</code> para PKs simples ou
+     * <code>(PK1 = ? AND PK2 = ?) OR (...)</code> para PKs compostas
+     *
+     * @param sb
+     * @param meta
+     * @param quantidade Quantidade de linhas
+     */
+    private static void adicionarWherePks(StringBuilder sb, EntityMetadata meta, int quantidade) {
+        final List<ColunaDescritor> pks = meta.getPks();
+        if (pks.size() == 1) {
+            sb.append(" WHERE ").append(pks.get(0).getNome()).append(" IN (");
+            for (int linha = 0; linha < quantidade; linha++) {
+                sb.append(linha > 0 ? Sql.VIRGULA + Sql.ESPACO + Sql.PARAM : Sql.PARAM);
+            }
+            sb.append(Sql.FECHA_PARENT);
+            return;
+        }
+        sb.append(" WHERE ");
+        for (int linha = 0; linha < quantidade; linha++) {
+            sb.append(linha > 0 ? " OR (" : Sql.ABRE_PARENT);
+            boolean primeiro = true;
+            for (ColunaDescritor pk : pks) {
+                sb.append(primeiro ? "" : " AND ").append(pk.getNome()).append(" = ?");
+                primeiro = false;
+            }
+            sb.append(Sql.FECHA_PARENT);
+        }
+    }
+
     /**
      * Criação do select utilizado pelo {@link ModeloPaginator} para paginar.
      *
@@ -0,0 +1,121 @@
+package br.mini.operacional;
+
+import br.mini.Constantes;
+import br.mini.exception.MiniException;
+
+/**
+ * Transação explícita sobre a {@link Sessao} da thread corrente. Enquanto estiver aberta, as operações de
+ * {@link Operacoes} compartilham a mesma conexão e não confirmam o seu trabalho individualmente; a confirmação é única,
+ * no {@link #confirmar()}. Caso a transação seja encerrada sem confirmação, ou alguma operação falhe, todo o trabalho é
+ * desfeito.
+ *
+ * <pre>
+ * try (Transacao tx = Transacao.iniciar()) {
+ *     operacoes.salvar(pedido);
+ *     operacoes.salvar(item);
+ *     tx.confirmar();
+ * }
+ * </pre>
+ *
+ * ou, através de um {@link Trabalho}:
+ *
+ * <pre>
+ * Transacao.executar(new Transacao.Trabalho&lt;Boolean&gt;() {
+ *
+ *     public Boolean executar() throws MiniException {
+ *         return operacoes.salvar(pedido) &amp;&amp; operacoes.salvar(item);
+ *     }
+ * });
+ * </pre>
+ *
+ * Transações aninhadas participam da transação mais externa, que é a única a confirmar ou desfazer.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public final class Transacao implements AutoCloseable {
+
+    private final Sessao sessao;
+    private boolean encerrada;
+
+    private Transacao(final Sessao sessao) {
+        this.sessao = sessao;
+    }
+
+    /**
+     * Inicia uma transação na sessão da thread corrente, abrindo-a caso necessário
+     *
+     * @return transação iniciada
+     */
+    public static Transacao iniciar() {
+        final Sessao sessao = Sessao.abrir();
+        sessao.iniciarTransacao();
+        return new Transacao(sessao);
+    }
+
+    /**
+     * Executa o trabalho em uma transação, confirmando-a ao seu término ou desfazendo-a caso alguma exceção seja
+     * lançada
+     *
+     * @param <T>
+     * @param trabalho
+     * @return retorno do trabalho
+     * @throws MiniException
+     */
+    public static <T> T executar(final Trabalho<T> trabalho) throws MiniException {
+        try (Transacao tx = iniciar()) {
+            final T retorno = trabalho.executar();
+            tx.confirmar();
+            return retorno;
+        }
+    }
+
+    /**
+     * Confirma a transação. Caso seja uma transação aninhada, a confirmação fica a cargo da mais externa.
+     *
+     * @throws MiniException caso a confirmação falhe ou alguma operação da transação tenha falhado
+     */
+    public void confirmar() throws MiniException {
+        if (encerrada) {
+            throw new MiniException(Constantes.SESSAO_ENCERRADA);
+        }
+        encerrada = true;
+        sessao.encerrarTransacao(true);
+    }
+
+    /**
+     * Desfaz a transação
+     *
+     * @throws MiniException
+     */
+    public void desfazer() throws MiniException {
+        if (!encerrada) {
+            encerrada = true;
+            sessao.encerrarTransacao(false);
+        }
+    }
+
+    /**
+     * Encerra a transação, desfazendo-a caso não tenha sido confirmada, e a participação na sessão
+     *
+     * @throws MiniException
+     */
+    @Override
+    public void close() throws MiniException {
+        try {
+            desfazer();
+        } finally {
+            sessao.close();
+        }
+    }
+
+    /**
+     * Trabalho a ser executado em uma transação
+     *
+     * @param <T> Tipo do retorno
+     */
+    public interface Trabalho<T> {
+
+        T executar() throws MiniException;
+    }
+}
@@ -0,0 +1,317 @@
+package br.mini.processador;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import br.mini.Mapeador;
+import br.mini.annotations.Coluna;
+import br.mini.annotations.Tabela;
+
+/**
+ * Geração do {@link Mapeador} em tempo de execução, para entidades compiladas sem o {@link MapeadorProcessor}. O
+ * código fonte é o mesmo gerado pelo processador, compilado em memória através do compilador do JDK e carregado em
+ * um {@link ClassLoader} filho do carregador da entidade.
+ * <br>
+ * Como o mapeador não pertence ao mesmo pacote em tempo de execução da entidade, apenas entidades públicas, de
+ * nível superior, com construtor sem parâmetros público e campos públicos ou com getters e setters públicos podem ser
+ * mapeadas. Nos demais casos, ou quando o compilador não está disponível (execução em JRE), o método
+ * {@link #compilar(Class, List)} retorna null, registrando o motivo como WARNING, e a entidade continua utilizando
+ * reflexão.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public final class CompiladorMapeador {
+
+    private static final Logger LOGGER = Logger.getLogger(CompiladorMapeador.class.getName());
+
+    private CompiladorMapeador() {
+    }
+
+    /**
+     * Gera e compila o mapeador da entidade
+     *
+     * @param classe Entidade a ser mapeada
+     * @param mapeados Campos anotados da entidade, na ordem em que devem ser mapeados
+     * @return mapeador compilado ou null caso a entidade não possa ser mapeada
+     */
+    public static Mapeador<?> compilar(final Class<?> classe, final List<Field> mapeados) {
+        if (!mapeavel(classe)) {
+            LOGGER.log(Level.WARNING, "Mapeador não gerado, {0} utilizará reflexão: a entidade deve ser pública, de "
+                    + "nível superior, concreta e com construtor sem parâmetros público", classe.getName());
+            return null;
+        }
+        final List<FonteMapeador.Campo> campos = new ArrayList<>();
+        for (Field campo : mapeados) {
+            final FonteMapeador.Campo descritor = descrever(classe, campo);
+            if (descritor == null) {
+                LOGGER.log(Level.WARNING, "Mapeador não gerado, {0} utilizará reflexão: campo {1} não acessível "
+                        + "publicamente", new Object[] {classe.getName(), campo.getName()});
+                return null;
+            }
+            campos.add(descritor);
+        }
+        final JavaCompiler compilador = ToolProvider.getSystemJavaCompiler();
+        if (compilador == null) {
+            LOGGER.log(Level.WARNING, "Compilador indisponível, {0} utilizará reflexão", classe.getName());
+            return null;
+        }
+        final String pacote = classe.getPackage() == null ? "" : classe.getPackage().getName();
+        final Tabela tabela = classe.getAnnotation(Tabela.class);
+        final String fonte = FonteMapeador.gerar(pacote, classe.getSimpleName(), CompiladorMapeador.class.getName(),
+                tabela == null ? null : tabela.nome(), campos);
+        final String nome = classe.getName() + Mapeador.SUFIXO;
+        try {
+            final Map<String, byte[]> classes = compilar(compilador, classe, nome, fonte);
+            if (classes == null) {
+                return null;
+            }
+            final Object gerado = new Carregador(classe.getClassLoader(), classes).loadClass(nome)
+                    .getDeclaredConstructor().newInstance();
+            return gerado instanceof Mapeador ? (Mapeador<?>) gerado : null;
+        } catch (IOException | ReflectiveOperationException | LinkageError ex) {
+            LOGGER.log(Level.WARNING, "Falha ao gerar o mapeador de " + classe.getName(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * Verifica se a entidade é pública, de nível superior, concreta e com construtor sem parâmetros público
+     */
+    private static boolean mapeavel(final Class<?> classe) {
+        if (!Modifier.isPublic(classe.getModifiers()) || Modifier.isAbstract(classe.getModifiers())
+                || classe.getEnclosingClass() != null) {
+            return false;
+        }
+        try {
+            classe.getConstructor();
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Descreve o campo para a geração do código fonte
+     *
+     * @param classe Entidade
+     * @param campo Campo mapeado
+     * @return descrição do campo ou null caso não seja acessível publicamente
+     */
+    private static FonteMapeador.Campo descrever(final Class<?> classe, final Field campo) {
+        final Class<?> tipo = campo.getType();
+        final FonteMapeador.Campo descritor = new FonteMapeador.Campo();
+        descritor.nome = campo.getName();
+        descritor.primitivo = tipo.isPrimitive();
+        descritor.tipoObjeto = tipo.isPrimitive() ? encapsular(tipo).getName() : tipo.getCanonicalName();
+        descritor.blob = InputStream.class.isAssignableFrom(tipo);
+        descritor.calendar = Calendar.class.isAssignableFrom(tipo);
+        final Coluna coluna = campo.getAnnotation(Coluna.class);
+        if (coluna != null) {
+            descritor.coluna = coluna.nome();
+            descritor.pk = coluna.isPk();
+            descritor.fk = coluna.isFk();
+            descritor.clob = coluna.isClob();
+            descritor.lazy = coluna.isLazy();
+            descritor.trim = coluna.isTrim();
+        }
+        final int modificadores = campo.getModifiers();
+        final boolean publico = Modifier.isPublic(modificadores) && !Modifier.isStatic(modificadores)
+                && Modifier.isPublic(campo.getDeclaringClass().getModifiers());
+        final String sufixo = FonteMapeador.capitalizar(campo.getName());
+        if (publico) {
+            descritor.leitura = "obj." + campo.getName();
+        } else if (metodo(classe, "get" + sufixo, tipo) != null) {
+            descritor.leitura = "obj.get" + sufixo + "()";
+        } else if (metodo(classe, "is" + sufixo, tipo) != null) {
+            descritor.leitura = "obj.is" + sufixo + "()";
+        }
+        if (publico && !Modifier.isFinal(modificadores)) {
+            descritor.escrita = "obj." + campo.getName() + " = %s";
+        } else if (metodo(classe, "set" + sufixo, void.class, tipo) != null) {
+            descritor.escrita = "obj.set" + sufixo + "(%s)";
+        }
+        return descritor.tipoObjeto == null || descritor.leitura == null || descritor.escrita == null ? null
+                : descritor;
+    }
+
+    /**
+     * @return método público com o retorno e parâmetros informados ou null caso não exista
+     */
+    private static Method metodo(final Class<?> classe, final String nome, final Class<?> retorno,
+            final Class<?>... parametros) {
+        try {
+            final Method metodo = classe.getMethod(nome, parametros);
+            return metodo.getReturnType() == retorno && !Modifier.isStatic(metodo.getModifiers())
+                    && Modifier.isPublic(metodo.getDeclaringClass().getModifiers()) ? metodo : null;
+        } catch (NoSuchMethodException ex) {
+            return null;
+        }
+    }
+
+    private static Class<?> encapsular(final Class<?> primitivo) {
+        if (primitivo == int.class) {
+            return Integer.class;
+        } else if (primitivo == long.class) {
+            return Long.class;
+        } else if (primitivo == double.class) {
+            return Double.class;
+        } else if (primitivo == float.class) {
+            return Float.class;
+        } else if (primitivo == short.class) {
+            return Short.class;
+        } else if (primitivo == boolean.class) {
+            return Boolean.class;
+        } else if (primitivo == byte.class) {
+            return Byte.class;
+        }
+        return Character.class;
+    }
+
+    /**
+     * Compila o código fonte em memória
+     *
+     * @return bytecode das classes geradas por nome ou null caso a compilação falhe
+     * @throws IOException
+     */
+    private static Map<String, byte[]> compilar(final JavaCompiler compilador, final Class<?> classe,
+            final String nome, final String fonte) throws IOException {
+        final List<String> opcoes = Arrays.asList("-proc:none", "-classpath", classpath(classe));
+        final StandardJavaFileManager padrao = compilador.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        final EmMemoria arquivos = new EmMemoria(padrao);
+        try {
+            final Boolean sucesso = compilador.getTask(null, arquivos, null, opcoes, null,
+                    Collections.singletonList(new Fonte(nome, fonte))).call();
+            if (!Boolean.TRUE.equals(sucesso)) {
+                LOGGER.log(Level.WARNING, "Falha ao compilar o mapeador {0}", nome);
+                return null;
+            }
+            return arquivos.getClasses();
+        } finally {
+            arquivos.close();
+        }
+    }
+
+    /**
+     * Classpath da aplicação acrescido dos locais da entidade e do framework, para containers em que os mesmos não
+     * constam em <code>java.class.path</code>
+     */
+    private static String classpath(final Class<?> classe) {
+        final StringBuilder sb = new StringBuilder(System.getProperty("java.class.path", ""));
+        for (Class<?> origem : new Class<?>[] {classe, Mapeador.class}) {
+            final CodeSource codigo = origem.getProtectionDomain().getCodeSource();
+            if (codigo == null || codigo.getLocation() == null) {
+                continue;
+            }
+            try {
+                sb.append(File.pathSeparator).append(new File(codigo.getLocation().toURI()).getPath());
+            } catch (URISyntaxException | IllegalArgumentException ex) {
+                LOGGER.log(Level.FINE, "Local ignorado no classpath: " + codigo.getLocation(), ex);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Código fonte mantido em memória
+     */
+    private static final class Fonte extends SimpleJavaFileObject {
+
+        private final String fonte;
+
+        Fonte(final String nome, final String fonte) {
+            super(URI.create("string:///" + nome.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.fonte = fonte;
+        }
+
+        @Override
+        public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+            return fonte;
+        }
+    }
+
+    /**
+     * Gerenciador de arquivos que mantém o bytecode gerado em memória
+     */
+    private static final class EmMemoria extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final Map<String, ByteArrayOutputStream> saidas = new HashMap<>();
+
+        EmMemoria(final StandardJavaFileManager padrao) {
+            super(padrao);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(final JavaFileManager.Location location, final String className,
+                final JavaFileObject.Kind kind, final FileObject sibling) {
+            final ByteArrayOutputStream saida = new ByteArrayOutputStream();
+            saidas.put(className, saida);
+            return new SimpleJavaFileObject(URI.create("mem:///" + className.replace('.', '/') + kind.extension),
+                    kind) {
+
+                @Override
+                public OutputStream openOutputStream() {
+                    return saida;
+                }
+            };
+        }
+
+        Map<String, byte[]> getClasses() {
+            final Map<String, byte[]> classes = new HashMap<>();
+            for (Map.Entry<String, ByteArrayOutputStream> saida : saidas.entrySet()) {
+                classes.put(saida.getKey(), saida.getValue().toByteArray());
+            }
+            return classes;
+        }
+    }
+
+    /**
+     * Carregador das classes compiladas, filho do carregador da entidade
+     */
+    private static final class Carregador extends ClassLoader {
+
+        private final Map<String, byte[]> classes;
+
+        Carregador(final ClassLoader pai, final Map<String, byte[]> classes) {
+            super(pai);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(final String name) throws ClassNotFoundException {
+            final byte[] bytecode = classes.get(name);
+            if (bytecode == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package br.mini.processador;
+
+import java.util.List;
+
+import br.mini.Mapeador;
+
+/**
+ * Geração do código fonte de um {@link Mapeador} a partir da descrição dos campos da entidade. Utilizado tanto pelo
+ * {@link MapeadorProcessor}, em tempo de compilação, quanto pelo {@link CompiladorMapeador}, em tempo de execução.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+final class FonteMapeador {
+
+    private static final String INDENT = "                ";
+
+    /**
+     * Tipos encapsulados lidos e atribuídos através dos métodos primitivos do JDBC: tipo, primitivo, setter, getter
+     */
+    private static final String[][] PRIMITIVOS = {
+        {"java.lang.Integer", "int", "setInt", "getInt"},
+        {"java.lang.Long", "long", "setLong", "getLong"},
+        {"java.lang.Double", "double", "setDouble", "getDouble"},
+        {"java.lang.Float", "float", "setFloat", "getFloat"},
+        {"java.lang.Short", "short", "setShort", "getShort"},
+        {"java.lang.Byte", "byte", "setByte", "getByte"},
+        {"java.lang.Boolean", "boolean", "setBoolean", "getBoolean"}};
+
+    private FonteMapeador() {
+    }
+
+    /**
+     * Descrição de um campo mapeado
+     *
+     * @author figueiredo-lucas
+     *
+     */
+    static final class Campo {
+
+        String nome;
+        /**
+         * Tipo do campo para o cast a partir de Object, com os primitivos encapsulados
+         */
+        String tipoObjeto;
+        boolean primitivo;
+        /**
+         * Expressão de leitura a partir de <code>obj</code>
+         */
+        String leitura;
+        /**
+         * Expressão de escrita a partir de <code>obj</code>, com o marcador <code>%s</code> para o valor
+         */
+        String escrita;
+        /**
+         * Nome da coluna ou null para {@link br.mini.annotations.PseudoColuna}
+         */
+        String coluna;
+        boolean pk;
+        boolean fk;
+        boolean clob;
+        boolean blob;
+        boolean lazy;
+        boolean calendar;
+        /**
+         * Remoção dos espaços das extremidades dos textos lidos
+         */
+        boolean trim = true;
+    }
+
+    /**
+     * Gera o código fonte do mapeador
+     *
+     * @param pacote Pacote da entidade
+     * @param entidade Nome simples da entidade
+     * @param origem Responsável pela geração, informado no comentário da classe
+     * @param nomeTabela Nome da tabela ou null para {@link br.mini.annotations.PseudoTabela}
+     * @param campos Campos mapeados
+     * @return código fonte
+     */
+    static String gerar(final String pacote, final String entidade, final String origem, final String nomeTabela,
+            final List<Campo> campos) {
+        final String nome = entidade + Mapeador.SUFIXO;
+        final StringBuilder sb = new StringBuilder();
+        if (!pacote.isEmpty()) {
+            sb.append("package ").append(pacote).append(";\n\n");
+        }
+        sb.append("/**\n * Mapeador de {@link ").append(entidade).append("} gerado pelo ").append(origem)
+                .append(". Não deve ser editado.\n */\n");
+        sb.append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n");
+        sb.append("public final class ").append(nome).append(" implements br.mini.Mapeador<").append(entidade)
+                .append("> {\n\n");
+
+        sb.append("    private static final String[] CAMPOS = {");
+        for (int indice = 0; indice < campos.size(); indice++) {
+            sb.append(indice > 0 ? ", " : "").append(literal(campos.get(indice).nome));
+        }
+        sb.append("};\n\n");
+
+        sb.append("    @Override\n    public String[] getCampos() {\n        return CAMPOS.clone();\n    }\n\n");
+        sb.append("    @Override\n    public ").append(entidade).append(" instanciar() {\n        return new ")
+                .append(entidade).append("();\n    }\n\n");
+
+        sb.append("    @Override\n    public Object obter(").append(entidade).append(" obj, int campo) {\n");
+        sb.append("        switch (campo) {\n");
+        for (int indice = 0; indice < campos.size(); indice++) {
+            sb.append("            case ").append(indice).append(":\n                return ")
+                    .append(campos.get(indice).leitura).append(";\n");
+        }
+        sb.append("            default:\n").append(INDENT)
+                .append("throw new IndexOutOfBoundsException(String.valueOf(campo));\n");
+        sb.append("        }\n    }\n\n");
+
+        sb.append("    @Override\n    public void atribuir(").append(entidade)
+                .append(" obj, int campo, Object valor) {\n");
+        sb.append("        switch (campo) {\n");
+        for (int indice = 0; indice < campos.size(); indice++) {
+            final Campo campo = campos.get(indice);
+            sb.append("            case ").append(indice).append(":\n");
+            final String atribuicao = String.format(campo.escrita, "(" + campo.tipoObjeto + ") valor");
+            if (campo.primitivo) {
+                sb.append("                if (valor != null) {\n                    ").append(atribuicao)
+                        .append(";\n                }\n                return;\n");
+            } else {
+                sb.append(INDENT).append(atribuicao).append(";\n                return;\n");
+            }
+        }
+        sb.append("            default:\n").append(INDENT)
+                .append("throw new IndexOutOfBoundsException(String.valueOf(campo));\n");
+        sb.append("        }\n    }\n\n");
+
+        sb.append("    @Override\n    public void popular(").append(entidade).append(" obj, Object[] valores) {\n");
+        for (int indice = 0; indice < campos.size(); indice++) {
+            final Campo campo = campos.get(indice);
+            final String valor = "valores[" + indice + "]";
+            final String atribuicao = String.format(campo.escrita, "(" + campo.tipoObjeto + ") " + valor);
+            if (campo.primitivo) {
+                sb.append("        if (").append(valor).append(" != null) {\n            ").append(atribuicao)
+                        .append(";\n        }\n");
+            } else {
+                sb.append("        ").append(atribuicao).append(";\n");
+            }
+        }
+        sb.append("    }\n\n");
+
+        sb.append("    @Override\n    public void extrair(").append(entidade).append(" obj, Object[] valores) {\n");
+        for (int indice = 0; indice < campos.size(); indice++) {
+            sb.append("        valores[").append(indice).append("] = ").append(campos.get(indice).leitura)
+                    .append(";\n");
+        }
+        sb.append("    }\n\n");
+
+        sb.append("    @Override\n    public void ler(java.sql.ResultSet rs, int[] ordinais, Object[] valores)\n")
+                .append("            throws java.sql.SQLException, br.mini.exception.MiniException {\n");
+        for (int indice = 0; indice < campos.size(); indice++) {
+            final Campo campo = campos.get(indice);
+            if (campo.coluna == null || !campo.blob && !campo.lazy) {
+                sb.append(leituraResultSet(campo, indice));
+            }
+        }
+        sb.append("    }\n\n");
+
+        sb.append("    @Override\n    public void atribuirParametro(java.sql.PreparedStatement ps, int indice, ")
+                .append("int campo, Object valor)\n            throws java.sql.SQLException {\n");
+        sb.append("        if (valor == null) {\n            ps.setObject(indice, null);\n            return;\n")
+                .append("        }\n");
+        sb.append("        switch (campo) {\n");
+        for (int indice = 0; indice < campos.size(); indice++) {
+            sb.append("            case ").append(indice).append(":\n");
+            sb.append(atribuicaoStatement(campos.get(indice), INDENT, "indice"));
+            sb.append("                return;\n");
+        }
+        sb.append("            default:\n                ps.setObject(indice, valor);\n");
+        sb.append("        }\n    }\n\n");
+
+        sb.append("    @Override\n    public void atribuirParametros(java.sql.PreparedStatement ps, Object[] valores)")
+                .append("\n            throws java.sql.SQLException {\n        Object valor;\n");
+        for (int indice = 0; indice < campos.size(); indice++) {
+            final Campo campo = campos.get(indice);
+            if (campo.lazy) {
+                continue;
+            }
+            final String parametro = String.valueOf(indice + 1);
+            sb.append("        valor = valores[").append(indice).append("];\n");
+            sb.append("        if (valor == null) {\n            ps.setObject(").append(parametro)
+                    .append(", null);\n        } else {\n");
+            sb.append(atribuicaoStatement(campo, "            ", parametro));
+            sb.append("        }\n");
+        }
+        sb.append("    }\n\n");
+
+        sb.append("    @Override\n    public String getInsert() {\n        return ")
+                .append(nomeTabela == null ? "null" : literal(criarInsert(nomeTabela, campos))).append(";\n    }\n\n");
+        sb.append("    @Override\n    public String getDelete() {\n        return ")
+                .append(nomeTabela == null ? "null" : literal(criarDelete(nomeTabela, campos))).append(";\n    }\n\n");
+        sb.append("    @Override\n    public String getSelectComPk() {\n        return ")
+                .append(nomeTabela == null ? "null" : literal(criarSelectComPk(nomeTabela, campos)))
+                .append(";\n    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * @return leitura da coluna do ResultSet com o getter do tipo do campo, com a mesma conversão do
+     *         {@link br.mini.Leitor} resolvido para o campo
+     */
+    private static String leituraResultSet(final Campo campo, final int indice) {
+        final String coluna = "(ordinais[" + indice + "])";
+        final String destino = "        valores[" + indice + "] = ";
+        final String variavel = "valor" + indice;
+        if (campo.fk) {
+            return destino + "rs.getObject" + coluna + ";\n";
+        }
+        if ("java.lang.String".equals(campo.tipoObjeto)) {
+            if (campo.clob) {
+                return "        final java.sql.Clob " + variavel + " = rs.getClob" + coluna + ";\n" + destino
+                        + variavel + " == null ? null : br.mini.Utils.Clobs.clobToString(" + variavel + ", "
+                        + campo.trim + ");\n";
+            }
+            if (!campo.trim) {
+                return destino + "rs.getString" + coluna + ";\n";
+            }
+            return "        final String " + variavel + " = rs.getString" + coluna + ";\n" + destino + variavel
+                    + " == null ? null : " + variavel + ".trim();\n";
+        }
+        if ("java.math.BigDecimal".equals(campo.tipoObjeto)) {
+            return destino + "rs.getBigDecimal" + coluna + ";\n";
+        }
+        if (campo.calendar) {
+            return "        final java.sql.Timestamp " + variavel + " = rs.getTimestamp" + coluna + ";\n"
+                    + "        if (" + variavel + " != null) {\n"
+                    + "            final java.util.Calendar cal" + indice + " = java.util.Calendar.getInstance();\n"
+                    + "            cal" + indice + ".setTimeInMillis(" + variavel + ".getTime());\n"
+                    + "            valores[" + indice + "] = cal" + indice + ";\n"
+                    + "        } else {\n            valores[" + indice + "] = null;\n        }\n";
+        }
+        if (campo.blob) {
+            return "        final java.sql.Blob " + variavel + " = rs.getBlob" + coluna + ";\n" + destino + variavel
+                    + " == null ? null : " + variavel + ".getBinaryStream();\n";
+        }
+        for (String[] primitivo : PRIMITIVOS) {
+            if (primitivo[0].equals(campo.tipoObjeto)) {
+                return "        final " + primitivo[1] + " " + variavel + " = rs." + primitivo[3] + coluna + ";\n"
+                        + destino + "rs.wasNull() ? null : " + primitivo[0] + ".valueOf(" + variavel + ");\n";
+            }
+        }
+        return destino + "rs.getObject" + coluna + ";\n";
+    }
+
+    /**
+     * @param recuo Indentação da linha gerada
+     * @param parametro Expressão do índice do parâmetro
+     * @return atribuição de <code>valor</code> no PreparedStatement com o setter do tipo do campo
+     */
+    private static String atribuicaoStatement(final Campo campo, final String recuo, final String parametro) {
+        if (campo.fk) {
+            return recuo + "ps.setObject(" + parametro + ", valor);\n";
+        }
+        if ("java.lang.String".equals(campo.tipoObjeto)) {
+            return recuo + (campo.clob ? "ps.setCharacterStream(" + parametro
+                    + ", new java.io.StringReader((String) valor), ((String) valor).length());\n"
+                    : "ps.setString(" + parametro + ", (String) valor);\n");
+        }
+        if ("java.math.BigDecimal".equals(campo.tipoObjeto)) {
+            return recuo + "ps.setBigDecimal(" + parametro + ", (java.math.BigDecimal) valor);\n";
+        }
+        if (campo.calendar) {
+            return recuo + "ps.setTimestamp(" + parametro + ", new java.sql.Timestamp(((java.util.Calendar) valor)"
+                    + ".getTimeInMillis()));\n";
+        }
+        if (campo.blob) {
+            return recuo + "ps.setBlob(" + parametro + ", (java.io.InputStream) valor);\n";
+        }
+        for (String[] primitivo : PRIMITIVOS) {
+            if (primitivo[0].equals(campo.tipoObjeto)) {
+                return recuo + "ps." + primitivo[2] + "(" + parametro + ", ((" + primitivo[0] + ") valor)."
+                        + primitivo[1] + "Value());\n";
+            }
+        }
+        return recuo + "ps.setObject(" + parametro + ", valor);\n";
+    }
+
+    /**
+     * Cria o INSERT da entidade, equivalente ao gerado pelo StringCreator
+     */
+    private static String criarInsert(final String nomeTabela, final List<Campo> campos) {
+        final StringBuilder colunas = new StringBuilder();
+        final StringBuilder interrogs = new StringBuilder();
+        for (Campo campo : campos) {
+            if (interrogs.length() > 0) {
+                colunas.append(", ");
+                interrogs.append(", ");
+            }
+            colunas.append(campo.coluna);
+            interrogs.append("?");
+        }
+        return "INSERT INTO " + nomeTabela + " (" + colunas + ") VALUES (" + interrogs + ")";
+    }
+
+    /**
+     * Cria o DELETE da entidade, equivalente ao gerado pelo StringCreator
+     */
+    private static String criarDelete(final String nomeTabela, final List<Campo> campos) {
+        return "DELETE FROM " + nomeTabela + criarWherePk(campos);
+    }
+
+    /**
+     * Cria o select por PK da entidade, equivalente ao gerado pelo StringCreator
+     */
+    private static String criarSelectComPk(final String nomeTabela, final List<Campo> campos) {
+        final StringBuilder sb = new StringBuilder("SELECT ");
+        boolean primeiro = true;
+        for (Campo campo : campos) {
+            if (!campo.blob && !campo.lazy) {
+                sb.append(primeiro ? "" : ", ").append(campo.coluna);
+                primeiro = false;
+            }
+        }
+        return sb.append(" FROM ").append(nomeTabela).append(criarWherePk(campos)).toString();
+    }
+
+    private static String criarWherePk(final List<Campo> campos) {
+        final StringBuilder sb = new StringBuilder();
+        for (Campo campo : campos) {
+            if (campo.pk) {
+                sb.append(sb.length() == 0 ? " WHERE " : " AND ").append(campo.coluna).append(" = ?");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return nome do campo com a primeira letra maiúscula, para getters e setters
+     */
+    static String capitalizar(final String nome) {
+        return Character.toUpperCase(nome.charAt(0)) + nome.substring(1);
+    }
+
+    private static String literal(final String valor) {
+        return "\"" + valor.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
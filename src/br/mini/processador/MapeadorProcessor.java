@@ -0,0 +1,263 @@
+package br.mini.processador;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+
+import br.mini.Mapeador;
+import br.mini.annotations.Coluna;
+import br.mini.annotations.PseudoColuna;
+import br.mini.annotations.PseudoTabela;
+import br.mini.annotations.Tabela;
+
+/**
+ * Processador de anotações opcional que gera, em tempo de compilação, um {@link Mapeador} para cada classe anotada
+ * com {@link Tabela} ou {@link PseudoTabela}. O mapeador gerado contém os SQLs da entidade, a leitura do
+ * {@link java.sql.ResultSet} e a atribuição do {@link java.sql.PreparedStatement} com os métodos específicos de cada
+ * tipo e o acesso direto aos campos, retirando a reflexão das operações.
+ * <br>
+ * Os campos precisam estar acessíveis a partir do pacote da entidade, diretamente ou por getters e setters, e a
+ * entidade precisa de um construtor sem parâmetros não privado. Entidades que não atendam a essas condições não têm
+ * mapeador gerado e continuam utilizando reflexão.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+@SupportedAnnotationTypes({"br.mini.annotations.Tabela", "br.mini.annotations.PseudoTabela"})
+public class MapeadorProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element elemento : roundEnv.getElementsAnnotatedWith(Tabela.class)) {
+            gerar(elemento);
+        }
+        for (Element elemento : roundEnv.getElementsAnnotatedWith(PseudoTabela.class)) {
+            gerar(elemento);
+        }
+        return false;
+    }
+
+    /**
+     * Gera o mapeador da entidade, caso a mesma atenda as condições de acesso
+     *
+     * @param elemento Classe anotada
+     */
+    private void gerar(final Element elemento) {
+        if (elemento.getKind() != ElementKind.CLASS) {
+            return;
+        }
+        final TypeElement classe = (TypeElement) elemento;
+        final String motivo = validarClasse(classe);
+        final List<FonteMapeador.Campo> campos = new ArrayList<>();
+        final String falha = motivo != null ? motivo : coletarCampos(classe, campos);
+        if (falha != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                    "Mapeador não gerado, a entidade utilizará reflexão: " + falha, classe);
+            return;
+        }
+        try {
+            escrever(classe, campos);
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Falha ao gerar o mapeador: " + ex.getMessage(), classe);
+        }
+    }
+
+    /**
+     * Valida se a classe pode ser instanciada pelo mapeador
+     *
+     * @param classe
+     * @return motivo da falha ou null caso seja válida
+     */
+    private String validarClasse(final TypeElement classe) {
+        if (classe.getNestingKind() != NestingKind.TOP_LEVEL) {
+            return "classe não é de nível superior";
+        }
+        if (classe.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "classe abstrata";
+        }
+        for (ExecutableElement construtor : ElementFilter.constructorsIn(classe.getEnclosedElements())) {
+            if (construtor.getParameters().isEmpty() && !construtor.getModifiers().contains(Modifier.PRIVATE)) {
+                return null;
+            }
+        }
+        return "construtor sem parâmetros não encontrado";
+    }
+
+    /**
+     * Coleta os campos anotados da classe. Para {@link PseudoTabela}, inclui os campos da superclasse.
+     *
+     * @param classe
+     * @param campos Lista a ser populada
+     * @return motivo da falha ou null caso todos os campos sejam acessíveis
+     */
+    private String coletarCampos(final TypeElement classe, final List<FonteMapeador.Campo> campos) {
+        final Types tipos = processingEnv.getTypeUtils();
+        final boolean pseudo = classe.getAnnotation(PseudoTabela.class) != null;
+        final List<VariableElement> elementos = new ArrayList<>();
+        if (pseudo && classe.getSuperclass().getKind() == TypeKind.DECLARED) {
+            final TypeElement superclasse = (TypeElement) tipos.asElement(classe.getSuperclass());
+            if (!superclasse.getQualifiedName().contentEquals(Object.class.getName())) {
+                elementos.addAll(ElementFilter.fieldsIn(superclasse.getEnclosedElements()));
+            }
+        }
+        elementos.addAll(ElementFilter.fieldsIn(classe.getEnclosedElements()));
+        final TypeMirror tipoInputStream = tipo(InputStream.class);
+        final TypeMirror tipoCalendar = tipo(Calendar.class);
+        for (VariableElement elemento : elementos) {
+            final Coluna coluna = elemento.getAnnotation(Coluna.class);
+            final PseudoColuna pseudoColuna = elemento.getAnnotation(PseudoColuna.class);
+            if ((pseudo && pseudoColuna == null) || (!pseudo && coluna == null)) {
+                continue;
+            }
+            final TypeMirror tipo = elemento.asType();
+            final FonteMapeador.Campo campo = new FonteMapeador.Campo();
+            campo.nome = elemento.getSimpleName().toString();
+            campo.primitivo = tipo.getKind().isPrimitive();
+            campo.tipoObjeto = campo.primitivo ? tipos.boxedClass(tipos.getPrimitiveType(tipo.getKind()))
+                    .getQualifiedName().toString() : tipos.erasure(tipo).toString();
+            campo.blob = tipos.isAssignable(tipo, tipoInputStream);
+            campo.calendar = !campo.primitivo && tipos.isAssignable(tipo, tipoCalendar);
+            if (coluna != null) {
+                campo.coluna = coluna.nome();
+                campo.pk = coluna.isPk();
+                campo.fk = coluna.isFk();
+                campo.clob = coluna.isClob();
+                campo.lazy = coluna.isLazy();
+                campo.trim = coluna.isTrim();
+            }
+            campo.leitura = resolverLeitura(classe, elemento);
+            campo.escrita = resolverEscrita(classe, elemento);
+            if (campo.leitura == null || campo.escrita == null) {
+                return "campo " + campo.nome + " não acessível a partir do pacote da entidade";
+            }
+            campos.add(campo);
+        }
+        return null;
+    }
+
+    private TypeMirror tipo(final Class<?> classe) {
+        return processingEnv.getElementUtils().getTypeElement(classe.getName()).asType();
+    }
+
+    /**
+     * Resolve a expressão de leitura do campo: acesso direto ou getter
+     *
+     * @param classe
+     * @param elemento
+     * @return expressão de leitura a partir de <code>obj</code> ou null caso não seja acessível
+     */
+    private String resolverLeitura(final TypeElement classe, final VariableElement elemento) {
+        if (acessivel(classe, elemento)) {
+            return "obj." + elemento.getSimpleName();
+        }
+        final String sufixo = FonteMapeador.capitalizar(elemento.getSimpleName().toString());
+        for (ExecutableElement metodo : metodos(elemento)) {
+            final String nome = metodo.getSimpleName().toString();
+            if ((nome.equals("get" + sufixo) || nome.equals("is" + sufixo)) && metodo.getParameters().isEmpty()
+                    && processingEnv.getTypeUtils().isSameType(metodo.getReturnType(), elemento.asType())
+                    && acessivel(classe, metodo)) {
+                return "obj." + nome + "()";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Resolve a expressão de escrita do campo: atribuição direta ou setter
+     *
+     * @param classe
+     * @param elemento
+     * @return expressão de escrita com o marcador <code>%s</code> para o valor ou null caso não seja acessível
+     */
+    private String resolverEscrita(final TypeElement classe, final VariableElement elemento) {
+        if (acessivel(classe, elemento) && !elemento.getModifiers().contains(Modifier.FINAL)) {
+            return "obj." + elemento.getSimpleName() + " = %s";
+        }
+        final String nome = "set" + FonteMapeador.capitalizar(elemento.getSimpleName().toString());
+        for (ExecutableElement metodo : metodos(elemento)) {
+            if (metodo.getSimpleName().contentEquals(nome) && metodo.getParameters().size() == 1
+                    && processingEnv.getTypeUtils().isSameType(metodo.getParameters().get(0).asType(),
+                            elemento.asType())
+                    && acessivel(classe, metodo)) {
+                return "obj." + nome + "(%s)";
+            }
+        }
+        return null;
+    }
+
+    private List<ExecutableElement> metodos(final VariableElement elemento) {
+        return ElementFilter.methodsIn(elemento.getEnclosingElement().getEnclosedElements());
+    }
+
+    /**
+     * Verifica se o membro é acessível a partir do pacote da entidade
+     *
+     * @param classe
+     * @param membro
+     * @return true caso seja acessível
+     */
+    private boolean acessivel(final TypeElement classe, final Element membro) {
+        final Set<Modifier> modificadores = membro.getModifiers();
+        if (modificadores.contains(Modifier.PRIVATE) || modificadores.contains(Modifier.STATIC)) {
+            return false;
+        }
+        if (modificadores.contains(Modifier.PUBLIC)
+                && membro.getEnclosingElement().getModifiers().contains(Modifier.PUBLIC)) {
+            return true;
+        }
+        final PackageElement pacoteClasse = processingEnv.getElementUtils().getPackageOf(classe);
+        final PackageElement pacoteMembro = processingEnv.getElementUtils().getPackageOf(membro);
+        return pacoteClasse.getQualifiedName().contentEquals(pacoteMembro.getQualifiedName());
+    }
+
+    /**
+     * Escreve o código fonte do mapeador
+     *
+     * @param classe
+     * @param campos
+     * @throws IOException
+     */
+    private void escrever(final TypeElement classe, final List<FonteMapeador.Campo> campos) throws IOException {
+        final String pacote = processingEnv.getElementUtils().getPackageOf(classe).getQualifiedName().toString();
+        final String entidade = classe.getSimpleName().toString();
+        final Tabela tabela = classe.getAnnotation(Tabela.class);
+        final String fonte = FonteMapeador.gerar(pacote, entidade, MapeadorProcessor.class.getName(),
+                tabela == null ? null : tabela.nome(), campos);
+        final String nome = entidade + Mapeador.SUFIXO;
+        final Writer writer = processingEnv.getFiler().createSourceFile(
+                pacote.isEmpty() ? nome : pacote + "." + nome, classe).openWriter();
+        try {
+            writer.write(fonte);
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,636 @@
+package br.mini.database;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+/**
+ * Banco em memória utilizado pelos testes de concorrência, sem dependência de um driver JDBC. Interpreta
+ * apenas o subconjunto de SQL gerado pelo framework para uma única tabela: INSERT com lista de colunas, SELECT,
+ * UPDATE e DELETE com condições de igualdade ligadas por AND, e atribuições <code>COL = ?</code> ou
+ * <code>COL = COL + ?</code>.
+ * <br>
+ * As linhas alteradas por UPDATE e DELETE ficam bloqueadas pela conexão até o commit, rollback ou fechamento, como
+ * os locks de linha de um banco real, permitindo verificar a geração concorrente de chaves. Não há desfazer: o
+ * rollback apenas libera os bloqueios.
+ * <br>
+ * Como nos drivers JDBC, as conexões são criadas em auto commit, a menos que o banco seja criado com
+ * {@link #BancoMemoria(boolean)}. Em auto commit os bloqueios são liberados ao final de cada comando, e commit e
+ * rollback lançam {@link SQLException}.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public final class BancoMemoria implements DataSource {
+
+    private static final Pattern INSERT = Pattern.compile(
+            "INSERT INTO\\s+(\\S+)\\s*\\(([^)]*)\\)\\s*VALUES.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern SELECT = Pattern.compile(
+            "SELECT\\s+(?:DISTINCT\\s+)?(.*?)\\s+FROM\\s+(\\S+)(?:\\s+\\w+)?(?:\\s+WHERE\\s+(.*))?",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern UPDATE = Pattern.compile(
+            "UPDATE\\s+(\\S+)\\s+SET\\s+(.*?)(?:\\s+WHERE\\s+(.*))?", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern DELETE = Pattern.compile(
+            "DELETE FROM\\s+(\\S+)(?:\\s+WHERE\\s+(.*))?", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern INCREMENTO = Pattern.compile("(\\w+)\\s*\\+\\s*\\?");
+
+    /**
+     * Chave reservada das linhas para o seu lock
+     */
+    private static final String LOCK = "";
+
+    private final ConcurrentMap<String, List<Map<String, Object>>> tabelas = new ConcurrentHashMap<>();
+
+    /**
+     * Auto commit das novas conexões
+     */
+    private final boolean autoCommit;
+
+    private final AtomicInteger conexoes = new AtomicInteger();
+
+    private final AtomicInteger statements = new AtomicInteger();
+
+    private final AtomicLong preparados = new AtomicLong();
+
+    /**
+     * Coluna de valor único de cada tabela
+     */
+    private final ConcurrentMap<String, String> unicas = new ConcurrentHashMap<>();
+
+    /**
+     * Cria o banco com as conexões em auto commit, como nos drivers JDBC
+     */
+    public BancoMemoria() {
+        this(true);
+    }
+
+    /**
+     * @param autoCommit Auto commit das novas conexões
+     */
+    public BancoMemoria(final boolean autoCommit) {
+        this.autoCommit = autoCommit;
+    }
+
+    /**
+     * Declara uma coluna de valor único. Um INSERT com valor repetido lança
+     * {@link SQLIntegrityConstraintViolationException}
+     *
+     * @param tabela Nome da tabela
+     * @param coluna Nome da coluna
+     */
+    public void unica(final String tabela, final String coluna) {
+        unicas.put(normalizar(tabela), normalizar(coluna));
+    }
+
+    /**
+     * Insere uma linha diretamente, fora de qualquer conexão
+     *
+     * @param tabela Nome da tabela
+     * @param colunasValores Pares de nome da coluna e valor
+     */
+    public void inserir(final String tabela, final Object... colunasValores) {
+        final Map<String, Object> linha = novaLinha();
+        for (int i = 0; i < colunasValores.length; i += 2) {
+            linha.put(normalizar((String) colunasValores[i]), colunasValores[i + 1]);
+        }
+        final List<Map<String, Object>> linhas = linhas(tabela);
+        synchronized (linhas) {
+            linhas.add(linha);
+        }
+    }
+
+    /**
+     * @param tabela Nome da tabela
+     * @return cópia das linhas atuais da tabela, sem a coluna de lock
+     */
+    public List<Map<String, Object>> listar(final String tabela) {
+        final List<Map<String, Object>> linhas = linhas(tabela);
+        final List<Map<String, Object>> copia = new ArrayList<>();
+        synchronized (linhas) {
+            for (Map<String, Object> linha : linhas) {
+                final Map<String, Object> valores = new LinkedHashMap<>(linha);
+                valores.remove(LOCK);
+                copia.add(valores);
+            }
+        }
+        return copia;
+    }
+
+    /**
+     * @return quantidade de conexões abertas e ainda não fechadas
+     */
+    public int getConexoesAbertas() {
+        return conexoes.get();
+    }
+
+    /**
+     * @return quantidade de statements preparados e ainda não fechados
+     */
+    public int getStatementsAbertos() {
+        return statements.get();
+    }
+
+    /**
+     * @return quantidade total de statements preparados, equivalente às idas ao banco
+     */
+    public long getStatementsPreparados() {
+        return preparados.get();
+    }
+
+    @Override
+    public Connection getConnection() {
+        conexoes.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(BancoMemoria.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new Conexao(autoCommit));
+    }
+
+    @Override
+    public Connection getConnection(final String usuario, final String senha) {
+        return getConnection();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(final int segundos) {
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        throw new SQLException(iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) {
+        return false;
+    }
+
+    private List<Map<String, Object>> linhas(final String tabela) {
+        final String nome = normalizar(tabela);
+        List<Map<String, Object>> linhas = tabelas.get(nome);
+        if (linhas == null) {
+            final List<Map<String, Object>> novas = new ArrayList<>();
+            linhas = tabelas.putIfAbsent(nome, novas);
+            if (linhas == null) {
+                linhas = novas;
+            }
+        }
+        return linhas;
+    }
+
+    private static Map<String, Object> novaLinha() {
+        final Map<String, Object> linha = new HashMap<>();
+        linha.put(LOCK, new ReentrantLock());
+        return linha;
+    }
+
+    /**
+     * Remove o alias e o owner do nome da coluna ou tabela
+     */
+    private static String normalizar(final String nome) {
+        final String semAlias = nome.trim().substring(nome.trim().lastIndexOf('.') + 1);
+        return semAlias.toUpperCase(Locale.ROOT);
+    }
+
+    private static List<String> separar(final String lista, final String separador) {
+        final List<String> itens = new ArrayList<>();
+        for (String item : lista.split(separador)) {
+            if (!item.trim().isEmpty()) {
+                itens.add(item.trim());
+            }
+        }
+        return itens;
+    }
+
+    private static boolean iguais(final Object valor, final Object parametro) {
+        if (valor instanceof Number && parametro instanceof Number) {
+            return new BigDecimal(valor.toString()).compareTo(new BigDecimal(parametro.toString())) == 0;
+        }
+        return valor == null ? parametro == null : valor.equals(parametro);
+    }
+
+    /**
+     * Conexão em memória. Mantém os locks das linhas alteradas até o fim da transação
+     */
+    private final class Conexao implements InvocationHandler {
+
+        private final List<ReentrantLock> bloqueios = new ArrayList<>();
+
+        private boolean autoCommit;
+
+        private boolean fechada;
+
+        Conexao(final boolean autoCommit) {
+            this.autoCommit = autoCommit;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method metodo, final Object[] args) throws SQLException {
+            switch (metodo.getName()) {
+                case "prepareStatement":
+                    statements.incrementAndGet();
+                    preparados.incrementAndGet();
+                    return Proxy.newProxyInstance(BancoMemoria.class.getClassLoader(),
+                            new Class<?>[] { PreparedStatement.class }, new Statement(this, (String) args[0]));
+                case "setAutoCommit":
+                    autoCommit = (Boolean) args[0];
+                    liberar();
+                    return null;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "commit":
+                case "rollback":
+                    if (autoCommit) {
+                        throw new SQLException(metodo.getName() + " com auto commit ativo");
+                    }
+                    liberar();
+                    return null;
+                case "close":
+                    if (!fechada) {
+                        fechada = true;
+                        liberar();
+                        conexoes.decrementAndGet();
+                    }
+                    return null;
+                case "isClosed":
+                    return fechada;
+                case "isValid":
+                    return !fechada;
+                case "isReadOnly":
+                case "isWrapperFor":
+                    return false;
+                case "getTransactionIsolation":
+                    return Connection.TRANSACTION_READ_COMMITTED;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "BancoMemoria.Conexao@" + Integer.toHexString(System.identityHashCode(proxy));
+                default:
+                    if (metodo.getReturnType() == void.class) {
+                        return null;
+                    }
+                    throw new SQLFeatureNotSupportedException(metodo.getName());
+            }
+        }
+
+        void bloquear(final List<Map<String, Object>> linhas) {
+            for (Map<String, Object> linha : linhas) {
+                final ReentrantLock lock = (ReentrantLock) linha.get(LOCK);
+                if (!lock.isHeldByCurrentThread()) {
+                    lock.lock();
+                    bloqueios.add(lock);
+                }
+            }
+            if (autoCommit) {
+                liberar();
+            }
+        }
+
+        private void liberar() {
+            for (ReentrantLock lock : bloqueios) {
+                lock.unlock();
+            }
+            bloqueios.clear();
+        }
+    }
+
+    /**
+     * PreparedStatement em memória
+     */
+    private final class Statement implements InvocationHandler {
+
+        private final Conexao conexao;
+
+        private final String sql;
+
+        private final Map<Integer, Object> parametros = new TreeMap<>();
+
+        private boolean fechado;
+
+        Statement(final Conexao conexao, final String sql) {
+            this.conexao = conexao;
+            this.sql = sql.trim();
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method metodo, final Object[] args) throws SQLException {
+            final String nome = metodo.getName();
+            if (nome.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parametros.put((Integer) args[0], "setNull".equals(nome) ? null : args[1]);
+                return null;
+            }
+            switch (nome) {
+                case "clearParameters":
+                    parametros.clear();
+                    return null;
+                case "executeQuery":
+                    return consultar();
+                case "executeUpdate":
+                    return atualizar();
+                case "execute":
+                    if (sql.regionMatches(true, 0, "SELECT", 0, 6)) {
+                        consultar();
+                        return true;
+                    }
+                    atualizar();
+                    return false;
+                case "close":
+                    if (!fechado) {
+                        fechado = true;
+                        statements.decrementAndGet();
+                    }
+                    return null;
+                case "isClosed":
+                    return fechado;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return sql;
+                default:
+                    if (metodo.getReturnType() == void.class) {
+                        return null;
+                    }
+                    throw new SQLFeatureNotSupportedException(nome + ": " + sql);
+            }
+        }
+
+        private Object parametro(final int indice) throws SQLException {
+            if (!parametros.containsKey(indice)) {
+                throw new SQLException("Parâmetro " + indice + " não atribuído: " + sql);
+            }
+            return parametros.get(indice);
+        }
+
+        /**
+         * Interpreta as condições de igualdade, consumindo os parâmetros a partir do índice informado
+         */
+        private Map<String, Object> condicoes(final String where, final int primeiro) throws SQLException {
+            final Map<String, Object> condicoes = new LinkedHashMap<>();
+            if (where == null) {
+                return condicoes;
+            }
+            int indice = primeiro;
+            for (String condicao : separar(where, "(?i)\\s+AND\\s+")) {
+                final String[] partes = condicao.split("=");
+                if (partes.length != 2 || !"?".equals(partes[1].trim())) {
+                    throw new SQLFeatureNotSupportedException(sql);
+                }
+                condicoes.put(normalizar(partes[0]), parametro(indice++));
+            }
+            return condicoes;
+        }
+
+        private List<Map<String, Object>> filtrar(final List<Map<String, Object>> linhas,
+                final Map<String, Object> condicoes) {
+            final List<Map<String, Object>> encontradas = new ArrayList<>();
+            for (Map<String, Object> linha : linhas) {
+                boolean atende = true;
+                for (Map.Entry<String, Object> condicao : condicoes.entrySet()) {
+                    atende = atende && iguais(linha.get(condicao.getKey()), condicao.getValue());
+                }
+                if (atende) {
+                    encontradas.add(linha);
+                }
+            }
+            return encontradas;
+        }
+
+        private ResultSet consultar() throws SQLException {
+            final Matcher m = SELECT.matcher(sql);
+            if (!m.matches()) {
+                throw new SQLFeatureNotSupportedException(sql);
+            }
+            final List<String> colunas = new ArrayList<>();
+            for (String coluna : separar(m.group(1), ",")) {
+                colunas.add(normalizar(coluna));
+            }
+            final List<Map<String, Object>> linhas = linhas(m.group(2));
+            final List<Object[]> resultado = new ArrayList<>();
+            synchronized (linhas) {
+                for (Map<String, Object> linha : filtrar(linhas, condicoes(m.group(3), 1))) {
+                    final Object[] valores = new Object[colunas.size()];
+                    for (int i = 0; i < valores.length; i++) {
+                        valores[i] = linha.get(colunas.get(i));
+                    }
+                    resultado.add(valores);
+                }
+            }
+            return (ResultSet) Proxy.newProxyInstance(BancoMemoria.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class }, new Resultado(colunas, resultado));
+        }
+
+        private int atualizar() throws SQLException {
+            Matcher m = INSERT.matcher(sql);
+            if (m.matches()) {
+                final Map<String, Object> linha = novaLinha();
+                int indice = 1;
+                for (String coluna : separar(m.group(2), ",")) {
+                    linha.put(normalizar(coluna), parametro(indice++));
+                }
+                final String unica = unicas.get(normalizar(m.group(1)));
+                final List<Map<String, Object>> linhas = linhas(m.group(1));
+                synchronized (linhas) {
+                    if (unica != null
+                            && !filtrar(linhas, Collections.singletonMap(unica, linha.get(unica))).isEmpty()) {
+                        throw new SQLIntegrityConstraintViolationException(unica + " = " + linha.get(unica));
+                    }
+                    linhas.add(linha);
+                }
+                return 1;
+            }
+            m = UPDATE.matcher(sql);
+            if (m.matches()) {
+                final List<String> atribuicoes = separar(m.group(2), ",");
+                final Map<String, Object> condicoes = condicoes(m.group(3), atribuicoes.size() + 1);
+                final List<Map<String, Object>> linhas = linhas(m.group(1));
+                final List<Map<String, Object>> alvos;
+                synchronized (linhas) {
+                    alvos = filtrar(linhas, condicoes);
+                }
+                conexao.bloquear(alvos);
+                synchronized (linhas) {
+                    for (Map<String, Object> linha : alvos) {
+                        int indice = 1;
+                        for (String atribuicao : atribuicoes) {
+                            final String coluna = normalizar(atribuicao.substring(0, atribuicao.indexOf('=')));
+                            final Matcher incremento = INCREMENTO.matcher(atribuicao);
+                            final Object valor = parametro(indice++);
+                            if (incremento.find()) {
+                                final BigDecimal atual = new BigDecimal(String.valueOf(linha.get(coluna)));
+                                linha.put(coluna, atual.add(new BigDecimal(String.valueOf(valor))));
+                            } else {
+                                linha.put(coluna, valor);
+                            }
+                        }
+                    }
+                }
+                return alvos.size();
+            }
+            m = DELETE.matcher(sql);
+            if (m.matches()) {
+                final List<Map<String, Object>> linhas = linhas(m.group(1));
+                final List<Map<String, Object>> alvos;
+                synchronized (linhas) {
+                    alvos = filtrar(linhas, condicoes(m.group(2), 1));
+                }
+                conexao.bloquear(alvos);
+                synchronized (linhas) {
+                    linhas.removeAll(alvos);
+                }
+                return alvos.size();
+            }
+            throw new SQLFeatureNotSupportedException(sql);
+        }
+    }
+
+    /**
+     * ResultSet em memória, lido por índice ou nome da coluna. Atende também ao {@link ResultSetMetaData}
+     */
+    private static final class Resultado implements InvocationHandler {
+
+        private final List<String> colunas;
+
+        private final List<Object[]> linhas;
+
+        private int atual = -1;
+
+        private boolean nulo;
+
+        Resultado(final List<String> colunas, final List<Object[]> linhas) {
+            this.colunas = colunas;
+            this.linhas = Collections.unmodifiableList(linhas);
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method metodo, final Object[] args) throws SQLException {
+            final String nome = metodo.getName();
+            switch (nome) {
+                case "next":
+                    return ++atual < linhas.size();
+                case "wasNull":
+                    return nulo;
+                case "close":
+                    return null;
+                case "isClosed":
+                    return false;
+                case "getMetaData":
+                    return Proxy.newProxyInstance(BancoMemoria.class.getClassLoader(),
+                            new Class<?>[] { ResultSetMetaData.class }, this);
+                case "getColumnCount":
+                    return colunas.size();
+                case "getColumnLabel":
+                case "getColumnName":
+                    return colunas.get((Integer) args[0] - 1);
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "BancoMemoria.Resultado" + colunas;
+                default:
+                    break;
+            }
+            if (!nome.startsWith("get") || args == null || args.length != 1) {
+                throw new SQLFeatureNotSupportedException(nome);
+            }
+            final int indice = args[0] instanceof Integer ? (Integer) args[0] - 1
+                    : colunas.indexOf(normalizar((String) args[0]));
+            final Object valor = linhas.get(atual)[indice];
+            nulo = valor == null;
+            return converter(metodo.getReturnType(), valor);
+        }
+
+        private static Object converter(final Class<?> tipo, final Object valor) throws SQLException {
+            if (tipo == Object.class || valor != null && tipo.isInstance(valor)) {
+                return valor;
+            }
+            if (valor == null) {
+                return tipo.isPrimitive() ? primitivoNulo(tipo) : null;
+            }
+            if (tipo == String.class) {
+                return valor.toString();
+            }
+            try {
+                if (tipo == BigDecimal.class) {
+                    return new BigDecimal(valor.toString());
+                }
+                final Number numero = new BigDecimal(valor.toString());
+                return Number.class.getMethod(tipo.getName() + "Value").invoke(numero);
+            } catch (NumberFormatException | ReflectiveOperationException ex) {
+                throw new SQLException("Conversão de " + valor + " para " + tipo.getName(),
+                        ex instanceof InvocationTargetException ? ex.getCause() : ex);
+            }
+        }
+
+        private static Object primitivoNulo(final Class<?> tipo) {
+            if (tipo == boolean.class) {
+                return false;
+            }
+            if (tipo == double.class) {
+                return 0d;
+            }
+            if (tipo == float.class) {
+                return 0f;
+            }
+            if (tipo == long.class) {
+                return 0L;
+            }
+            if (tipo == short.class) {
+                return (short) 0;
+            }
+            if (tipo == byte.class) {
+                return (byte) 0;
+            }
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package br.mini.operacional;
+
+import br.mini.annotations.Coluna;
+import br.mini.annotations.Tabela;
+
+/**
+ * Entidade referenciada por FK nos testes de concorrência
+ *
+ * @author figueiredo-lucas
+ *
+ */
+@Tabela(nome = "TB_CATEGORIA", prefixo = "C")
+public class Categoria {
+
+    @Coluna(nome = "ID_CATEGORIA", isPk = true)
+    public String id;
+
+    @Coluna(nome = "NM_CATEGORIA")
+    public String nome;
+}
@@ -0,0 +1,152 @@
+package br.mini.operacional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import br.mini.annotations.Coluna;
+import br.mini.annotations.Tabela;
+import br.mini.database.BancoMemoria;
+import br.mini.database.Connector;
+
+/**
+ * Teste de concorrência do {@link KeyGen} sobre o {@link BancoMemoria}: diversas threads obtêm chaves do mesmo
+ * domínio ao mesmo tempo, sem o domínio previamente cadastrado no KEY_GEN, com a reserva unitária (na {@link Sessao},
+ * confirmada a cada chave como no salvar) e com a reserva em blocos. Cada cenário é executado com as conexões em auto
+ * commit, como entregues pelos drivers JDBC, e sem auto commit.
+ * <br>
+ * Como os blocos reservados permanecem no KeyGen, cada cenário utiliza um domínio próprio.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public class KeyGenConcorrenciaTest {
+
+    private static final int THREADS = 64;
+
+    private static final int CHAVES = 500;
+
+    @Test
+    public void unitariaComAutoCommit() throws Exception {
+        executar(new BancoMemoria(true), Unitaria.class);
+    }
+
+    @Test
+    public void unitariaSemAutoCommit() throws Exception {
+        executar(new BancoMemoria(false), UnitariaManual.class);
+    }
+
+    @Test
+    public void emBlocoComAutoCommit() throws Exception {
+        executar(new BancoMemoria(true), EmBloco.class);
+    }
+
+    @Test
+    public void emBlocoSemAutoCommit() throws Exception {
+        executar(new BancoMemoria(false), EmBlocoManual.class);
+    }
+
+    /**
+     * Obtém as chaves do domínio da classe concorrentemente e confere que são distintas e cobertas pelo
+     * CC_NEXT_VALUE, com uma única linha do domínio no KEY_GEN
+     */
+    private static void executar(final BancoMemoria banco, final Class<?> classe) throws Exception {
+        banco.unica("KEY_GEN", "CC_DOMAIN");
+        Connector.configurar(banco);
+        final Tabela tabela = classe.getAnnotation(Tabela.class);
+        final Coluna coluna = classe.getDeclaredField("id").getAnnotation(Coluna.class);
+        final ConcurrentMap<String, Integer> geradas = new ConcurrentHashMap<>();
+        final AtomicInteger duplicadas = new AtomicInteger();
+        final AtomicReference<Exception> erro = new AtomicReference<>();
+        final CountDownLatch largada = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        largada.await();
+                        for (int i = 0; i < CHAVES; i++) {
+                            final Sessao sessao = Sessao.abrir();
+                            try {
+                                final String chave = KeyGen.getPk(tabela, coluna);
+                                sessao.confirmar();
+                                if (geradas.putIfAbsent(chave, thread) != null) {
+                                    duplicadas.incrementAndGet();
+                                }
+                            } finally {
+                                sessao.close();
+                            }
+                        }
+                    } catch (Exception ex) {
+                        erro.compareAndSet(null, ex);
+                    }
+                }
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertTrue("tempo esgotado", executor.awaitTermination(5, TimeUnit.MINUTES));
+        if (erro.get() != null) {
+            throw erro.get();
+        }
+
+        final String dominio = tabela.nome() + coluna.nome();
+        long proximo = 0;
+        int linhas = 0;
+        for (Map<String, Object> linha : banco.listar("KEY_GEN")) {
+            if (dominio.equals(linha.get("CC_DOMAIN"))) {
+                proximo = new BigDecimal(String.valueOf(linha.get("CC_NEXT_VALUE"))).longValue();
+                linhas++;
+            }
+        }
+        final int esperadas = THREADS * CHAVES;
+        assertEquals("chaves duplicadas", 0, duplicadas.get());
+        assertEquals("chaves distintas", esperadas, geradas.size());
+        assertEquals("linhas do domínio no KEY_GEN", 1, linhas);
+        assertTrue("CC_NEXT_VALUE " + proximo + " não cobre as chaves entregues", proximo - 1 >= esperadas);
+        assertEquals("conexões não fechadas", 0, banco.getConexoesAbertas());
+    }
+
+    @Tabela(nome = "TB_UNITARIA", prefixo = "U")
+    private static final class Unitaria {
+
+        @Coluna(nome = "ID", isPk = true)
+        String id;
+    }
+
+    @Tabela(nome = "TB_UNITARIA_MANUAL", prefixo = "V")
+    private static final class UnitariaManual {
+
+        @Coluna(nome = "ID", isPk = true)
+        String id;
+    }
+
+    @Tabela(nome = "TB_EM_BLOCO", prefixo = "B", blocoChaves = 100)
+    private static final class EmBloco {
+
+        @Coluna(nome = "ID", isPk = true)
+        String id;
+    }
+
+    @Tabela(nome = "TB_EM_BLOCO_MANUAL", prefixo = "C", blocoChaves = 100)
+    private static final class EmBlocoManual {
+
+        @Coluna(nome = "ID", isPk = true)
+        String id;
+    }
+}
@@ -0,0 +1,149 @@
+package br.mini.operacional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import br.mini.database.BancoMemoria;
+import br.mini.database.Connector;
+
+/**
+ * Teste de concorrência de uma única instância de {@link Operacoes} compartilhada por diversas threads, sobre o
+ * {@link BancoMemoria}. Cada thread grava a sua {@link Categoria} e executa repetidamente o ciclo salvar, buscar por
+ * PK, atualizar, buscar e excluir de um {@link Registro} com valores próprios da thread, conferindo a cada leitura
+ * que os valores e a FK carregada são os da própria thread.
+ * <br>
+ * Ao final, não pode haver chaves duplicadas, registros remanescentes, conexões ou statements abertos, nem sessões
+ * vinculadas. O teste é executado com as conexões em auto commit, como entregues pelos drivers JDBC, e sem auto
+ * commit.
+ *
+ * @author figueiredo-lucas
+ *
+ */
+public class OperacoesConcorrenciaTest {
+
+    private static final int THREADS = 100;
+
+    private static final int ITERACOES = 50;
+
+    private static final int FALHAS_EXIBIDAS = 10;
+
+    @Test
+    public void compartilhadaComAutoCommit() throws Exception {
+        executar(new BancoMemoria(true));
+    }
+
+    @Test
+    public void compartilhadaSemAutoCommit() throws Exception {
+        executar(new BancoMemoria(false));
+    }
+
+    private static void executar(final BancoMemoria banco) throws Exception {
+        banco.inserir("KEY_GEN", "CC_DOMAIN", "TB_CATEGORIAID_CATEGORIA", "CC_NEXT_VALUE", BigDecimal.ONE);
+        banco.inserir("KEY_GEN", "CC_DOMAIN", "TB_REGISTROID_REGISTRO", "CC_NEXT_VALUE", BigDecimal.ONE);
+        Connector.configurar(banco);
+
+        final Operacoes op = new Operacoes() {
+        };
+        final Queue<String> falhas = new ConcurrentLinkedQueue<>();
+        final CountDownLatch largada = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            executor.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        largada.await();
+                        ciclo(op, thread);
+                    } catch (Exception | AssertionError ex) {
+                        falhas.add("thread " + thread + ": " + ex);
+                    }
+                }
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        assertTrue("tempo esgotado", executor.awaitTermination(5, TimeUnit.MINUTES));
+        if (!falhas.isEmpty()) {
+            final StringBuilder mensagem = new StringBuilder(falhas.size() + " thread(s) com falha");
+            int exibidas = 0;
+            for (String falha : falhas) {
+                if (exibidas++ < FALHAS_EXIBIDAS) {
+                    mensagem.append('\n').append(falha);
+                }
+            }
+            fail(mensagem.toString());
+        }
+
+        final List<Map<String, Object>> categorias = banco.listar("TB_CATEGORIA");
+        final Set<Object> chaves = new HashSet<>();
+        for (Map<String, Object> categoria : categorias) {
+            chaves.add(categoria.get("ID_CATEGORIA"));
+        }
+        assertEquals("categorias gravadas", THREADS, categorias.size());
+        assertEquals("chaves distintas", THREADS, chaves.size());
+        assertEquals("registros não excluídos", 0, banco.listar("TB_REGISTRO").size());
+        assertEquals("conexões não fechadas", 0, banco.getConexoesAbertas());
+        assertEquals("statements não fechados", 0, banco.getStatementsAbertos());
+        assertEquals("sessões vinculadas", 0, Sessao.getConexoesAbertas());
+    }
+
+    /**
+     * Ciclo de uma thread: todos os valores gravados identificam a thread e a iteração
+     */
+    private static void ciclo(final Operacoes op, final int thread) throws Exception {
+        final Categoria categoria = new Categoria();
+        categoria.nome = "CATEGORIA " + thread;
+        op.salvar(categoria);
+        for (int iteracao = 0; iteracao < ITERACOES; iteracao++) {
+            final Registro registro = new Registro();
+            registro.nome = "REGISTRO " + thread + "-" + iteracao;
+            registro.valor = BigDecimal.valueOf(thread * 1000000L + iteracao, 2);
+            registro.categoria = categoria;
+            op.salvar(registro);
+            conferir(op.encontrarPorPK(Registro.class, registro.id), registro);
+
+            registro.nome = registro.nome + " ALTERADO";
+            registro.valor = registro.valor.negate();
+            op.atualizar(registro);
+            conferir(op.encontrarPorPK(Registro.class, registro.id), registro);
+
+            op.excluir(registro);
+            if (op.encontrarPorPK(Registro.class, registro.id) != null) {
+                throw new AssertionError("registro " + registro.id + " não excluído");
+            }
+        }
+    }
+
+    private static void conferir(final Registro lido, final Registro esperado) {
+        if (lido == null) {
+            throw new AssertionError("registro " + esperado.id + " não encontrado");
+        }
+        if (!esperado.id.equals(lido.id) || !esperado.nome.equals(lido.nome)
+                || esperado.valor.compareTo(lido.valor) != 0) {
+            throw new AssertionError("esperado " + esperado.id + "/" + esperado.nome + "/" + esperado.valor
+                    + ", lido " + lido.id + "/" + lido.nome + "/" + lido.valor);
+        }
+        if (lido.categoria == null || !esperado.categoria.id.equals(lido.categoria.id)
+                || !esperado.categoria.nome.equals(lido.categoria.nome)) {
+            throw new AssertionError("categoria esperada " + esperado.categoria.id + ", lida "
+                    + (lido.categoria == null ? null : lido.categoria.id + "/" + lido.categoria.nome));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package br.mini.operacional;
+
+import java.math.BigDecimal;
+
+import br.mini.annotations.Coluna;
+import br.mini.annotations.Tabela;
+
+/**
+ * Entidade gravada e lida por diversas threads nos testes de concorrência
+ *
+ * @author figueiredo-lucas
+ *
+ */
+@Tabela(nome = "TB_REGISTRO", prefixo = "R")
+public class Registro {
+
+    @Coluna(nome = "ID_REGISTRO", isPk = true)
+    public String id;
+
+    @Coluna(nome = "NM_REGISTRO")
+    public String nome;
+
+    @Coluna(nome = "VL_REGISTRO")
+    public BigDecimal valor;
+
+    @Coluna(nome = "ID_CATEGORIA", isFk = true)
+    public Categoria categoria;
+}